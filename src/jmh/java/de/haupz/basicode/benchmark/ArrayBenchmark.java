@@ -0,0 +1,89 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.array.ArrayType;
+import de.haupz.basicode.array.BasicArray1D;
+import de.haupz.basicode.array.BasicArray2D;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure element access through {@link BasicArray1D} and {@link BasicArray2D} directly, without the interpreter.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ArrayBenchmark {
+
+    static final int SIZE = 100;
+
+    private BasicArray1D array1D;
+
+    private BasicArray2D array2D;
+
+    @Setup
+    public void setUp() {
+        array1D = new BasicArray1D(ArrayType.NUMBER, SIZE * SIZE);
+        array2D = new BasicArray2D(ArrayType.NUMBER, SIZE, SIZE);
+    }
+
+    @Benchmark
+    public double readWrite1D() {
+        for (int i = 0; i < SIZE * SIZE; ++i) {
+            array1D.setAt(i, -1, (double) i);
+        }
+        double sum = 0.0;
+        for (int i = 0; i < SIZE * SIZE; ++i) {
+            sum += (Double) array1D.at(i, -1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double readWrite2D() {
+        for (int i = 0; i < SIZE; ++i) {
+            for (int j = 0; j < SIZE; ++j) {
+                array2D.setAt(i, j, (double) (i + j));
+            }
+        }
+        double sum = 0.0;
+        for (int i = 0; i < SIZE; ++i) {
+            for (int j = 0; j < SIZE; ++j) {
+                sum += (Double) array2D.at(i, j);
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double readWrite1DUnboxed() {
+        for (int i = 0; i < SIZE * SIZE; ++i) {
+            array1D.setAtDouble(i, -1, i);
+        }
+        double sum = 0.0;
+        for (int i = 0; i < SIZE * SIZE; ++i) {
+            sum += array1D.atDouble(i, -1);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double readWrite2DUnboxed() {
+        for (int i = 0; i < SIZE; ++i) {
+            for (int j = 0; j < SIZE; ++j) {
+                array2D.setAtDouble(i, j, i + j);
+            }
+        }
+        double sum = 0.0;
+        for (int i = 0; i < SIZE; ++i) {
+            for (int j = 0; j < SIZE; ++j) {
+                sum += array2D.atDouble(i, j);
+            }
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,102 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.interpreter.Configuration;
+import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.io.BufferedReaderInput;
+import de.haupz.basicode.io.PrintStreamOutput;
+import de.haupz.basicode.parser.Parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Helpers shared by the benchmarks: loading sources, parsing them, and setting up a headless interpreter state that
+ * discards all output.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {}
+
+    /**
+     * The directory containing the example programs. Benchmarks are run from the project root.
+     */
+    static final Path EXAMPLES = Path.of("examples");
+
+    /**
+     * The interpreter configuration for benchmark runs: no waiting, no sound, no holding at the end.
+     */
+    static final Configuration CONFIGURATION = new Configuration(true, true, false, false, false, 0, false, false, 50);
+
+    /**
+     * @param source BASICODE source code.
+     * @return the parsed program.
+     */
+    static ProgramNode parse(String source) {
+        return new Parser(source).program();
+    }
+
+    /**
+     * Create an interpreter state that reads from an empty input and writes to nowhere.
+     *
+     * @param program the program to run.
+     * @return an interpreter state for a headless run of the program.
+     */
+    static InterpreterState headlessState(ProgramNode program) {
+        PrintStream out = new PrintStream(OutputStream.nullOutputStream());
+        BufferedReader in = new BufferedReader(new StringReader(""));
+        return new InterpreterState(program, null, new BufferedReaderInput(in), new PrintStreamOutput(out), null,
+                CONFIGURATION);
+    }
+
+    /**
+     * Run a program headless from start to end.
+     *
+     * @param program the program to run.
+     * @return the interpreter state after the run.
+     */
+    static InterpreterState run(ProgramNode program) {
+        InterpreterState state = headlessState(program);
+        program.run(state);
+        return state;
+    }
+
+    /**
+     * @param name the file name of an example program.
+     * @return the example program's source code.
+     */
+    static String readExample(String name) {
+        try {
+            return Files.readString(EXAMPLES.resolve(name));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the source code of all example programs.
+     */
+    static List<String> readAllExamples() {
+        return listExamples().stream().map(f -> readExample(f.getFileName().toString())).toList();
+    }
+
+    /**
+     * @return the paths of all example programs.
+     */
+    static List<Path> listExamples() {
+        try (Stream<Path> files = Files.list(EXAMPLES)) {
+            return files.filter(f -> f.toString().endsWith(".bas")).sorted().toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.compiler.CompiledProgram;
+import de.haupz.basicode.compiler.ProgramCompiler;
+import de.haupz.basicode.interpreter.InterpreterState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run the {@linkplain InterpreterBenchmark interpreter workloads} {@linkplain ProgramCompiler compiled to bytecode}.
+ * Neither parsing nor compilation is part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CompilerBenchmark {
+
+    @Param({"dispatch", "expressions", "forNext", "gosubReturn", "strings", "arrays", "ifSkip"})
+    public String workload;
+
+    private ProgramNode program;
+
+    private CompiledProgram compiled;
+
+    @Setup
+    public void setUp() {
+        program = BenchmarkSupport.parse(InterpreterBenchmark.WORKLOADS.get(workload));
+        compiled = ProgramCompiler.compile(program);
+    }
+
+    @Benchmark
+    public InterpreterState run() {
+        InterpreterState state = BenchmarkSupport.headlessState(program);
+        compiled.run(state);
+        return state;
+    }
+
+}
@@ -0,0 +1,36 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.interpreter.InterpreterState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run programs from the {@code examples} directory headless. Only examples that neither need input, graphics, nor
+ * files are included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExamplesBenchmark {
+
+    @Param({"hello.bas", "num-str.bas", "print-wrap.bas", "random.bas", "s-bahn.bas", "scroll.bas"})
+    public String example;
+
+    private ProgramNode program;
+
+    @Setup
+    public void setUp() {
+        program = BenchmarkSupport.parse(BenchmarkSupport.readExample(example));
+    }
+
+    @Benchmark
+    public InterpreterState run() {
+        return BenchmarkSupport.run(program);
+    }
+
+}
@@ -0,0 +1,116 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.interpreter.InterpreterState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Run synthetic workloads, each exercising one of the interpreter's hot paths, from start to end. Parsing is not part
+ * of the measurement. The workloads are run using both the default threaded interpreter loop and, for comparison, the
+ * classic loop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InterpreterBenchmark {
+
+    static final Map<String, String> WORKLOADS = Map.of(
+            // the ProgramNode.run dispatch loop with trivial statements
+            "dispatch", """
+                    1000 FOR I=1 TO 20000
+                    1010 REM
+                    1020 A=1:B=2:C=3
+                    1030 NEXT I
+                    """,
+            // arithmetic, comparisons, logic, and numeric builtins
+            "expressions", """
+                    1000 FOR I=1 TO 20000
+                    1010 X=(I*3.5+2)/(I+1)-I^2/7
+                    1020 Y=SQR(ABS(X))+SIN(I)*COS(I)-INT(X/3)
+                    1030 Z=(X>Y AND I<100) OR NOT (X=Y)
+                    1040 NEXT I
+                    """,
+            // nested FOR/NEXT loops
+            "forNext", """
+                    1000 FOR I=1 TO 200
+                    1010 FOR J=1 TO 100
+                    1020 NEXT J
+                    1030 NEXT I
+                    """,
+            // GOSUB/RETURN to a user routine
+            "gosubReturn", """
+                    1000 FOR I=1 TO 20000
+                    1010 GOSUB 2000
+                    1020 NEXT I
+                    1030 END
+                    2000 A=A+1
+                    2010 RETURN
+                    """,
+            // GOSUB to builtin subroutines
+            "subroutines", """
+                    1000 FOR I=1 TO 20000
+                    1010 GOSUB 270:GOSUB 270:GOSUB 270
+                    1020 NEXT I
+                    """,
+            // printing numbers, and converting them from and to strings
+            "numbers", """
+                    1000 GOTO 20
+                    1010 FOR I=1 TO 5000
+                    1020 PRINT I;I/8;-I*1.37,TAB(30);VAL("12.5E-1")
+                    1030 SR=I/3:GOSUB 300:CT=10:CN=2:GOSUB 310
+                    1040 NEXT I
+                    """,
+            // string building with +, and string slicing with MID$ and LEFT$
+            "strings", """
+                    1000 A$=""
+                    1010 FOR I=1 TO 2000
+                    1020 A$=A$+CHR$(65+I-INT(I/26)*26)
+                    1030 NEXT I
+                    1040 FOR I=1 TO LEN(A$)
+                    1050 C$=MID$(A$,I,1):L$=LEFT$(A$,I)
+                    1060 NEXT I
+                    """,
+            // reading from and writing to one- and two-dimensional arrays
+            "arrays", """
+                    1000 DIM A(1000),B(30,30)
+                    1010 FOR I=0 TO 1000:A(I)=I*2:NEXT I
+                    1020 FOR I=0 TO 1000:S=S+A(I):NEXT I
+                    1030 FOR I=0 TO 30:FOR J=0 TO 30:B(I,J)=I+J:S=S+B(I,J):NEXT J:NEXT I
+                    """,
+            // IF with a false condition, skipping the remainder of a line
+            "ifSkip", """
+                    1000 FOR I=1 TO 20000
+                    1010 IF I<0 THEN A=1:B=2:C=3:D=4
+                    1020 NEXT I
+                    """
+    );
+
+    @Param({"dispatch", "expressions", "forNext", "gosubReturn", "subroutines", "numbers", "strings", "arrays", "ifSkip"})
+    public String workload;
+
+    private ProgramNode program;
+
+    @Setup
+    public void setUp() {
+        program = BenchmarkSupport.parse(WORKLOADS.get(workload));
+    }
+
+    @Benchmark
+    public InterpreterState run() {
+        return BenchmarkSupport.run(program);
+    }
+
+    @Benchmark
+    public InterpreterState runClassic() {
+        InterpreterState state = BenchmarkSupport.headlessState(program);
+        program.runClassic(state);
+        return state;
+    }
+
+}
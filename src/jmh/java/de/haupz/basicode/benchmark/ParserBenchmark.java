@@ -0,0 +1,127 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.parser.Lexer;
+import de.haupz.basicode.parser.Parser;
+import de.haupz.basicode.parser.SourceLoader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure {@link de.haupz.basicode.parser.Parser#program()} on the example programs and on large synthetic programs.
+ * The {@code ...Lines} benchmarks report throughput in source lines per second, for parsing and for lexing alone.
+ * {@code loadExamples} measures loading the example programs from their files and parsing them; run it with
+ * {@code -prof gc} to see how much garbage loading creates.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+    /**
+     * The number of line blocks in the synthetic program. Each block has {@link #BLOCK_LINES} lines.
+     */
+    static final int BLOCKS = 500;
+
+    static final int BLOCK_LINES = 8;
+
+    /**
+     * The number of line blocks in the large synthetic program, which has more than 10,000 lines.
+     */
+    static final int LARGE_BLOCKS = 1500;
+
+    private List<Path> examplePaths;
+
+    private List<String> examples;
+
+    private String synthetic;
+
+    private String large;
+
+    /**
+     * Generate a program covering all statement kinds and most builtins.
+     *
+     * @param blocks the number of line blocks to generate.
+     * @return the program source.
+     */
+    static String syntheticProgram(int blocks) {
+        StringBuilder sb = new StringBuilder();
+        int line = 1000;
+        for (int b = 0; b < blocks; ++b) {
+            sb.append(line).append(" REM block ").append(b).append('\n');
+            sb.append(line + 1).append(" FOR I=1 TO 10 STEP 2:A(I)=I*3.5+B/2:NEXT I\n");
+            sb.append(line + 2).append(" IF A>B AND NOT C THEN PRINT \"YES\";TAB(10);A:GOTO ").append(line + 4)
+                    .append('\n');
+            sb.append(line + 3).append(" S$=LEFT$(A$,3)+MID$(B$,2,4)+RIGHT$(C$,1)+CHR$(65):L=LEN(S$)+ASC(S$)\n");
+            sb.append(line + 4).append(" ON X GOSUB ").append(line + 6).append(',').append(line + 7).append('\n');
+            sb.append(line + 5).append(" X=SQR(ABS(Y))+SIN(Z)*COS(Z)-INT(W/3)^2:DIM Q(10,10)\n");
+            sb.append(line + 6).append(" READ D,E$:RESTORE:RETURN\n");
+            sb.append(line + 7).append(" DATA 1,\"TWO\",3.5,-4\n");
+            line += 10;
+        }
+        return sb.toString();
+    }
+
+    @Setup
+    public void setUp() {
+        examplePaths = BenchmarkSupport.listExamples();
+        examples = BenchmarkSupport.readAllExamples();
+        synthetic = syntheticProgram(BLOCKS);
+        large = syntheticProgram(LARGE_BLOCKS);
+    }
+
+    @Benchmark
+    public void parseExamples(Blackhole bh) {
+        for (String example : examples) {
+            bh.consume(BenchmarkSupport.parse(example));
+        }
+    }
+
+    @Benchmark
+    public void loadExamples(Blackhole bh) throws IOException {
+        for (Path path : examplePaths) {
+            bh.consume(new Parser(SourceLoader.load(path)).program());
+        }
+    }
+
+    @Benchmark
+    public ProgramNode parseSynthetic() {
+        return BenchmarkSupport.parse(synthetic);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(BLOCKS * BLOCK_LINES)
+    public ProgramNode parseSyntheticLines() {
+        return BenchmarkSupport.parse(synthetic);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(LARGE_BLOCKS * BLOCK_LINES)
+    public ProgramNode parseLargeLines() {
+        return BenchmarkSupport.parse(large);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(LARGE_BLOCKS * BLOCK_LINES)
+    public void lexLargeLines(Blackhole bh) {
+        Lexer lexer = new Lexer(large);
+        while (lexer.hasMoreInput()) {
+            bh.consume(lexer.getSymbol());
+        }
+    }
+
+}
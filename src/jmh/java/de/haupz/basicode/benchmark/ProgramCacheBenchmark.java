@@ -0,0 +1,85 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.parser.Parser;
+import de.haupz.basicode.parser.ProgramCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compare loading a large program from the {@link ProgramCache} with parsing it. The {@code cold...} benchmarks
+ * measure a single run in a fresh JVM, which is what starting a program amounts to; the others measure the steady
+ * state.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProgramCacheBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Source {
+        String large = ParserBenchmark.syntheticProgram(ParserBenchmark.LARGE_BLOCKS);
+    }
+
+    /**
+     * A cache that holds the large program.
+     */
+    @State(Scope.Benchmark)
+    public static class Cache {
+        Path directory;
+        ProgramCache cache;
+
+        @Setup
+        public void setUp(Source source) throws IOException {
+            directory = Files.createTempDirectory("basicode-cache");
+            cache = new ProgramCache(directory);
+            cache.parse(source.large);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(p);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public ProgramNode parseLarge(Source source) {
+        return new Parser(source.large).program();
+    }
+
+    @Benchmark
+    public ProgramNode loadLarge(Source source, Cache cache) {
+        return cache.cache.load(source.large).orElseThrow();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public ProgramNode coldParseLarge(Source source) {
+        return new Parser(source.large).program();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(10)
+    public ProgramNode coldLoadLarge(Source source, Cache cache) {
+        return cache.cache.load(source.large).orElseThrow();
+    }
+
+}
@@ -0,0 +1,82 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.interpreter.InterpreterState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure string accumulation with {@code A$=A$+X$} in a loop, for results of different lengths. The time per
+ * appended character should stay about the same as the length grows, i.e., the total time should scale linearly.
+ * Also, measure scanning a string character by character, and slicing it, with {@code MID$}, {@code LEFT$}, and
+ * {@code RIGHT$}; none of which should copy characters (run with {@code -prof gc} to see the allocation rate).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int length;
+
+    private ProgramNode accumulate;
+
+    private ProgramNode accumulateAndPrint;
+
+    private ProgramNode scan;
+
+    @Setup
+    public void setUp() {
+        // A$ is appended to one character at a time; B$ is appended to with a string that is itself built up.
+        accumulate = BenchmarkSupport.parse("""
+                1000 A$="":B$=""
+                1010 FOR I=1 TO %d
+                1020 A$=A$+"X"
+                1030 NEXT I
+                1040 FOR I=1 TO %d
+                1050 L$="":FOR J=1 TO 10:L$=L$+CHR$(64+J):NEXT J
+                1060 B$=B$+L$
+                1070 NEXT I
+                1080 N=LEN(A$)+LEN(B$)
+                """.formatted(length, length / 10));
+        // The result is consumed once at the end, the way a screen line or file record would be.
+        accumulateAndPrint = BenchmarkSupport.parse("""
+                1000 A$=""
+                1010 FOR I=1 TO %d
+                1020 A$=A$+CHR$(65+I-INT(I/26)*26)
+                1030 NEXT I
+                1040 PRINT MID$(A$,LEN(A$)/2,10)
+                1050 PRINT A$
+                """.formatted(length));
+        // The string is scanned and sliced ten times after it has been built.
+        scan = BenchmarkSupport.parse("""
+                1000 A$="":FOR I=1 TO %d:A$=A$+CHR$(65+I-INT(I/26)*26):NEXT I
+                1010 FOR R=1 TO 10
+                1020 FOR I=1 TO LEN(A$)
+                1030 C$=MID$(A$,I,1):IF C$="Z" THEN N=N+1
+                1040 NEXT I
+                1050 L$=LEFT$(A$,LEN(A$)/2):M$=MID$(L$,2,LEN(L$)-2):R$=RIGHT$(M$,10)
+                1060 NEXT R
+                """.formatted(length));
+    }
+
+    @Benchmark
+    public InterpreterState accumulate() {
+        return BenchmarkSupport.run(accumulate);
+    }
+
+    @Benchmark
+    public InterpreterState accumulateAndPrint() {
+        return BenchmarkSupport.run(accumulateAndPrint);
+    }
+
+    @Benchmark
+    public InterpreterState scan() {
+        return BenchmarkSupport.run(scan);
+    }
+
+}
@@ -0,0 +1,50 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.io.ConsoleConfiguration;
+import de.haupz.basicode.io.TextBuffer;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure {@link TextBuffer#writeString(String, boolean)}, both for printing single characters and for printing full
+ * lines that make the buffer scroll.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextBufferBenchmark {
+
+    private static final String LINE = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcd";
+
+    private TextBuffer textBuffer;
+
+    @Setup
+    public void setUp() {
+        textBuffer = new TextBuffer(ConsoleConfiguration.LINES, ConsoleConfiguration.COLUMNS, Color.BLUE, Color.YELLOW);
+    }
+
+    @Benchmark
+    public TextBuffer writeCharacters() {
+        textBuffer.clear();
+        for (int i = 0; i < ConsoleConfiguration.LINES * ConsoleConfiguration.COLUMNS; ++i) {
+            textBuffer.writeString("X", (i & 1) == 0);
+        }
+        return textBuffer;
+    }
+
+    @Benchmark
+    public TextBuffer writeLines() {
+        textBuffer.clear();
+        for (int i = 0; i < 2 * ConsoleConfiguration.LINES; ++i) {
+            textBuffer.writeString(LINE, false);
+            textBuffer.lineFeed();
+        }
+        return textBuffer;
+    }
+
+}
@@ -0,0 +1,82 @@
+package de.haupz.basicode.benchmark;
+
+import de.haupz.basicode.io.ConsoleConfiguration;
+import de.haupz.basicode.io.TextBuffer;
+import de.haupz.basicode.ui.GlyphAtlas;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import static de.haupz.basicode.io.ConsoleConfiguration.*;
+
+/**
+ * Measure rendering a full screen of text to an off-screen image, both through a {@link GlyphAtlas} and, for
+ * comparison, by drawing each character cell with {@link Graphics2D#drawChars}. The {@code glyphAtlasAndBlit}
+ * benchmark also draws the rendered text to another image, as painting the display does.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TextRenderingBenchmark {
+
+    private TextBuffer textBuffer;
+
+    private BufferedImage image;
+
+    private Graphics2D g2;
+
+    private BufferedImage textImage;
+
+    private GlyphAtlas glyphAtlas;
+
+    @Setup
+    public void setUp() {
+        textBuffer = new TextBuffer(LINES, COLUMNS, COLOR_MAP[1], COLOR_MAP[6]);
+        for (int i = 0; i < LINES * COLUMNS - 1; ++i) {
+            textBuffer.writeString(Character.toString(' ' + i % 95), (i / 7) % 3 == 0);
+        }
+        image = new BufferedImage(ConsoleConfiguration.WIDTH, ConsoleConfiguration.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g2 = image.createGraphics();
+        textImage = new BufferedImage(ConsoleConfiguration.WIDTH, ConsoleConfiguration.HEIGHT,
+                BufferedImage.TYPE_INT_RGB);
+        glyphAtlas = new GlyphAtlas(font());
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage glyphAtlas() {
+        glyphAtlas.drawText(textImage, textBuffer, 0, LINES, 0, COLUMNS);
+        return textImage;
+    }
+
+    @Benchmark
+    public BufferedImage glyphAtlasAndBlit() {
+        glyphAtlas.drawText(textImage, textBuffer, 0, LINES, 0, COLUMNS);
+        g2.drawImage(textImage, 0, 0, null);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage drawChars() {
+        g2.setFont(font());
+        for (int l = 0; l < LINES; ++l) {
+            for (int c = 0; c < COLUMNS; ++c) {
+                g2.setColor(textBuffer.getBackgroundColourAt(l, c));
+                g2.fillRect(c * C_WIDTH, l * C_HEIGHT, C_WIDTH, C_HEIGHT);
+                g2.setColor(textBuffer.getForegroundColourAt(l, c));
+                g2.drawChars(textBuffer.getLine(l), c, 1, c * C_WIDTH, (l + 1) * C_HEIGHT);
+            }
+        }
+        return image;
+    }
+
+}
@@ -0,0 +1,208 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.interpreter.Configuration;
+import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.parser.SourceLoader;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * <p>Run many BASICODE programs {@linkplain HeadlessRunner headless} and concurrently, e.g., all programs in a
+ * directory. Each program runs in its own {@link InterpreterState} on a pool of threads, with empty input, and its
+ * output, as well as its printer output, captured in memory.</p>
+ *
+ * <p>Programs that run longer than a given timeout are stopped by {@linkplain InterpreterState#terminate()
+ * terminating} their interpreter state, and interrupting their thread in case they are waiting.</p>
+ */
+public class BatchRunner {
+
+    /**
+     * The outcome of running a program.
+     */
+    public enum Status {
+        /** The program ran to its end. */
+        OK,
+        /** The program could not be parsed, or failed at run-time. */
+        FAILED,
+        /** The program was stopped because it exceeded the timeout. */
+        TIMEOUT
+    }
+
+    /**
+     * The result of running a program.
+     *
+     * @param file the BASIC source file.
+     * @param status the outcome.
+     * @param output the text output of the program, including breakpoint and watchpoint information.
+     * @param printerOutput the printer output of the program.
+     * @param error the error message if the program failed, or the empty string.
+     * @param millis the wall-clock time the run took, including parsing, in milliseconds.
+     */
+    public record Result(Path file, Status status, String output, String printerOutput, String error, long millis) {}
+
+    private final Configuration configuration;
+
+    private final Duration timeout;
+
+    private final int threads;
+
+    /**
+     * @param configuration the configuration for all interpreters.
+     * @param timeout the maximum time a program may run.
+     * @param threads the number of programs to run concurrently.
+     */
+    public BatchRunner(Configuration configuration, Duration timeout, int threads) {
+        this.configuration = configuration;
+        this.timeout = timeout;
+        this.threads = threads;
+    }
+
+    /**
+     * Run all {@code .bas} files in a directory.
+     *
+     * @param directory the directory.
+     * @return the results, in the order of the file names.
+     * @throws IOException in case the directory cannot be read.
+     */
+    public List<Result> runDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return run(files.filter(f -> f.toString().endsWith(".bas")).sorted().toList());
+        }
+    }
+
+    /**
+     * Run a list of BASIC source files.
+     *
+     * @param files the files.
+     * @return the results, in the order of the files.
+     */
+    public List<Result> run(List<Path> files) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "batch-watchdog");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            List<Future<Result>> futures = files.stream().map(f -> pool.submit(() -> runFile(f, watchdog))).toList();
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("batch run interrupted", e);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("batch run failed", e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+            watchdog.shutdownNow();
+        }
+    }
+
+    /**
+     * Guard a run against exceeding the timeout. The watchdog and the thread running the program synchronise on this
+     * object, so that the watchdog cannot interrupt the thread after the run has finished.
+     */
+    private static final class Watch {
+        private final InterpreterState state;
+        private final Thread worker = Thread.currentThread();
+        private boolean done = false;
+        private boolean timedOut = false;
+
+        Watch(InterpreterState state) {
+            this.state = state;
+        }
+
+        synchronized void expire() {
+            if (!done) {
+                timedOut = true;
+                state.terminate();
+                worker.interrupt();
+            }
+        }
+
+        synchronized boolean finish() {
+            done = true;
+            // Clear a pending interrupt from the watchdog, so that it does not affect the next run on this thread.
+            Thread.interrupted();
+            return timedOut;
+        }
+    }
+
+    private Result runFile(Path file, ScheduledExecutorService watchdog) {
+        long start = System.nanoTime();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true, StandardCharsets.UTF_8);
+        ByteArrayOutputStream printerBytes = new ByteArrayOutputStream();
+        PrintStream printer = new PrintStream(printerBytes, true, StandardCharsets.UTF_8);
+        Status status;
+        String error = "";
+        Watch watch = null;
+        try {
+            ProgramNode prog = HeadlessRunner.parse(SourceLoader.load(file), configuration);
+            InterpreterState state = HeadlessRunner.createState(prog, configuration,
+                    new BufferedReader(new StringReader("")), out, printer, out);
+            watch = new Watch(state);
+            ScheduledFuture<?> expiry = watchdog.schedule(watch::expire, timeout.toMillis(), TimeUnit.MILLISECONDS);
+            try {
+                HeadlessRunner.execute(prog, state);
+            } finally {
+                expiry.cancel(false);
+                state.releaseResources();
+            }
+            status = watch.finish() ? Status.TIMEOUT : Status.OK;
+        } catch (Exception e) {
+            status = watch != null && watch.finish() ? Status.TIMEOUT : Status.FAILED;
+            // Interpreter errors wrap the original exception, and their message starts with its message, which may be
+            // empty. Lead with the original exception, so that the first line is informative.
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            error = cause + "\n" + e.getMessage();
+        }
+        out.flush();
+        printer.flush();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new Result(file, status, bytes.toString(StandardCharsets.UTF_8),
+                printerBytes.toString(StandardCharsets.UTF_8), error, millis);
+    }
+
+    /**
+     * Produce a summary report of a batch run: one line per program, giving its status, run time, file name, and, in
+     * case of failure, the first line of the error message; followed by the totals.
+     *
+     * @param results the results of the batch run.
+     * @return the report.
+     */
+    public static String summary(List<Result> results) {
+        StringBuilder sb = new StringBuilder();
+        for (Result r : results) {
+            sb.append(String.format("%-7s %7d ms  %s", r.status(), r.millis(), r.file().getFileName()));
+            if (r.status() == Status.FAILED) {
+                sb.append("  ").append(r.error().lines().findFirst().orElse(""));
+            }
+            sb.append('\n');
+        }
+        for (Status status : Status.values()) {
+            long n = results.stream().filter(r -> r.status() == status).count();
+            sb.append(status).append(": ").append(n).append(status == Status.TIMEOUT ? "\n" : ", ");
+        }
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,151 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.compiler.CompiledProgram;
+import de.haupz.basicode.compiler.ProgramCompiler;
+import de.haupz.basicode.interpreter.BreakpointHandler;
+import de.haupz.basicode.interpreter.Configuration;
+import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.io.BufferedReaderInput;
+import de.haupz.basicode.io.HeadlessOutput;
+import de.haupz.basicode.parser.Parser;
+import de.haupz.basicode.parser.ProgramCache;
+
+import java.io.BufferedReader;
+import java.io.PrintStream;
+
+/**
+ * <p>Run BASICODE programs without a GUI, e.g., in batch jobs on machines without a display. Input is read from a
+ * {@link BufferedReader}, and text output is written to a {@link PrintStream}. Graphics mode output goes to an
+ * {@linkplain HeadlessOutput in-memory image}.</p>
+ *
+ * <p>No AWT or Swing components are created. Breakpoints and watchpoints print their information to a stream given
+ * for each program, {@link System#err} by default, and let execution continue.</p>
+ */
+public final class HeadlessRunner {
+
+    private HeadlessRunner() {}
+
+    /**
+     * @param debug the stream to print breakpoint information to.
+     * @return a breakpoint handler that prints breakpoint information and then continues execution.
+     */
+    private static BreakpointHandler printingBreakpointHandler(PrintStream debug) {
+        return (state, info) -> debug.println(info);
+    }
+
+    /**
+     * Parse and run a BASICODE program headless.
+     *
+     * @param code the source code to run.
+     * @param configuration the configuration for the interpreter.
+     * @param in the program's input.
+     * @param out the program's output.
+     * @return the interpreter state after the run.
+     * @throws de.haupz.basicode.parser.ParserException in case the program cannot be parsed.
+     * @throws IllegalStateException in case the program fails at run-time.
+     */
+    public static InterpreterState run(CharSequence code, Configuration configuration, BufferedReader in, PrintStream out) {
+        return run(code, configuration, null, in, out);
+    }
+
+    /**
+     * Parse and run a BASICODE program headless, retrieving the parsed program from a cache if possible.
+     *
+     * @param code the source code to run.
+     * @param configuration the configuration for the interpreter.
+     * @param cache the cache of parsed programs, or {@code null} to always parse the program.
+     * @param in the program's input.
+     * @param out the program's output.
+     * @return the interpreter state after the run.
+     * @throws de.haupz.basicode.parser.ParserException in case the program cannot be parsed.
+     * @throws IllegalStateException in case the program fails at run-time.
+     */
+    public static InterpreterState run(CharSequence code, Configuration configuration, ProgramCache cache,
+                                       BufferedReader in, PrintStream out) {
+        ProgramNode prog = parse(code, configuration, cache);
+        InterpreterState state = createState(prog, configuration, in, out, null, System.err);
+        try {
+            execute(prog, state);
+        } finally {
+            state.releaseResources();
+            out.flush();
+        }
+        return state;
+    }
+
+    /**
+     * Parse a BASICODE program, and {@linkplain ProgramNode#foldConstants() fold its constant expressions} unless the
+     * configuration says otherwise.
+     *
+     * @param code the source code.
+     * @param configuration the configuration for the interpreter.
+     * @return the program.
+     * @throws de.haupz.basicode.parser.ParserException in case the program cannot be parsed.
+     */
+    static ProgramNode parse(CharSequence code, Configuration configuration) {
+        return parse(code, configuration, null);
+    }
+
+    /**
+     * Parse a BASICODE program, or retrieve it from a cache, and {@linkplain ProgramNode#foldConstants() fold its
+     * constant expressions} unless the configuration says otherwise.
+     *
+     * @param code the source code.
+     * @param configuration the configuration for the interpreter.
+     * @param cache the cache of parsed programs, or {@code null} to always parse the program.
+     * @return the program.
+     * @throws de.haupz.basicode.parser.ParserException in case the program cannot be parsed.
+     */
+    static ProgramNode parse(CharSequence code, Configuration configuration, ProgramCache cache) {
+        ProgramNode prog = cache != null ? cache.parse(code) : new Parser(code).program();
+        if (!configuration.nofold()) {
+            prog.foldConstants();
+        }
+        return prog;
+    }
+
+    /**
+     * Create an interpreter state for a headless run.
+     *
+     * @param prog the program to run.
+     * @param configuration the configuration for the interpreter.
+     * @param in the program's input.
+     * @param out the program's output.
+     * @param printer the program's printer output, or {@code null} to write printer output to the
+     *                {@linkplain de.haupz.basicode.subroutines.Subroutines#PRINTER_FILE printer file}.
+     * @param debug the stream breakpoints and watchpoints print their information to.
+     * @return the interpreter state.
+     */
+    static InterpreterState createState(ProgramNode prog, Configuration configuration, BufferedReader in,
+                                        PrintStream out, PrintStream printer, PrintStream debug) {
+        InterpreterState state = new InterpreterState(prog, null, new BufferedReaderInput(in),
+                new HeadlessOutput(out), printingBreakpointHandler(debug), configuration);
+        state.setPrinter(printer);
+        return state;
+    }
+
+    /**
+     * Run a program, {@linkplain ProgramCompiler compiled} if the configuration says so. If the program cannot be
+     * compiled, it is interpreted instead.
+     *
+     * @param prog the program to run.
+     * @param state the interpreter state to run the program in.
+     */
+    static void execute(ProgramNode prog, InterpreterState state) {
+        CompiledProgram compiled = null;
+        if (state.getConfiguration().compile()) {
+            try {
+                compiled = ProgramCompiler.compile(prog);
+            } catch (IllegalStateException ise) {
+                System.err.println("cannot compile program, interpreting it instead: " + ise.getMessage());
+            }
+        }
+        if (compiled != null) {
+            compiled.run(state);
+        } else {
+            prog.run(state);
+        }
+    }
+
+}
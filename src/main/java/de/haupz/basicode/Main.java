@@ -3,7 +3,9 @@ package de.haupz.basicode;
 import de.haupz.basicode.ast.ProgramNode;
 import de.haupz.basicode.interpreter.Configuration;
 import de.haupz.basicode.interpreter.InterpreterState;
-import de.haupz.basicode.parser.Parser;
+import de.haupz.basicode.io.ConsoleConfiguration;
+import de.haupz.basicode.parser.ProgramCache;
+import de.haupz.basicode.parser.SourceLoader;
 import de.haupz.basicode.ui.BasicFrame;
 import de.haupz.basicode.ui.BasicContainer;
 import de.haupz.basicode.ui.DialogueBreakpointHandler;
@@ -11,14 +13,16 @@ import de.haupz.basicode.ui.ErrorDialog;
 
 import javax.swing.*;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.StringReader;
+import java.io.InputStreamReader;
 import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * The main entry point for running BASICODE programs. This class, when run, accepts a collection of
@@ -42,6 +46,42 @@ public class Main {
      */
     static boolean playIntro = false;
 
+    /**
+     * Whether to run the program {@linkplain HeadlessRunner without a GUI}.
+     */
+    static boolean headless = false;
+
+    /**
+     * Whether to run all programs in a directory {@linkplain BatchRunner as a batch}.
+     */
+    static boolean batch = false;
+
+    /**
+     * The maximum time, in seconds, a program may run in a batch run.
+     */
+    static int batchTimeout = 10;
+
+    /**
+     * The number of programs to run concurrently in a batch run.
+     */
+    static int batchThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The cache of parsed programs, or {@code null} if programs are always parsed.
+     */
+    static ProgramCache programCache = null;
+
+    /**
+     * The startup instrumentation. It is created when the {@code Main} class is initialised, i.e., right before
+     * {@link #main(String[])} is entered.
+     */
+    static final StartupReport STARTUP = new StartupReport();
+
+    /**
+     * Whether to print the {@linkplain StartupReport startup report} before the first statement is run.
+     */
+    static boolean reportStartup = false;
+
     /**
      * A record type to serve as a tuple for processed command line arguments.
      *
@@ -64,10 +104,30 @@ public class Main {
         boolean enforceBoundaries = false;
         boolean showMapKeys = false;
         int slowness = 0;
+        boolean compile = false;
+        boolean nofold = false;
+        int frameRate = Configuration.DEFAULT_FRAME_RATE;
         String filename = "";
         for (String arg : args) {
             if (arg.matches("^-slo+w$")) {
                 slowness = arg.length() - 4; // subtract -, s, l, w; keep the o's
+                continue;
+            }
+            if (arg.matches("^-fps=[0-9]+$")) {
+                frameRate = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+                continue;
+            }
+            if (arg.matches("^-timeout=[0-9]+$")) {
+                batchTimeout = Integer.parseInt(arg.substring(arg.indexOf('=') + 1));
+                continue;
+            }
+            if (arg.matches("^-threads=[0-9]+$")) {
+                batchThreads = Math.max(1, Integer.parseInt(arg.substring(arg.indexOf('=') + 1)));
+                continue;
+            }
+            if (arg.startsWith("-cache=")) {
+                programCache = new ProgramCache(Paths.get(arg.substring(arg.indexOf('=') + 1)));
+                continue;
             }
             switch (arg) {
                 case "-nowait" -> nowait = true;
@@ -76,11 +136,19 @@ public class Main {
                 case "-enforceBoundaries" -> enforceBoundaries = true;
                 case "-showMapKeys" -> showMapKeys = true;
                 case "-intro" -> playIntro = true;
+                case "-compile" -> compile = true;
+                case "-nofold" -> nofold = true;
+                case "-immediate" -> frameRate = 0;
+                case "-headless" -> headless = true;
+                case "-batch" -> batch = true;
+                case "-cache" -> programCache = new ProgramCache(ProgramCache.defaultDirectory());
+                case "-startup" -> reportStartup = true;
                 default -> filename = arg;
             }
         }
         return new FilenameAndConfig(filename,
-                new Configuration(nowait, nosound, hold, enforceBoundaries, showMapKeys, slowness));
+                new Configuration(nowait, nosound, hold, enforceBoundaries, showMapKeys, slowness, compile, nofold,
+                        frameRate));
     }
 
     /**
@@ -104,34 +172,35 @@ public class Main {
      * @return the contents of the file.
      * @throws IOException in case anything goes wrong with opening and reading the file.
      */
-    private static String getSource(String filename) throws IOException {
-        Path path = Paths.get(filename);
-        List<String> sourceLines = Files.readAllLines(path);
-        String source = sourceLines.stream().collect(Collectors.joining("\n"));
-        return source;
+    private static CharSequence getSource(String filename) throws IOException {
+        return SourceLoader.load(Paths.get(filename));
     }
 
     /**
      * Run a BASICODE program.
      *
-     * @param code the source code to run, as a string.
+     * @param code the source code to run.
      * @param configuration the configuration for the interpreter.
      * @throws Exception in case anything goes wrong.
      */
-    public static void run(String code, Configuration configuration) {
+    public static void run(CharSequence code, Configuration configuration) {
         try {
+            CompletableFuture<ProgramNode> parsing =
+                    CompletableFuture.supplyAsync(() -> HeadlessRunner.parse(code, configuration, programCache));
             bc = new BasicContainer(configuration);
             SwingUtilities.invokeAndWait(() -> {
                 bf = new BasicFrame(bc);
                 bf.setVisible(true);
             });
-            final Parser parser = new Parser(new StringReader(code));
-            ProgramNode prog = parser.program();
+            STARTUP.mark("window shown");
+            ProgramNode prog = awaitProgram(parsing);
+            STARTUP.mark("program parsed");
             InterpreterState state =
                     new InterpreterState(prog, bf, bc, bc, new DialogueBreakpointHandler(), configuration);
             bc.registerStopKeyHandler(state::terminate);
-            prog.run(state);
-            state.closeFiles();
+            startupComplete();
+            HeadlessRunner.execute(prog, state);
+            state.releaseResources();
             bc.shutdown();
             bf.dispose();
         } catch (Exception e) {
@@ -141,18 +210,133 @@ public class Main {
         }
     }
 
+    /**
+     * Wait for a program that is being parsed in the background.
+     *
+     * @param parsing the parsing in progress.
+     * @return the program.
+     * @throws RuntimeException the exception thrown during parsing, if any.
+     */
+    private static ProgramNode awaitProgram(CompletableFuture<ProgramNode> parsing) {
+        try {
+            return parsing.join();
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw ce;
+        }
+    }
+
+    /**
+     * Initialise subsystems that are expensive to set up, in a background thread, so that this does not happen when
+     * the program first needs them. Failures are ignored here; they will surface when the subsystem is used.
+     *
+     * @param font whether to load the font as well, which is only needed in the GUI.
+     */
+    private static void preload(boolean font) {
+        Thread.ofPlatform().daemon().name("preload").start(() -> {
+            try {
+                ConsoleConfiguration.preload(font);
+            } catch (Throwable t) {
+                // reported when used
+            }
+        });
+    }
+
+    /**
+     * Mark the end of startup, and print the {@linkplain StartupReport startup report} if requested. Only the first
+     * program run is reported.
+     */
+    private static void startupComplete() {
+        if (reportStartup) {
+            STARTUP.mark("first statement");
+            System.err.print(STARTUP.format());
+            reportStartup = false;
+        }
+    }
+
     /**
      * Play the intro. This is the file {@code intro.bas} stored in the builtin resources.
      */
     private static void playIntro() throws Exception {
         String source = new String(Main.class.getResourceAsStream("/intro.bas").readAllBytes());
-        Configuration introConfig = new Configuration(true, true, false, true, false, 0);
+        Configuration introConfig = new Configuration(true, true, false, true, false, 0, false, false,
+                Configuration.DEFAULT_FRAME_RATE);
         run(source, introConfig);
     }
 
+    /**
+     * Run a BASICODE program {@linkplain HeadlessRunner headless}, reading from standard input and writing to standard
+     * output. If anything goes wrong, the error is reported on standard error, and the JVM exits with status 1.
+     *
+     * @param filename the BASIC source file to run.
+     * @param configuration the configuration for the interpreter.
+     */
+    private static void runHeadless(String filename, Configuration configuration) {
+        try {
+            CharSequence source = getSource(filename);
+            STARTUP.mark("source loaded");
+            ProgramNode prog = HeadlessRunner.parse(source, configuration, programCache);
+            STARTUP.mark("program parsed");
+            InterpreterState state = HeadlessRunner.createState(prog, configuration,
+                    new BufferedReader(new InputStreamReader(System.in)), System.out, null, System.err);
+            startupComplete();
+            try {
+                HeadlessRunner.execute(prog, state);
+            } finally {
+                state.releaseResources();
+                System.out.flush();
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Run all BASICODE programs in a directory {@linkplain BatchRunner as a batch}, and print a summary report to
+     * standard output. The JVM exits with status 1 if any program failed or timed out.
+     *
+     * @param directory the directory containing the BASIC source files.
+     * @param configuration the configuration for the interpreters.
+     */
+    private static void runBatch(String directory, Configuration configuration) throws IOException {
+        BatchRunner runner = new BatchRunner(configuration, Duration.ofSeconds(batchTimeout), batchThreads);
+        List<BatchRunner.Result> results = runner.runDirectory(Paths.get(directory));
+        System.out.print(BatchRunner.summary(results));
+        if (results.stream().anyMatch(r -> r.status() != BatchRunner.Status.OK)) {
+            System.exit(1);
+        }
+    }
+
     public static void main(String[] args) throws Exception {
         FilenameAndConfig fnc = parseArguments(args);
         String filename = fnc.filename;
+        if (batch || headless) {
+            // This must happen before any AWT class is initialised, including by the preload thread, as AWT determines
+            // whether it's headless only once.
+            System.setProperty("java.awt.headless", "true");
+        }
+        if (!batch) {
+            preload(!headless);
+        }
+        if (batch) {
+            if (!Files.isDirectory(Paths.get(filename))) {
+                System.err.println("not a directory: " + filename);
+                System.exit(1);
+            }
+            runBatch(filename, fnc.config);
+            return;
+        }
+        if (headless) {
+            if (filename.isEmpty()) {
+                System.err.println("no BASIC source file given");
+                System.exit(1);
+            }
+            runHeadless(filename, fnc.config);
+            return;
+        }
         if (filename.isEmpty()) {
             filename = chooseFile(System.getProperty("user.dir"));
         } else if (Files.isDirectory(Paths.get(filename))) {
@@ -162,7 +346,8 @@ public class Main {
             if (playIntro) {
                 playIntro();
             }
-            String source = getSource(filename);
+            CharSequence source = getSource(filename);
+            STARTUP.mark("source loaded");
             run(source, fnc.config);
         }
     }
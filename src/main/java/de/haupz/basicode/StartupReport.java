@@ -0,0 +1,78 @@
+package de.haupz.basicode;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Instrumentation for the startup of the interpreter. The phases of startup, e.g., loading and parsing the source
+ * code, are {@linkplain #mark(String) marked} as they are completed, and a report listing the time at which each phase
+ * was completed can be printed before the first statement of the BASIC program is run.</p>
+ *
+ * <p>Times are given relative to the start of the JVM, so that the time the JVM itself takes to start is included in
+ * the report.</p>
+ */
+final class StartupReport {
+
+    /**
+     * A completed phase of startup.
+     *
+     * @param name the name of the phase.
+     * @param nanos the time at which the phase was completed, in nanoseconds, relative to the creation of the report.
+     */
+    record Phase(String name, long nanos) {}
+
+    /**
+     * The time the report was created, as given by {@link System#nanoTime()}.
+     */
+    private final long origin = System.nanoTime();
+
+    /**
+     * The time the report was created, as a wall-clock time.
+     */
+    private final Instant originInstant = Instant.now();
+
+    /**
+     * The phases completed so far.
+     */
+    private final List<Phase> phases = new ArrayList<>();
+
+    /**
+     * Mark a phase of startup as completed.
+     *
+     * @param name the name of the phase.
+     */
+    synchronized void mark(String name) {
+        phases.add(new Phase(name, System.nanoTime() - origin));
+    }
+
+    /**
+     * @return the phases completed so far.
+     */
+    synchronized List<Phase> getPhases() {
+        return List.copyOf(phases);
+    }
+
+    /**
+     * @return the time between the start of the JVM and the creation of this report, in milliseconds. The management
+     * classes needed to find out are only loaded here, so that they do not add to the startup time being measured.
+     */
+    private long jvmStartMillis() {
+        return originInstant.toEpochMilli() - ManagementFactory.getRuntimeMXBean().getStartTime();
+    }
+
+    /**
+     * @return a report listing the time at which each phase was completed, one phase per line.
+     */
+    String format() {
+        StringBuilder sb = new StringBuilder("startup times:\n");
+        long offset = jvmStartMillis();
+        sb.append(String.format("%6d ms  main started\n", offset));
+        for (Phase phase : getPhases()) {
+            sb.append(String.format("%6d ms  %s\n", offset + phase.nanos() / 1_000_000, phase.name()));
+        }
+        return sb.toString();
+    }
+
+}
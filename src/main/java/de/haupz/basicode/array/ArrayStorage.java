@@ -0,0 +1,53 @@
+package de.haupz.basicode.array;
+
+/**
+ * The element storage of a {@link BasicArray}. There are specialised implementations for numbers
+ * ({@link DoubleArrayStorage}) and strings ({@link StringArrayStorage}), so that number arrays can be accessed without
+ * boxing, and use only as much memory as a {@code double[]}.
+ */
+abstract class ArrayStorage {
+
+    /**
+     * Create a storage for a given type, filled with default values (0 for numbers, or empty strings).
+     *
+     * @param type the type of data to store.
+     * @param size the number of elements to store.
+     * @return the storage.
+     */
+    static ArrayStorage of(ArrayType type, int size) {
+        return switch (type) {
+            case NUMBER -> new DoubleArrayStorage(size);
+            case STRING -> new StringArrayStorage(size);
+        };
+    }
+
+    /**
+     * @param i an index.
+     * @return the element at that index; a {@link Double} for number arrays, or a {@link CharSequence} for string arrays.
+     */
+    abstract Object get(int i);
+
+    /**
+     * @param i an index.
+     * @param v the value to store at that index.
+     */
+    abstract void set(int i, Object v);
+
+    /**
+     * @param i an index.
+     * @return the number at that index. This will throw an exception for string arrays.
+     */
+    abstract double getDouble(int i);
+
+    /**
+     * @param i an index.
+     * @param v the number to store at that index. This will throw an exception for string arrays.
+     */
+    abstract void setDouble(int i, double v);
+
+    /**
+     * @return all elements, as an array of objects.
+     */
+    abstract Object[] toObjectArray();
+
+}
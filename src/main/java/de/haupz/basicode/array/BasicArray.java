@@ -1,7 +1,5 @@
 package de.haupz.basicode.array;
 
-import java.util.Arrays;
-
 /**
  * The {@code BasicArray} class provides common abstractions for BASIC arrays. These can have one or two dimensions, and
  * are represented by the respective subclass, {@link BasicArray1D}, and {@link BasicArray2D}.
@@ -14,9 +12,9 @@ public abstract class BasicArray {
     private final ArrayType type;
 
     /**
-     * The actual data storage.
+     * The actual data storage, specialised for the type of data.
      */
-    protected final Object[] data;
+    final ArrayStorage data;
 
     /**
      * Create a BASIC array and fill it with default values (0 for numbers, or empty strings).
@@ -26,11 +24,7 @@ public abstract class BasicArray {
      */
     protected BasicArray(ArrayType type, int storageSize) {
         this.type = type;
-        data = new Object[storageSize];
-        switch (type) {
-            case NUMBER -> Arrays.fill(data, Double.valueOf(0.0));
-            case STRING -> Arrays.fill(data, "");
-        }
+        data = ArrayStorage.of(type, storageSize);
     }
 
     /**
@@ -84,10 +78,29 @@ public abstract class BasicArray {
     public abstract void setAt(int a, int b, Object v);
 
     /**
-     * @return the raw data storage of this array.
+     * Retrieve a number from this array without boxing it. This will throw an exception if called on string arrays.
+     *
+     * @param a the index into the first dimension of this array.
+     * @param b the index into the second dimension of this array. This will be ignored by one-dimensional arrays.
+     * @return the number at the specified position.
+     */
+    public abstract double atDouble(int a, int b);
+
+    /**
+     * Store a number in this array without boxing it. This will throw an exception if called on string arrays.
+     *
+     * @param a the index into the first dimension of this array.
+     * @param b the index into the second dimension of this array. This will be ignored by one-dimensional arrays.
+     * @param v the number to store.
+     */
+    public abstract void setAtDouble(int a, int b, double v);
+
+    /**
+     * @return the data of this array. For string arrays, this is the data storage itself; for number arrays, it is a
+     * boxed copy.
      */
     public Object[] getRawData() {
-        return data;
+        return data.toObjectArray();
     }
 
 }
@@ -57,7 +57,7 @@ public class BasicArray1D extends BasicArray {
     public Object at(int a, int b) {
         // ignore b
         checkBoundary(a);
-        return data[a];
+        return data.get(a);
     }
 
     /**
@@ -71,7 +71,35 @@ public class BasicArray1D extends BasicArray {
     public void setAt(int a, int b, Object v) {
         // ignore b
         checkBoundary(a);
-        data[a] = v;
+        data.set(a, v);
+    }
+
+    /**
+     * Retrieve a number from this array without boxing it.
+     *
+     * @param a the index of the element to retrieve.
+     * @param b this will be ignored.
+     * @return the number at the position indicated by {@code a} in this array.
+     */
+    @Override
+    public double atDouble(int a, int b) {
+        // ignore b
+        checkBoundary(a);
+        return data.getDouble(a);
+    }
+
+    /**
+     * Store a number in this array without boxing it.
+     *
+     * @param a the index at which to store the number.
+     * @param b this will be ignored.
+     * @param v the number to store.
+     */
+    @Override
+    public void setAtDouble(int a, int b, double v) {
+        // ignore b
+        checkBoundary(a);
+        data.setDouble(a, v);
     }
 
     /**
@@ -91,7 +119,7 @@ public class BasicArray1D extends BasicArray {
         StringBuilder sb = new StringBuilder();
         sb.append('(').append(dim).append(')');
         for (int i = 0; i < dim; i++) {
-            sb.append("\n (").append(i).append(") ").append(data[i]);
+            sb.append("\n (").append(i).append(") ").append(data.get(i));
         }
         return sb.toString();
     }
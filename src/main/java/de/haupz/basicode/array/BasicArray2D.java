@@ -66,7 +66,7 @@ public class BasicArray2D extends BasicArray {
     @Override
     public Object at(int a, int b) {
         checkBoundaries(a, b);
-        return data[a * dim2 + b];
+        return data.get(a * dim2 + b);
     }
 
     /**
@@ -79,7 +79,33 @@ public class BasicArray2D extends BasicArray {
     @Override
     public void setAt(int a, int b, Object v) {
         checkBoundaries(a, b);
-        data[a * dim2 + b] = v;
+        data.set(a * dim2 + b, v);
+    }
+
+    /**
+     * Retrieve a number from this array without boxing it.
+     *
+     * @param a the index into the first dimension of this array.
+     * @param b the index into the second dimension of this array.
+     * @return the number at the position indicated by {@code a} and {@code b} in this array.
+     */
+    @Override
+    public double atDouble(int a, int b) {
+        checkBoundaries(a, b);
+        return data.getDouble(a * dim2 + b);
+    }
+
+    /**
+     * Store a number in this array without boxing it.
+     *
+     * @param a the index into the first dimension of this array.
+     * @param b the index into the second dimension of this array.
+     * @param v the number to store.
+     */
+    @Override
+    public void setAtDouble(int a, int b, double v) {
+        checkBoundaries(a, b);
+        data.setDouble(a * dim2 + b, v);
     }
 
     /**
@@ -102,7 +128,7 @@ public class BasicArray2D extends BasicArray {
         sb.append('(').append(dim1).append(',').append(dim2).append(')');
         for (int d1 = 0; d1 < dim1; d1++) {
             for (int d2 = 0; d2 < dim2; d2++) {
-                sb.append("\n (").append(d1).append(',').append(d2).append(") ").append(data[d1 * dim2 + d2]);
+                sb.append("\n (").append(d1).append(',').append(d2).append(") ").append(data.get(d1 * dim2 + d2));
             }
         }
         return sb.toString();
@@ -0,0 +1,46 @@
+package de.haupz.basicode.array;
+
+/**
+ * Element storage for number arrays, backed by a {@code double[]}.
+ */
+final class DoubleArrayStorage extends ArrayStorage {
+
+    private final double[] values;
+
+    DoubleArrayStorage(int size) {
+        values = new double[size];
+    }
+
+    @Override
+    Object get(int i) {
+        return values[i];
+    }
+
+    @Override
+    void set(int i, Object v) {
+        values[i] = ((Number) v).doubleValue();
+    }
+
+    @Override
+    double getDouble(int i) {
+        return values[i];
+    }
+
+    @Override
+    void setDouble(int i, double v) {
+        values[i] = v;
+    }
+
+    /**
+     * @return a boxed copy of the numbers.
+     */
+    @Override
+    Object[] toObjectArray() {
+        Object[] objects = new Object[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            objects[i] = values[i];
+        }
+        return objects;
+    }
+
+}
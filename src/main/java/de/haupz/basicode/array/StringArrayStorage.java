@@ -0,0 +1,46 @@
+package de.haupz.basicode.array;
+
+import java.util.Arrays;
+
+/**
+ * Element storage for string arrays, backed by a {@code CharSequence[]}, so that
+ * {@linkplain de.haupz.basicode.string.BasicString concatenation results} can be stored without flattening them.
+ */
+final class StringArrayStorage extends ArrayStorage {
+
+    private final CharSequence[] values;
+
+    StringArrayStorage(int size) {
+        values = new CharSequence[size];
+        Arrays.fill(values, "");
+    }
+
+    @Override
+    Object get(int i) {
+        return values[i];
+    }
+
+    @Override
+    void set(int i, Object v) {
+        values[i] = (CharSequence) v;
+    }
+
+    @Override
+    double getDouble(int i) {
+        throw new IllegalStateException("string array accessed as number array");
+    }
+
+    @Override
+    void setDouble(int i, double v) {
+        throw new IllegalStateException("string array accessed as number array");
+    }
+
+    /**
+     * @return the backing array itself.
+     */
+    @Override
+    Object[] toObjectArray() {
+        return values;
+    }
+
+}
@@ -1,22 +1,17 @@
 package de.haupz.basicode.ast;
 
-import java.util.Optional;
-
 /**
  * {@code ABS}.
  */
-public class AbsNode extends WrappingExpressionNode {
+public class AbsNode extends NumericWrappingNode {
 
     public AbsNode(ExpressionNode expression) {
         super(expression);
     }
 
     @Override
-    Optional<Object> evalWithTypes(Object value) {
-        if (value instanceof Double d) {
-            return Optional.of(Math.abs(d));
-        }
-        return Optional.empty();
+    public double evalWithDouble(double value) {
+        return Math.abs(value);
     }
 
 }
@@ -1,5 +1,7 @@
 package de.haupz.basicode.ast;
 
+import de.haupz.basicode.string.BasicString;
+
 import java.util.Optional;
 
 /**
@@ -14,12 +16,26 @@ public class AddNode extends TypeAdjustingNode {
     @Override
     Optional<Object> evalWithTypes(Object value1, Object value2) {
         if (value1 instanceof Double d && value2 instanceof Double e) {
-            return Optional.of(d + e);
+            return Optional.of(evalWithDoubles(d, e));
         }
-        if (value1 instanceof String s && value2 instanceof String t) {
-            return Optional.of(s + t);
+        if (value1 instanceof CharSequence s && value2 instanceof CharSequence t) {
+            return Optional.of(BasicString.concat(s, t));
         }
         return Optional.empty();
     }
 
+    /**
+     * @return {@code true} only if both arguments are statically known to be numeric; otherwise, this may be a string
+     * concatenation.
+     */
+    @Override
+    public boolean isNumeric() {
+        return hasNumericArguments();
+    }
+
+    @Override
+    public double evalWithDoubles(double value1, double value2) {
+        return value1 + value2;
+    }
+
 }
@@ -14,9 +14,14 @@ public class AndNode extends TypeAdjustingNode {
     @Override
     Optional<Object> evalWithTypes(Object value1, Object value2) {
         if (value1 instanceof Double d && value2 instanceof Double e) {
-            return Optional.of(Double.valueOf(d.intValue() & e.intValue()));
+            return Optional.of(evalWithDoubles(d, e));
         }
         return Optional.empty();
     }
 
+    @Override
+    public double evalWithDoubles(double value1, double value2) {
+        return (int) value1 & (int) value2;
+    }
+
 }
@@ -13,10 +13,15 @@ public class AscNode extends WrappingExpressionNode {
 
     @Override
     Optional<Object> evalWithTypes(Object value) {
-        if (value instanceof String s) {
-            return Optional.of(Double.valueOf(s.length() == 0 ? -1 : s.charAt(0)));
+        if (value instanceof CharSequence s) {
+            return Optional.of(Double.valueOf(s.isEmpty() ? -1 : s.charAt(0)));
         }
         return Optional.empty();
     }
 
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
 }
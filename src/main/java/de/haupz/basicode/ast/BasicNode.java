@@ -1,6 +1,9 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
+
+import java.util.Map;
 
 /**
  * <p>The root class of all AST nodes used by the BASICODE interpreter.</p>
@@ -26,4 +29,37 @@ public abstract class BasicNode {
      */
     public abstract Object eval(InterpreterState state);
 
+    /**
+     * Assign slots to all variables referenced by this node and its children. Nodes that access variables override
+     * this to memorise their slot; nodes with children override it to pass the call on. This default implementation
+     * does nothing.
+     *
+     * @param slots the program's variable slot table.
+     */
+    public void resolveVariables(VariableSlots slots) {
+        // nothing to resolve
+    }
+
+    /**
+     * Resolve the target line numbers of all jumps in this node and its children to indices into the
+     * {@linkplain de.haupz.basicode.interpreter.StatementIterator flattened statement list}. Jump statements override
+     * this to memorise the index; nodes containing statements override it to pass the call on. This default
+     * implementation does nothing.
+     *
+     * @param lineStarts a map from line numbers to the indices of the lines' first statements.
+     * @throws IllegalStateException if a jump target line does not exist.
+     */
+    public void resolveJumpTargets(Map<Integer, Integer> lineStarts) {
+        // nothing to resolve
+    }
+
+    /**
+     * Replace the constant subexpressions of this node's children by literals. Nodes with expression children override
+     * this to {@linkplain ExpressionNode#fold(ExpressionNode) fold} them; nodes containing statements override it to
+     * pass the call on. This default implementation does nothing.
+     */
+    public void foldConstants() {
+        // nothing to fold
+    }
+
 }
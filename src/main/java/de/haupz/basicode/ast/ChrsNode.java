@@ -1,5 +1,7 @@
 package de.haupz.basicode.ast;
 
+import de.haupz.basicode.string.BasicString;
+
 import java.util.Optional;
 
 /**
@@ -23,7 +25,7 @@ public class ChrsNode extends WrappingExpressionNode {
         if (c < 0 || c > 127) {
             throw new IllegalStateException("out of range: " + (int) c);
         }
-        return new String(new char[] {c});
+        return BasicString.valueOf(c);
     }
 
 }
@@ -2,6 +2,7 @@ package de.haupz.basicode.ast;
 
 import de.haupz.basicode.fn.Function;
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 /**
  * {@code DEF FN}. A node that defines a {@link Function} when executed.
@@ -21,7 +22,17 @@ public class DefFnNode extends StatementNode {
     /**
      * The expression constituting the function's body.
      */
-    private final ExpressionNode expression;
+    private ExpressionNode expression;
+
+    /**
+     * The function's slot, or -1 if this node has not been resolved.
+     */
+    private int slot = -1;
+
+    /**
+     * The slot of the function's argument, or -1 if this node has not been resolved.
+     */
+    private int argSlot = -1;
 
     public DefFnNode(int startPosition, String id, String arg, ExpressionNode expression) {
         super(startPosition);
@@ -44,8 +55,20 @@ public class DefFnNode extends StatementNode {
 
     @Override
     public void run(InterpreterState state) {
-        Function fn = new Function(arg, expression);
-        state.setVar(id, fn);
+        Function fn = new Function(argSlot >= 0 ? argSlot : state.resolveVar(arg), expression);
+        state.setVar(slot >= 0 ? slot : state.resolveVar(id), fn);
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        slot = slots.slotFor(id);
+        argSlot = slots.slotFor(arg);
+        expression.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        expression = ExpressionNode.fold(expression);
     }
 
 }
@@ -1,8 +1,10 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * A node class to represent {@code ON ... GOTO} and {@code ON ... GOSUB} statements. It provides a shared method to
@@ -14,7 +16,7 @@ public abstract class DependentJumpNode extends StatementNode {
     /**
      * The expression based on which value a jump is to be executed.
      */
-    private final ExpressionNode expression;
+    private ExpressionNode expression;
 
     /**
      * The list of target source code lines.
@@ -73,4 +75,25 @@ public abstract class DependentJumpNode extends StatementNode {
         jumps.get(targetIndex).run(state);
     }
 
+    @Override
+    public int execute(InterpreterState state, int index) {
+        int targetIndex = computeTarget(state);
+        return jumps.get(targetIndex).execute(state, index);
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        expression.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        expression = ExpressionNode.fold(expression);
+    }
+
+    @Override
+    public void resolveJumpTargets(Map<Integer, Integer> lineStarts) {
+        jumps.forEach(j -> j.resolveJumpTargets(lineStarts));
+    }
+
 }
@@ -2,6 +2,7 @@ package de.haupz.basicode.ast;
 
 import de.haupz.basicode.array.BasicArray;
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 /**
  * Reading from an array.
@@ -16,13 +17,13 @@ public class DimAccessNode extends ExpressionNode {
     /**
      * The first dimension of the array access.
      */
-    private final ExpressionNode dim1;
+    private ExpressionNode dim1;
 
     /**
      * The second dimension of the array access. This can be {@code null}, in which case the access is to a
      * one-dimensional array.
      */
-    private final ExpressionNode dim2;
+    private ExpressionNode dim2;
 
     public DimAccessNode(String id, ExpressionNode dim1, ExpressionNode dim2) {
         this.getArray = new VarNode(id, true);
@@ -30,37 +31,112 @@ public class DimAccessNode extends ExpressionNode {
         this.dim2 = dim2;
     }
 
+    public String getId() {
+        return getArray.getId();
+    }
+
+    public ExpressionNode getDim1() {
+        return dim1;
+    }
+
+    public ExpressionNode getDim2() {
+        return dim2;
+    }
+
     @Override
     public Object eval(InterpreterState state) {
         BasicArray array = (BasicArray) getArray.eval(state);
-        Object dim1value = dim1.eval(state);
-        if (dim1value instanceof Number dim1num) {
-            int dim1int = dim1num.intValue();
-            if (dim1int < 0) {
-                throw new IllegalStateException("negative first dimension: " + dim1int);
-            }
-            if (dim2 == null) {
-                if (array.is2D()) {
-                    throw new IllegalStateException("1D access to 2D array");
-                }
-                return array.at(dim1int, -1); // 1D array will ignore second dimension
+        int dim1int = dimension(dim1, "first", state);
+        if (dim2 == null) {
+            checkAccess(array, -1);
+            return array.at(dim1int, -1); // 1D array will ignore second dimension
+        }
+        int dim2int = dimension(dim2, "second", state);
+        checkAccess(array, dim2int);
+        return array.at(dim1int, dim2int);
+    }
+
+    /**
+     * Read from a number array without boxing the element.
+     *
+     * @param state the interpreter state.
+     * @return the array element.
+     */
+    @Override
+    public double evalDouble(InterpreterState state) {
+        BasicArray array = (BasicArray) getArray.eval(state);
+        int dim1int = dimension(dim1, "first", state);
+        if (dim2 == null) {
+            checkAccess(array, -1);
+            return array.atDouble(dim1int, -1); // 1D array will ignore second dimension
+        }
+        int dim2int = dimension(dim2, "second", state);
+        checkAccess(array, dim2int);
+        return array.atDouble(dim1int, dim2int);
+    }
+
+    /**
+     * Evaluate an array index expression.
+     *
+     * @param dim the index expression.
+     * @param which the dimension's position ({@code "first"} or {@code "second"}), for error messages.
+     * @param state the interpreter state.
+     * @return the index.
+     */
+    static int dimension(ExpressionNode dim, String which, InterpreterState state) {
+        int index;
+        if (dim.isNumeric()) {
+            index = (int) dim.evalDouble(state);
+        } else {
+            Object value = dim.eval(state);
+            if (value instanceof Number num) {
+                index = num.intValue();
             } else {
-                Object dim2value = dim2.eval(state);
-                if (dim2value instanceof Number dim2num) {
-                    int dim2int = dim2num.intValue();
-                    if (dim2int < 0) {
-                        throw new IllegalStateException("negative second dimension: " + dim2int);
-                    }
-                    if (array.is1D()) {
-                        throw new IllegalStateException("2D access to 1D array");
-                    }
-                    return array.at(dim1int, dim2int);
-                } else {
-                    throw new IllegalStateException("second dimension must be a number: " + dim2value);
-                }
+                throw new IllegalStateException(which + " dimension must be a number: " + value);
             }
-        } else {
-            throw new IllegalStateException("first dimension must be a number: " + dim1value);
+        }
+        if (index < 0) {
+            throw new IllegalStateException("negative " + which + " dimension: " + index);
+        }
+        return index;
+    }
+
+    /**
+     * Check that the number of indices matches the number of dimensions of an array.
+     *
+     * @param array the array.
+     * @param dim2int the second index, or -1 for a one-dimensional access.
+     */
+    static void checkAccess(BasicArray array, int dim2int) {
+        if (dim2int < 0 && array.is2D()) {
+            throw new IllegalStateException("1D access to 2D array");
+        }
+        if (dim2int >= 0 && array.is1D()) {
+            throw new IllegalStateException("2D access to 1D array");
+        }
+    }
+
+    /**
+     * @return {@code true} if the accessed array's name does not end in {@code $}.
+     */
+    @Override
+    public boolean isNumeric() {
+        return !getArray.getId().endsWith("$");
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        dim1.resolveVariables(slots);
+        if (dim2 != null) {
+            dim2.resolveVariables(slots);
+        }
+    }
+
+    @Override
+    public void foldConstants() {
+        dim1 = fold(dim1);
+        if (dim2 != null) {
+            dim2 = fold(dim2);
         }
     }
 
@@ -5,6 +5,7 @@ import de.haupz.basicode.array.BasicArray;
 import de.haupz.basicode.array.BasicArray1D;
 import de.haupz.basicode.array.BasicArray2D;
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 /**
  * A helper for {@code DIM}, representing a single array creation. When executed, this node will evaluate the one or two
@@ -21,13 +22,13 @@ public class DimCreateNode extends StatementNode {
     /**
      * An expression yielding the size of the array's first dimension.
      */
-    private final ExpressionNode dim1;
+    private ExpressionNode dim1;
 
     /**
      * An expression yielding the size of the array's second dimension. This can be {@code null}, in which case the node
      * will generate a one-dimensional array.
      */
-    private final ExpressionNode dim2;
+    private ExpressionNode dim2;
 
     public DimCreateNode(int startPosition, String id, ExpressionNode dim1, ExpressionNode dim2) {
         super(startPosition);
@@ -76,4 +77,20 @@ public class DimCreateNode extends StatementNode {
         }
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        dim1.resolveVariables(slots);
+        if (dim2 != null) {
+            dim2.resolveVariables(slots);
+        }
+    }
+
+    @Override
+    public void foldConstants() {
+        dim1 = ExpressionNode.fold(dim1);
+        if (dim2 != null) {
+            dim2 = ExpressionNode.fold(dim2);
+        }
+    }
+
 }
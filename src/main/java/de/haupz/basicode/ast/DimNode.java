@@ -1,6 +1,7 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 import java.util.List;
 
@@ -27,4 +28,14 @@ public class DimNode extends StatementNode {
         dims.forEach(d -> d.run(state));
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        dims.forEach(d -> d.resolveVariables(slots));
+    }
+
+    @Override
+    public void foldConstants() {
+        dims.forEach(DimCreateNode::foldConstants);
+    }
+
 }
@@ -14,12 +14,17 @@ public class DivideNode extends TypeAdjustingNode {
     @Override
     Optional<Object> evalWithTypes(Object value1, Object value2) {
         if (value1 instanceof Double d && value2 instanceof Double e) {
-            if (e == 0.0) {
-                throw new ArithmeticException();
-            }
-            return Optional.of(d / e);
+            return Optional.of(evalWithDoubles(d, e));
         }
         return Optional.empty();
     }
 
+    @Override
+    public double evalWithDoubles(double value1, double value2) {
+        if (value2 == 0.0) {
+            throw new ArithmeticException();
+        }
+        return value1 / value2;
+    }
+
 }
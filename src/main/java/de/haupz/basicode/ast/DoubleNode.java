@@ -9,13 +9,38 @@ public class DoubleNode extends ValueNode {
 
     private final double value;
 
+    /**
+     * The value, boxed once so that evaluation does not allocate.
+     */
+    private final Double boxedValue;
+
     public DoubleNode(double value) {
         this.value = value;
+        this.boxedValue = value;
+    }
+
+    public double getValue() {
+        return value;
     }
 
     @Override
     public Object eval(InterpreterState state) {
+        return boxedValue;
+    }
+
+    @Override
+    public double evalDouble(InterpreterState state) {
         return value;
     }
 
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
+
 }
@@ -1,5 +1,7 @@
 package de.haupz.basicode.ast;
 
+import de.haupz.basicode.string.BasicString;
+
 import java.util.Optional;
 
 /**
@@ -14,12 +16,18 @@ public class EqNode extends TypeAdjustingNode {
     @Override
     Optional<Object> evalWithTypes(Object value1, Object value2) {
         if (value1 instanceof Double d && value2 instanceof Double e) {
-            return Optional.of(d.equals(e) ? -1.0 : 0.0);
+            return Optional.of(evalWithDoubles(d, e));
         }
-        if (value1 instanceof String s && value2 instanceof String t) {
-            return Optional.of(s.equals(t) ? -1.0 : 0.0);
+        if (value1 instanceof CharSequence s && value2 instanceof CharSequence t) {
+            return Optional.of(BasicString.equal(s, t) ? -1.0 : 0.0);
         }
         return Optional.empty();
     }
 
+    @Override
+    public double evalWithDoubles(double value1, double value2) {
+        // This mirrors the semantics of Double.equals(), which the comparison of boxed values relies on.
+        return Double.compare(value1, value2) == 0 ? -1.0 : 0.0;
+    }
+
 }
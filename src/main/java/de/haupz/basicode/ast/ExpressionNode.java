@@ -14,4 +14,74 @@ public abstract class ExpressionNode extends BasicNode {
         throw new IllegalStateException(this.getClass().getName() + " is a ValueNode and should not be run");
     }
 
+    /**
+     * <p>Evaluate an expression that is expected to yield a number, and return its result as a primitive
+     * {@code double}.</p>
+     *
+     * <p>This default implementation {@linkplain #eval(InterpreterState) evaluates} the expression and unboxes the
+     * result. Nodes that are {@linkplain #isNumeric() statically known to be numeric} override it to compute their
+     * result without allocating.</p>
+     *
+     * @param state the interpreter state.
+     * @return the numerical value of the expression.
+     * @throws IllegalStateException if the expression does not yield a number.
+     */
+    public double evalDouble(InterpreterState state) {
+        Object value = eval(state);
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        throw new IllegalStateException(getClass().getSimpleName() + " expected to yield a number, but got " +
+                value.getClass().getName());
+    }
+
+    /**
+     * @return {@code true} if this expression is known, before running the program, to always yield a number. This
+     * is derived from literal types and the {@code $} suffix convention for string variables. The default is
+     * {@code false}.
+     */
+    public boolean isNumeric() {
+        return false;
+    }
+
+    /**
+     * @return {@code true} if this expression is known, before running the program, to always yield the same value
+     * without side effects. This is the case for literals, and for operations without side effects whose arguments are
+     * all constant. The default is {@code false}.
+     */
+    public boolean isConstant() {
+        return false;
+    }
+
+    /**
+     * <p>Fold an expression: {@linkplain BasicNode#foldConstants() fold its children}, and, if the expression is then
+     * {@linkplain #isConstant() constant}, evaluate it and return a literal representing its value.</p>
+     *
+     * <p>If the evaluation fails, e.g., because of a division by zero, the expression is returned unchanged, so that the
+     * error is raised at run-time, as without folding.</p>
+     *
+     * @param expression the expression to fold.
+     * @return the folded expression.
+     */
+    public static ExpressionNode fold(ExpressionNode expression) {
+        expression.foldConstants();
+        if (expression instanceof ValueNode || !expression.isConstant()) {
+            return expression;
+        }
+        Object value;
+        try {
+            // Constant expressions do not access the interpreter state.
+            value = expression.eval(null);
+        } catch (RuntimeException e) {
+            return expression;
+        }
+        if (value instanceof Double d) {
+            return new DoubleNode(d);
+        }
+        if (value instanceof CharSequence s) {
+            return new StringNode(s.toString());
+        }
+        return expression;
+    }
+
 }
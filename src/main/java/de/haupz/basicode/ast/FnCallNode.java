@@ -2,6 +2,7 @@ package de.haupz.basicode.ast;
 
 import de.haupz.basicode.fn.Function;
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 /**
  * A function call. This works for functions defined via {@code DEF FN} (see {@link DefFnNode}).
@@ -21,7 +22,7 @@ public class FnCallNode extends ExpressionNode {
     /**
      * An expression to yield the argument that's to be passed to the function.
      */
-    private final ExpressionNode argument;
+    private ExpressionNode argument;
 
     public FnCallNode(String id, ExpressionNode argument) {
         this.id = id.toUpperCase();
@@ -29,6 +30,14 @@ public class FnCallNode extends ExpressionNode {
         this.argument = argument;
     }
 
+    public String getId() {
+        return id;
+    }
+
+    public ExpressionNode getArgument() {
+        return argument;
+    }
+
     @Override
     public Object eval(InterpreterState state) {
         Object idv = getFn.eval(state);
@@ -39,4 +48,15 @@ public class FnCallNode extends ExpressionNode {
         throw new IllegalStateException(String.format("not a function: %s, but a %s", id, idv.getClass().getName()));
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        getFn.resolveVariables(slots);
+        argument.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        argument = fold(argument);
+    }
+
 }
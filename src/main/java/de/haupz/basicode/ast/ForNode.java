@@ -1,6 +1,7 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 /**
  * {@code FOR ... TO ... STEP}. This node implements BASICODE's {@code FOR} loop heads. It is constructed from four
@@ -20,17 +21,22 @@ public class ForNode extends StatementNode {
     /**
      * An expression used to initialise the loop iterator.
      */
-    private final ExpressionNode init;
+    private ExpressionNode init;
 
     /**
      * An expression to determine the end value of the loop iterator.
      */
-    private final ExpressionNode end;
+    private ExpressionNode end;
 
     /**
      * An expression to determine the loop iterator's step width.
      */
-    private final ExpressionNode step;
+    private ExpressionNode step;
+
+    /**
+     * The loop iterator variable's slot, or -1 if this node has not been resolved.
+     */
+    private int slot = -1;
 
     public ForNode(int startPosition, String id, ExpressionNode init, ExpressionNode end, ExpressionNode step) {
         super(startPosition);
@@ -58,18 +64,34 @@ public class ForNode extends StatementNode {
 
     @Override
     public void run(InterpreterState state) {
-        if (!state.isRunningLoop(id)) {
+        int s = slot >= 0 ? slot : state.resolveVar(id);
+        if (!state.isRunningLoop(s)) {
             if (id.endsWith("$")) {
                 throw new IllegalStateException("FOR loop cannot iterate over a string: " + id);
             }
             Number i = ensureNumber(init, state);
             Number e = ensureNumber(end, state);
-            Number s = ensureNumber(step, state);
-            state.setVar(id, i);
-            state.startLoop(id, e, s);
+            Number st = ensureNumber(step, state);
+            state.setVar(s, i);
+            state.startLoop(s, e.doubleValue(), st.doubleValue());
         }
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        slot = slots.slotFor(id);
+        init.resolveVariables(slots);
+        end.resolveVariables(slots);
+        step.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        init = ExpressionNode.fold(init);
+        end = ExpressionNode.fold(end);
+        step = ExpressionNode.fold(step);
+    }
+
     private Number ensureNumber(ExpressionNode expr, InterpreterState state) {
         Object value = expr.eval(state);
         if (value instanceof Number n) {
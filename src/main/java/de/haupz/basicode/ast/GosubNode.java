@@ -3,10 +3,13 @@ package de.haupz.basicode.ast;
 import de.haupz.basicode.interpreter.InterpreterState;
 import de.haupz.basicode.subroutines.Subroutines;
 
+import java.util.Map;
+
 /**
  * <p>{@code GOSUB}. The implementation pushes the {@linkplain InterpreterState#getStatementIndex() statement index} of
- * the return address and performs a {@linkplain InterpreterState#requestLineJump() jump} to the
- * {@linkplain InterpreterState#setLineJumpTarget(int)} target line.</p>
+ * the return address and performs a {@linkplain InterpreterState#requestJump(int) jump} to the first statement of the
+ * target line. As with {@link GotoNode}, the statement's index is {@linkplain #resolveJumpTargets(Map) resolved} once
+ * after parsing.</p>
  *
  * <p>In case the target line number is less than 1000, a call to a {@linkplain Subroutines subroutine} is executed
  * instead of the normal {@code GOSUB}.</p>
@@ -18,24 +21,57 @@ public class GosubNode extends StatementNode {
      */
     private int target;
 
+    /**
+     * The index of the target line's first statement, or -1 if it has not been resolved.
+     */
+    private int targetIndex = -1;
+
+    /**
+     * The subroutine, bound when the node is created, if the target line number is less than 1000; {@code null}
+     * otherwise, or if there is no subroutine at the target line number.
+     */
+    private final Subroutines.Routine routine;
+
     public GosubNode(int startPosition, int target) {
         super(startPosition);
         this.target = target;
+        routine = target < 1000 ? Subroutines.lookup(target) : null;
     }
 
     public int getTarget() {
         return target;
     }
 
+    public int getTargetIndex() {
+        return targetIndex;
+    }
+
     @Override
     public void run(InterpreterState state) {
         state.pushReturnIndex();
         if (target < 1000) {
-            Subroutines.runGosub(target, state);
+            Subroutines.runGosub(routine, target, state);
+        } else if (targetIndex >= 0) {
+            state.requestJump(targetIndex);
         } else {
             state.setLineJumpTarget(target);
             state.requestLineJump();
         }
     }
 
+    @Override
+    public int execute(InterpreterState state, int index) {
+        if (targetIndex >= 0) {
+            state.pushReturnIndex();
+            return targetIndex;
+        }
+        run(state);
+        return proceed(state);
+    }
+
+    @Override
+    public void resolveJumpTargets(Map<Integer, Integer> lineStarts) {
+        targetIndex = GotoNode.resolveTarget(target, lineStarts);
+    }
+
 }
@@ -3,9 +3,13 @@ package de.haupz.basicode.ast;
 import de.haupz.basicode.interpreter.InterpreterState;
 import de.haupz.basicode.subroutines.Subroutines;
 
+import java.util.Map;
+
 /**
- * <p>{@code GOTO}. The implementation performs a {@linkplain InterpreterState#requestLineJump() jump} to the
- * {@linkplain InterpreterState#setLineJumpTarget(int)} target line.</p>
+ * <p>{@code GOTO}. The implementation performs a {@linkplain InterpreterState#requestJump(int) jump} to the first
+ * statement of the target line. The statement's index is {@linkplain #resolveJumpTargets(Map) resolved} once after
+ * parsing; if that has not happened, the {@linkplain InterpreterState#setLineJumpTarget(int) target line} is looked up
+ * when the jump is executed.</p>
  *
  * <p>In case the target line number is less than 1000, a jump to a {@linkplain Subroutines subroutine} is executed
  * instead of the normal {@code GOTO}.</p>
@@ -14,29 +18,80 @@ public class GotoNode extends StatementNode {
 
     private final int target;
 
+    /**
+     * The index of the target line's first statement, or -1 if it has not been resolved.
+     */
+    private int targetIndex = -1;
+
+    /**
+     * The subroutine, bound when the node is created, if the target line number is less than 1000; {@code null}
+     * otherwise, or if there is no subroutine at the target line number.
+     */
+    private final Subroutines.Routine routine;
+
     public GotoNode(int startPosition, int target) {
         super(startPosition);
         this.target = target;
+        routine = target < 1000 ? Subroutines.lookup(target) : null;
     }
 
     public int getTarget() {
         return target;
     }
 
+    public int getTargetIndex() {
+        return targetIndex;
+    }
+
     @Override
     public void run(InterpreterState state) {
         if (target < 1000) {
-            Subroutines.runGoto(target, state);
+            Subroutines.runGoto(routine, target, state);
             // It is technically possible to reach a subroutine via GOTO that should be reached via GOSUB. In that case,
             // the interpreter should run a RETURN next. The only exception from this is GOTO 20, which is the default
             // jump at the beginning of a BASICODE program.
             if (target != 20) {
                 state.requestReturn();
             }
+        } else if (targetIndex >= 0) {
+            state.requestJump(targetIndex);
         } else {
             state.setLineJumpTarget(target);
             state.requestLineJump();
         }
     }
 
+    @Override
+    public int execute(InterpreterState state, int index) {
+        if (targetIndex >= 0) {
+            return targetIndex;
+        }
+        run(state);
+        return proceed(state);
+    }
+
+    @Override
+    public void resolveJumpTargets(Map<Integer, Integer> lineStarts) {
+        targetIndex = resolveTarget(target, lineStarts);
+    }
+
+    /**
+     * Look up the index of the first statement of a jump's target line.
+     *
+     * @param target the target line number.
+     * @param lineStarts a map from line numbers to the indices of the lines' first statements.
+     * @return the index of the target line's first statement, or -1 for subroutine line numbers (less than 1000).
+     * @throws IllegalStateException if the target line does not exist.
+     */
+    static int resolveTarget(int target, Map<Integer, Integer> lineStarts) {
+        if (target < 1000) {
+            return -1;
+        }
+        Integer index = lineStarts.get(target);
+        if (index == null) {
+            throw new IllegalStateException("line not found: " + target);
+        }
+        return index;
+    }
+
 }
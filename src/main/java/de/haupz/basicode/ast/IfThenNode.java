@@ -1,8 +1,10 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * <p>{@code IF ... THEN ...}. The node encapsulates both the condition and the <em>first</em> statement of the
@@ -12,14 +14,16 @@ import java.util.List;
  * will simply proceed as usual with the following statement.</p>
  *
  * <p>If the condition is not met, the remainder of the line will be skipped by
- * {@linkplain InterpreterState#requestSkipLine() signalling this to the interpreter}.</p>
+ * {@linkplain InterpreterState#requestSkipLine() signalling this to the interpreter}. In the threaded interpreter loop,
+ * {@link #execute(InterpreterState, int)} directly
+ * {@linkplain de.haupz.basicode.interpreter.ProgramInfo#getNextLineStartIndex(int) continues on the next line}.</p>
  */
 public class IfThenNode extends StatementNode {
 
     /**
      * An expression representing the {@code IF} condition.
      */
-    private final ExpressionNode condition;
+    private ExpressionNode condition;
 
     /**
      * The first statement of the {@code THEN} branch.
@@ -42,16 +46,57 @@ public class IfThenNode extends StatementNode {
 
     @Override
     public void run(InterpreterState state) {
-        Object cond = condition.eval(state);
-        if (cond instanceof Number n) {
-            if (n.doubleValue() != 0.0) {
-                then.run(state);
+        if (isConditionMet(state)) {
+            then.run(state);
+        } else {
+            state.requestSkipLine();
+        }
+    }
+
+    @Override
+    public int execute(InterpreterState state, int index) {
+        if (isConditionMet(state)) {
+            return then.execute(state, index);
+        }
+        return state.getProgramInfo().getNextLineStartIndex(index);
+    }
+
+    /**
+     * Evaluate the condition.
+     *
+     * @param state the interpreter state.
+     * @return {@code true} if the condition evaluates to a number other than 0.
+     */
+    public boolean isConditionMet(InterpreterState state) {
+        double cond;
+        if (condition.isNumeric()) {
+            cond = condition.evalDouble(state);
+        } else {
+            Object value = condition.eval(state);
+            if (value instanceof Number n) {
+                cond = n.doubleValue();
             } else {
-                state.requestSkipLine();
+                throw new IllegalStateException("IF condition must be a number: " + value);
             }
-        } else {
-            throw new IllegalStateException("IF condition must be a number: " + cond);
         }
+        return cond != 0.0;
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        condition.resolveVariables(slots);
+        then.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        condition = ExpressionNode.fold(condition);
+        then.foldConstants();
+    }
+
+    @Override
+    public void resolveJumpTargets(Map<Integer, Integer> lineStarts) {
+        then.resolveJumpTargets(lineStarts);
     }
 
 }
@@ -1,6 +1,7 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 import de.haupz.basicode.io.BasicInput;
 
 import java.io.IOException;
@@ -77,4 +78,14 @@ public class InputNode extends StatementNode {
         let.run(state);
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        let.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        let.foldConstants();
+    }
+
 }
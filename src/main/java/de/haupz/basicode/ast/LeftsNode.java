@@ -1,6 +1,7 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.string.BasicString;
 
 /**
  * {@code LEFT$}.
@@ -13,12 +14,12 @@ public class LeftsNode extends SubstringNode {
 
     @Override
     public Object eval(InterpreterState state) {
-        String s = argToString(expression1.eval(state));
+        CharSequence s = argToString(expression1.eval(state));
         int n = argToInt(expression2.eval(state), "second");
         if (n == 0 || s.isEmpty()) {
             return "";
         }
-        return s.substring(0, Math.min(n, s.length()));
+        return BasicString.substring(s, 0, Math.min(n, s.length()));
     }
 
 }
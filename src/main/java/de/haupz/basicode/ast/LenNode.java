@@ -13,10 +13,15 @@ public class LenNode extends WrappingExpressionNode {
 
     @Override
     Optional<Object> evalWithTypes(Object value) {
-        if (value instanceof String s) {
+        if (value instanceof CharSequence s) {
             return Optional.of(Double.valueOf(s.length()));
         }
         return Optional.empty();
     }
 
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
 }
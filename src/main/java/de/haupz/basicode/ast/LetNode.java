@@ -3,6 +3,7 @@ package de.haupz.basicode.ast;
 import de.haupz.basicode.array.ArrayType;
 import de.haupz.basicode.array.BasicArray;
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 /**
  * <p>{@code LET}. This node implements assignments to variables and into arrays, for both numerical and string
@@ -48,6 +49,31 @@ public class LetNode extends StatementNode {
          *              the variable or array element represented by the left-hand side.
          */
         protected abstract void assign(InterpreterState state, Object value);
+
+        /**
+         * Execute the assignment of a number. By default, the number is boxed and
+         * {@linkplain #assign(InterpreterState, Object) assigned as usual}.
+         *
+         * @param state the interpreter state.
+         * @param value the number to assign.
+         */
+        protected void assignDouble(InterpreterState state, double value) {
+            assign(state, value);
+        }
+
+        /**
+         * Assign slots to the variables referenced by this left-hand side.
+         *
+         * @param slots the program's variable slot table.
+         */
+        protected abstract void resolveVariables(VariableSlots slots);
+
+        /**
+         * Fold the constant subexpressions of this left-hand side. This default implementation does nothing.
+         */
+        protected void foldConstants() {
+            // nothing to fold
+        }
     }
 
     /**
@@ -56,18 +82,26 @@ public class LetNode extends StatementNode {
      * assignment is executed}.
      */
     public static class Variable extends LHS {
+        /**
+         * The variable's slot, or -1 if this left-hand side has not been resolved.
+         */
+        private int slot = -1;
         public Variable(String id) {
             super(id);
         }
         @Override
         protected void assign(InterpreterState state, Object value) {
-            if (value instanceof String && !isString()) {
+            if (value instanceof CharSequence && !isString()) {
                 throw new IllegalStateException("can't assign a string to a variable named " + id);
             }
-            if (!(value instanceof String) && isString()) {
+            if (!(value instanceof CharSequence) && isString()) {
                 throw new IllegalStateException("can't assign a non-string to a variable named " + id);
             }
-            state.setVar(id, value);
+            state.setVar(slot >= 0 ? slot : state.resolveVar(id), value);
+        }
+        @Override
+        protected void resolveVariables(VariableSlots slots) {
+            slot = slots.slotFor(id);
         }
     }
 
@@ -78,8 +112,8 @@ public class LetNode extends StatementNode {
      */
     public static class Array extends LHS {
         private final VarNode getArray;
-        private final ExpressionNode dim1;
-        private final ExpressionNode dim2;
+        private ExpressionNode dim1;
+        private ExpressionNode dim2;
         public Array(String id, ExpressionNode dim1, ExpressionNode dim2) {
             super(id);
             this.getArray = new VarNode(id, true);
@@ -98,39 +132,53 @@ public class LetNode extends StatementNode {
         @Override
         protected void assign(InterpreterState state, Object value) {
             BasicArray array = (BasicArray) getArray.eval(state);
-            if ((array.getType() == ArrayType.STRING && !(value instanceof String)) ||
-                    (array.getType() == ArrayType.NUMBER && value instanceof String)) {
+            if ((array.getType() == ArrayType.STRING && !(value instanceof CharSequence)) ||
+                    (array.getType() == ArrayType.NUMBER && value instanceof CharSequence)) {
                 throw new IllegalStateException("type mismatch in array assignment: assigning " +
                         value.getClass().getName() + " to a " + array.getType() + " array");
             }
-            Object dim1value = dim1.eval(state);
-            if (dim1value instanceof Number dim1num) {
-                int dim1int = dim1num.intValue();
-                if (dim1int < 0) {
-                    throw new IllegalStateException("negative first dimension: " + dim1int);
-                }
-                if (dim2 == null) {
-                    if (array.is2D()) {
-                        throw new IllegalStateException("1D access to 2D array");
-                    }
-                    array.setAt(dim1int, -1, value); // -1 will be ignored
-                } else {
-                    Object dim2value = dim2.eval(state);
-                    if (dim2value instanceof Number dim2num) {
-                        int dim2int = dim2num.intValue();
-                        if (dim2int < 0) {
-                            throw new IllegalStateException("negative second dimension: " + dim2int);
-                        }
-                        if (array.is1D()) {
-                            throw new IllegalStateException("2D access to 1D array");
-                        }
-                        array.setAt(dim1int, dim2int, value);
-                    } else {
-                        throw new IllegalStateException("second dimension must be a number: " + dim2value);
-                    }
-                }
+            int dim1int = DimAccessNode.dimension(dim1, "first", state);
+            if (dim2 == null) {
+                DimAccessNode.checkAccess(array, -1);
+                array.setAt(dim1int, -1, value); // -1 will be ignored
+            } else {
+                int dim2int = DimAccessNode.dimension(dim2, "second", state);
+                DimAccessNode.checkAccess(array, dim2int);
+                array.setAt(dim1int, dim2int, value);
+            }
+        }
+        /**
+         * Store a number in the array without boxing it.
+         */
+        @Override
+        protected void assignDouble(InterpreterState state, double value) {
+            BasicArray array = (BasicArray) getArray.eval(state);
+            if (array.getType() == ArrayType.STRING) {
+                throw new IllegalStateException("type mismatch in array assignment: assigning " +
+                        Double.class.getName() + " to a " + array.getType() + " array");
+            }
+            int dim1int = DimAccessNode.dimension(dim1, "first", state);
+            if (dim2 == null) {
+                DimAccessNode.checkAccess(array, -1);
+                array.setAtDouble(dim1int, -1, value); // -1 will be ignored
             } else {
-                throw new IllegalStateException("first dimension must be a number: " + dim1value);
+                int dim2int = DimAccessNode.dimension(dim2, "second", state);
+                DimAccessNode.checkAccess(array, dim2int);
+                array.setAtDouble(dim1int, dim2int, value);
+            }
+        }
+        @Override
+        protected void resolveVariables(VariableSlots slots) {
+            dim1.resolveVariables(slots);
+            if (dim2 != null) {
+                dim2.resolveVariables(slots);
+            }
+        }
+        @Override
+        protected void foldConstants() {
+            dim1 = ExpressionNode.fold(dim1);
+            if (dim2 != null) {
+                dim2 = ExpressionNode.fold(dim2);
             }
         }
     }
@@ -161,8 +209,24 @@ public class LetNode extends StatementNode {
 
     @Override
     public void run(InterpreterState state) {
-        Object value = expression.eval(state);
-        lhs.assign(state, value);
+        if (expression.isNumeric() && !lhs.isString()) {
+            lhs.assignDouble(state, expression.evalDouble(state));
+        } else {
+            Object value = expression.eval(state);
+            lhs.assign(state, value);
+        }
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        lhs.resolveVariables(slots);
+        expression.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        lhs.foldConstants();
+        expression = ExpressionNode.fold(expression);
     }
 
 }
@@ -1,8 +1,10 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * The representation of a single line of code from a BASICODE program.
@@ -48,6 +50,31 @@ public class LineNode extends BasicNode {
         throw new IllegalStateException("a LineNode should not be run");
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        statements.forEach(s -> s.resolveVariables(slots));
+    }
+
+    @Override
+    public void foldConstants() {
+        statements.forEach(StatementNode::foldConstants);
+    }
+
+    /**
+     * Resolve the jump targets of all statements on this line. In case of an error, the line number is added to the
+     * message.
+     *
+     * @param lineStarts a map from line numbers to the indices of the lines' first statements.
+     */
+    @Override
+    public void resolveJumpTargets(Map<Integer, Integer> lineStarts) {
+        try {
+            statements.forEach(s -> s.resolveJumpTargets(lineStarts));
+        } catch (IllegalStateException ise) {
+            throw new IllegalStateException(ise.getMessage() + " (in line " + lineNumber + ")", ise);
+        }
+    }
+
     /**
      * Throw an exception, as a {@code LineNode} isn't an expression.
      *
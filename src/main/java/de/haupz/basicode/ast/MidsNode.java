@@ -1,6 +1,8 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
+import de.haupz.basicode.string.BasicString;
 
 /**
  * {@code MID$}.
@@ -10,16 +12,41 @@ public class MidsNode extends SubstringNode {
     /**
      * An expression to yield the length of the substring.
      */
-    private final ExpressionNode expression3;
+    private ExpressionNode expression3;
 
     public MidsNode(ExpressionNode expression1, ExpressionNode expression2, ExpressionNode expression3) {
         super(expression1, expression2);
         this.expression3 = expression3;
     }
 
+    public ExpressionNode getExpression3() {
+        return expression3;
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        super.resolveVariables(slots);
+        if (expression3 != null) {
+            expression3.resolveVariables(slots);
+        }
+    }
+
+    @Override
+    public void foldConstants() {
+        super.foldConstants();
+        if (expression3 != null) {
+            expression3 = fold(expression3);
+        }
+    }
+
+    @Override
+    public boolean isConstant() {
+        return super.isConstant() && (expression3 == null || expression3.isConstant());
+    }
+
     @Override
     public Object eval(InterpreterState state) {
-        String s = argToString(expression1.eval(state));
+        CharSequence s = argToString(expression1.eval(state));
         int x = Math.max(1, argToInt(expression2.eval(state), "second"));
         int y = expression3 == null ? s.length() - x + 1 : argToInt(expression3.eval(state), "third");
         if (y == 0 || x > s.length() || s.isEmpty()) {
@@ -28,7 +55,7 @@ public class MidsNode extends SubstringNode {
         if (y < 0) {
             y = s.length();
         }
-        return s.substring(x - 1, Math.min(x + y - 1, s.length()));
+        return BasicString.substring(s, x - 1, Math.min(x + y - 1, s.length()));
     }
 
 }
@@ -1,17 +1,23 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 /**
  * {@code NEXT}. This node does all the heavy lifting for loop execution. It increments (or decrements) the loop
  * iterator variable, checks whether loop execution should end, and signals the interpreter to either
- * {@linkplain InterpreterState#stopLoop(String) stop the loop}, or to {@linkplain InterpreterState#requestBackedge()
+ * {@linkplain InterpreterState#stopLoop(int) stop the loop}, or to {@linkplain InterpreterState#requestBackedge()
  * perform a backedge jump}.
  */
 public class NextNode extends StatementNode {
 
     private final String id;
 
+    /**
+     * The loop iterator variable's slot, or -1 if this node has not been resolved.
+     */
+    private int slot = -1;
+
     public NextNode(int startPosition, String id) {
         super(startPosition);
         this.id = id;
@@ -23,23 +29,40 @@ public class NextNode extends StatementNode {
 
     @Override
     public void run(InterpreterState state) {
-        if (!state.isRunningLoop(id)) {
-            throw new IllegalStateException("no loop with " + id);
-        }
-        Number it = (Number) state.getVar(id).get();
-        InterpreterState.For frec = state.getLoop(id);
-        double step = frec.step().doubleValue();
-        double nextit = it.doubleValue() + step;
-        double end = frec.end().doubleValue();
-        // Special case: if the step width is 0, reaching the target value terminates the loop.
-        boolean shouldEnd = step == 0 ? nextit == end : step > 0 ? nextit > end : nextit < end;
-        state.setVar(id, nextit);
-        if (shouldEnd) {
-            state.stopLoop(id);
-        } else {
-            state.setBackedgeTarget(frec.startIndex());
+        int loopStart = step(state);
+        if (loopStart >= 0) {
+            state.setBackedgeTarget(loopStart);
             state.requestBackedge();
         }
     }
 
+    @Override
+    public int execute(InterpreterState state, int index) {
+        int loopStart = step(state);
+        return loopStart >= 0 ? loopStart : index + 1;
+    }
+
+    /**
+     * Advance the loop iterator variable, and stop the loop if it has run its course.
+     *
+     * @param state the interpreter state.
+     * @return the index of the first statement of the loop's body if another iteration is due, or -1 if the loop has
+     * ended.
+     */
+    private int step(InterpreterState state) {
+        int s = slot >= 0 ? slot : state.resolveVar(id);
+        if (!state.isRunningLoop(s)) {
+            throw new IllegalStateException("no loop with " + id);
+        }
+        Number it = (Number) state.getVar(s);
+        double nextit = it.doubleValue() + state.getLoopStep(s);
+        state.setVar(s, nextit);
+        return state.continueLoop(s, nextit);
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        slot = slots.slotFor(id);
+    }
+
 }
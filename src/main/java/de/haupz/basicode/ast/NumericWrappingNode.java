@@ -0,0 +1,72 @@
+package de.haupz.basicode.ast;
+
+import de.haupz.basicode.interpreter.InterpreterState;
+
+import java.util.Optional;
+
+/**
+ * <p>A superclass for expressions with a single numerical argument that yield a number. This applies to most
+ * mathematical functions.</p>
+ *
+ * <p>Subclasses implement the actual functionality in {@link #evalWithDouble(double)}. If the argument is
+ * {@linkplain ExpressionNode#isNumeric() statically known to be numeric}, it is evaluated
+ * {@linkplain ExpressionNode#evalDouble(InterpreterState) as a primitive number}, avoiding boxing of intermediate
+ * results.</p>
+ */
+public abstract class NumericWrappingNode extends WrappingExpressionNode {
+
+    /**
+     * {@code true} if the argument is statically known to be numeric.
+     */
+    private boolean numericArgument;
+
+    public NumericWrappingNode(ExpressionNode expression) {
+        super(expression);
+        this.numericArgument = expression.isNumeric();
+    }
+
+    /**
+     * Perform the actual evaluation of the expression. This is public so that
+     * {@linkplain de.haupz.basicode.compiler.ProgramCompiler compiled programs} can call it directly.
+     *
+     * @param value the argument the expression should be applied to.
+     * @return the result.
+     */
+    public abstract double evalWithDouble(double value);
+
+    @Override
+    Optional<Object> evalWithTypes(Object value) {
+        if (value instanceof Double d) {
+            return Optional.of(evalWithDouble(d));
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public void foldConstants() {
+        super.foldConstants();
+        numericArgument = getExpression().isNumeric();
+    }
+
+    @Override
+    public double evalDouble(InterpreterState state) {
+        if (numericArgument) {
+            return evalWithDouble(getExpression().evalDouble(state));
+        }
+        return super.evalDouble(state);
+    }
+
+    @Override
+    public Object eval(InterpreterState state) {
+        if (numericArgument) {
+            return evalWithDouble(getExpression().evalDouble(state));
+        }
+        return super.eval(state);
+    }
+
+}
@@ -1,11 +1,10 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
+import de.haupz.basicode.string.NumberConversion;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * <p>{@code PRINT}.</p>
@@ -19,19 +18,18 @@ import java.util.Locale;
  *     <li>{@code SEPARATOR}: a semicolon or comma, indicating whether the cursor should stay on the same line after
  *     printing the previous element, or whether it should advance to the next line.</li>
  * </ul></p>
+ *
+ * <p>Numbers are formatted by {@link NumberConversion#print(double)}.</p>
  */
 public class PrintNode extends StatementNode {
 
-    public static final DecimalFormat DECIMAL_FORMAT =
-            new DecimalFormat(" #.######### ;-#.######### ", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
-
     public enum ElementType { EXPRESSION, TAB, SEPARATOR; }
 
     public record Element(ElementType type, Object payload) {}
 
     private static final Element SEP_NO_NEWLINE = new Element(ElementType.SEPARATOR, ";");
 
-    private final List<Element> elements;
+    private List<Element> elements;
 
     public PrintNode(int startPosition, List<Element> elements) {
         super(startPosition);
@@ -52,7 +50,7 @@ public class PrintNode extends StatementNode {
             switch (e.type) {
                 case EXPRESSION -> {
                     Object v = ((ExpressionNode) e.payload).eval(state);
-                    String s = v instanceof Double d ? DECIMAL_FORMAT.format(d) : v.toString();
+                    String s = v instanceof Double d ? NumberConversion.print(d) : v.toString();
                     state.getOutput().print(s);
                 }
                 case TAB -> {
@@ -60,9 +58,9 @@ public class PrintNode extends StatementNode {
                     int spacesToPrint = tab - state.getOutput().getTextCursor().col();
                     if (spacesToPrint < 0) {
                         state.getOutput().println();
-                        state.getOutput().print(String.format("%" + tab + "s", ""));
+                        state.getOutput().print(NumberConversion.spaces(tab));
                     } else if (spacesToPrint > 0) {
-                        state.getOutput().print(String.format("%" + spacesToPrint + "s", ""));
+                        state.getOutput().print(NumberConversion.spaces(spacesToPrint));
                     }
                     // no need to print anything for spacesToPrint == 0
                 }
@@ -71,7 +69,7 @@ public class PrintNode extends StatementNode {
                     if (",".equals(sep)) {
                         // advance to the next multiple of 8
                         int spacesToPrint = 8 - (state.getOutput().getTextCursor().col() % 8);
-                        state.getOutput().print(String.format("%" + spacesToPrint + "s", ""));
+                        state.getOutput().print(NumberConversion.spaces(spacesToPrint));
                     }
                 }
             }
@@ -83,4 +81,19 @@ public class PrintNode extends StatementNode {
         }
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        elements.stream()
+                .filter(e -> e.type != ElementType.SEPARATOR)
+                .forEach(e -> ((ExpressionNode) e.payload).resolveVariables(slots));
+    }
+
+    @Override
+    public void foldConstants() {
+        elements = elements.stream()
+                .map(e -> e.type == ElementType.SEPARATOR ? e :
+                        new Element(e.type, ExpressionNode.fold((ExpressionNode) e.payload)))
+                .toList();
+    }
+
 }
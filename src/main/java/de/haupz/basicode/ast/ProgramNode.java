@@ -1,8 +1,10 @@
 package de.haupz.basicode.ast;
 
+import de.haupz.basicode.interpreter.Breakpoint;
 import de.haupz.basicode.interpreter.InterpreterState;
 import de.haupz.basicode.interpreter.ProgramInfo;
 import de.haupz.basicode.interpreter.StatementIterator;
+import de.haupz.basicode.interpreter.VariableSlots;
 import de.haupz.basicode.subroutines.Subroutines;
 
 import java.util.*;
@@ -20,7 +22,7 @@ public class ProgramNode extends BasicNode {
      * The base slowdown delay. After executing a line-level statement, execution will be paused by this amount of
      * milliseconds multiplied with the {@link de.haupz.basicode.interpreter.Configuration#slowness() slowdown factor}.
      */
-    public static long BASE_SLOWDOWN = 1L;
+    public static final long BASE_SLOWDOWN = 1L;
 
     /**
      * All lines of the BASICODE program.
@@ -32,19 +34,110 @@ public class ProgramNode extends BasicNode {
      */
     private final List<Object> dataList;
 
+    /**
+     * The slot table for all variables used in the program.
+     */
+    private final VariableSlots variableSlots = new VariableSlots();
+
+    /**
+     * The flattened list of all statements in the program, as used by the {@linkplain #runThreaded(InterpreterState)
+     * threaded interpreter loop}.
+     */
+    private final StatementNode[] statements;
+
     /**
      * <p>Construct a program from a list of line nodes and data elements.</p>
      *
+     * <p>Construction includes the variable resolution pass: each distinct variable name referenced in the program is
+     * assigned a {@linkplain VariableSlots slot}, and the nodes accessing variables memorise these slots so that they
+     * can access variable storage directly at run-time. The slot table is {@linkplain VariableSlots#seal() sealed}
+     * afterwards.</p>
+     *
+     * <p>Construction also includes the jump resolution pass: the target line numbers of {@code GOTO}, {@code GOSUB},
+     * and {@code ON} statements are {@linkplain BasicNode#resolveJumpTargets(Map) resolved} to statement indices, so
+     * that jumps need not look up line numbers at run-time.</p>
+     *
      * @param lines the {@link LineNode}s representing the source code.
      * @param dataList the {@code DATA} elements from the source code.
+     * @throws IllegalStateException if a jump leads to a line that does not exist.
      */
     public ProgramNode(List<LineNode> lines, List<Object> dataList) {
         this.lines = List.copyOf(lines);
         this.dataList = List.copyOf(dataList);
+        resolveVariables(variableSlots);
+        variableSlots.seal();
+        resolveJumpTargets(computeLineStarts());
+        statements = this.lines.stream().flatMap(line -> line.getStatements().stream()).toArray(StatementNode[]::new);
+    }
+
+    /**
+     * <p>The main interpreter loop. It runs the program using the {@linkplain #runThreaded(InterpreterState) threaded
+     * loop} as long as possible, and hands over to the {@linkplain #runClassic(InterpreterState) classic loop} when
+     * debugging support or slowdown are needed.</p>
+     *
+     * @param state the interpreter state.
+     */
+    @Override
+    public void run(InterpreterState state) {
+        runThreaded(state);
+        runClassic(state);
+    }
+
+    /**
+     * <p>The threaded interpreter loop.</p>
+     *
+     * <p>Each statement {@linkplain StatementNode#execute(InterpreterState, int) runs and returns the index of the
+     * statement to run next}, so that the loop is a plain walk over the array of all statements, without any control
+     * flow flags to check in between. The {@linkplain StatementIterator statement iterator} is kept positioned at the
+     * current statement, so that statements relying on it (e.g., {@code GOSUB} and {@code FOR}) and error reporting
+     * work as in the classic loop.</p>
+     *
+     * <p>The threaded loop supports neither breakpoints, watchpoints, nor slowdown. It returns as soon as any of those
+     * is needed, leaving the iterator positioned at the next statement to run, so that the
+     * {@linkplain #runClassic(InterpreterState) classic loop} can take over. It also returns when the program ends.</p>
+     *
+     * @param state the interpreter state.
+     */
+    public void runThreaded(InterpreterState state) {
+        if (state.shouldEnd() || state.getConfiguration().slowness() > 0) {
+            return;
+        }
+        ProgramInfo programInfo = state.getProgramInfo();
+        StatementIterator iterator = state.getStatementIterator();
+        int index = iterator.getNextIndex();
+        try {
+            while (!programInfo.hasDebugHooks()) {
+                if (index >= statements.length) {
+                    state.terminate();
+                    return;
+                }
+                int current = index;
+                iterator.setCurrentIndex(current);
+                index = statements[current].execute(state, current);
+                if (state.shouldEnd()) {
+                    return;
+                }
+                if (programInfo.hasDebugHooks()) {
+                    // The statement has registered a breakpoint or watchpoint, the latter of which is due for checking
+                    // right away.
+                    afterStatement(state);
+                    if (state.shouldEnd()) {
+                        return;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw runtimeError(state, e);
+        }
+        if (index >= statements.length) {
+            state.terminate();
+        } else {
+            iterator.setIndex(index);
+        }
     }
 
     /**
-     * <p>The main interpreter loop.</p>
+     * <p>The classic interpreter loop, which supports debugging and slowdown.</p>
      *
      * <p>Until the interpreter state is {@linkplain InterpreterState#shouldEnd() notified about termination}, the
      * interpreter fetches the {@linkplain StatementIterator#getNext() next statement} from the interpreter state and
@@ -64,7 +157,9 @@ public class ProgramNode extends BasicNode {
      *     {@linkplain InterpreterState#getBackedgeTarget() retrieve the loop head's statement index} and continue
      *     execution there.</li>
      *     <li>{@link InterpreterState#isSkipLine()}: the remainder of a line needs to be skipped, and execution needs
-     *     to proceed at the beginning of the next line.</li>
+     *     to proceed at the beginning of the next line. The interpreter will
+     *     {@linkplain ProgramInfo#getNextLineStartIndex(int) look up the next line's first statement} and continue
+     *     execution there.</li>
      * </ul>If no flag is set, the interpreter will simply move on to the next statement, if there is one. If there
      * isn't, it will {@linkplain InterpreterState#terminate() mark the interpreter state for termination}.</p>
      *
@@ -75,36 +170,16 @@ public class ProgramNode extends BasicNode {
      *
      * @param state the interpreter state.
      */
-    @Override
-    public void run(InterpreterState state) {
+    public void runClassic(InterpreterState state) {
         StatementNode statement;
         while (!state.shouldEnd()) {
             statement = state.getStatementIterator().getNext();
             try {
-                state.getProgramInfo().breakpointsForHere(state.getHere()).forEach(breakpoint -> {
-                    if (breakpoint.isActive() && breakpoint.shouldIntercept(state)) {
-                        String content = state.getDebugInfo(false);
-                        state.getBreakpointHandler().breakRun(state, content);
-                    }
-                });
+                beforeStatement(state);
                 statement.run(state);
-                state.getProgramInfo().watchpoints().forEach(watchpoint -> {
-                    if (watchpoint.shouldIntercept(state)) {
-                        String content = state.getDebugInfo(false);
-                        state.getBreakpointHandler().breakRun(state, content);
-                    }
-                });
-                if (state.getConfiguration().slowness() > 0) {
-                    try {
-                        Thread.sleep(BASE_SLOWDOWN * state.getConfiguration().slowness());
-                    } catch (InterruptedException e) {
-                        throw new RuntimeException("slowdown interrupted", e);
-                    }
-                }
+                afterStatement(state);
             } catch (Exception e) {
-                String stackDump = state.getStackDump(false);
-                String values = state.getValues(false);
-                throw new IllegalStateException(e.getMessage() + "\n" + stackDump + "\n" + values, e);
+                throw runtimeError(state, e);
             }
 
             // In case the statement execution has led to program termination, don't bother.
@@ -112,48 +187,172 @@ public class ProgramNode extends BasicNode {
                 continue;
             }
 
-            if (state.isLineJumpNext()) {
-                resolveJump(state);
-            } else if (state.isReturnNext()) {
-                state.getStatementIterator().setIndex(state.getReturnIndex());
-                state.returnDone();
-            } else if (state.isBackedgeNext()) {
-                state.getStatementIterator().setIndex(state.getBackedgeTarget());
-                state.backedgeDone();
-            } else if (state.isSkipLine()) {
-                int stmt = state.getStatementIterator().getNextIndex() - 1;
-                int lineToSkip = state.getProgramInfo().locateStatement(stmt).line();
-                do {
-                    ++stmt;
-                } while (lineToSkip == state.getProgramInfo().locateStatement(stmt).line());
-                state.getStatementIterator().setIndex(stmt);
-                state.skipLineDone();
+            proceed(state);
+        }
+    }
+
+    /**
+     * Perform the debugging checks due before a statement is run: trigger any active breakpoints set on the statement
+     * about to be executed, if their conditions hold.
+     *
+     * @param state the interpreter state.
+     */
+    public void beforeStatement(InterpreterState state) {
+        if (state.getProgramInfo().hasDebugHooks()) {
+            checkBreakpoints(state);
+        }
+    }
+
+    /**
+     * Perform the work due after a statement has been run: trigger watchpoints, and slow execution down if so
+     * configured.
+     *
+     * @param state the interpreter state.
+     */
+    public void afterStatement(InterpreterState state) {
+        if (state.getProgramInfo().hasDebugHooks()) {
+            checkWatchpoints(state);
+        }
+        if (state.getConfiguration().slowness() > 0) {
+            try {
+                Thread.sleep(BASE_SLOWDOWN * state.getConfiguration().slowness());
+            } catch (InterruptedException e) {
+                throw new RuntimeException("slowdown interrupted", e);
+            }
+        }
+    }
+
+    /**
+     * Wrap an exception thrown while running a statement in one that provides some helpful details about the location
+     * in the BASIC source code where the exception originated, the BASIC call stack, and the current variable values.
+     *
+     * @param state the interpreter state.
+     * @param e the exception thrown by the statement.
+     * @return the wrapping exception, to be thrown by the caller.
+     */
+    public IllegalStateException runtimeError(InterpreterState state, Exception e) {
+        String stackDump = state.getStackDump(false);
+        String values = state.getValues(false);
+        return new IllegalStateException(e.getMessage() + "\n" + stackDump + "\n" + values, e);
+    }
+
+    /**
+     * Handle the control flow flags a statement may have set (see {@link #runClassic(InterpreterState)}), and set the
+     * {@linkplain StatementIterator#setIndex(int) index of the next statement to execute} accordingly. If no flag is
+     * set and there is no next statement, the interpreter state is marked for termination.
+     *
+     * @param state the interpreter state.
+     */
+    public void proceed(InterpreterState state) {
+        if (state.isLineJumpNext()) {
+            resolveJump(state);
+        } else if (state.isReturnNext()) {
+            state.getStatementIterator().setIndex(state.getReturnIndex());
+            state.returnDone();
+        } else if (state.isBackedgeNext()) {
+            state.getStatementIterator().setIndex(state.getBackedgeTarget());
+            state.backedgeDone();
+        } else if (state.isSkipLine()) {
+            int stmt = state.getStatementIterator().getNextIndex() - 1;
+            int nextLine = state.getProgramInfo().getNextLineStartIndex(stmt);
+            state.skipLineDone();
+            if (state.getStatementIterator().isValidIndex(nextLine)) {
+                state.getStatementIterator().setIndex(nextLine);
             } else {
-                if (!state.getStatementIterator().hasNext()) {
-                    state.terminate();
-                }
+                // The line being skipped is the last one.
+                state.terminate();
+            }
+        } else {
+            if (!state.getStatementIterator().hasNext()) {
+                state.terminate();
+            }
+        }
+    }
+
+    /**
+     * Trigger any active breakpoints set on the statement about to be executed, if their conditions hold.
+     *
+     * @param state the interpreter state.
+     */
+    private void checkBreakpoints(InterpreterState state) {
+        int here = state.getStatementIterator().getNextIndex() - 1;
+        for (Breakpoint breakpoint : state.getProgramInfo().breakpointsAt(here)) {
+            if (breakpoint.isActive() && breakpoint.shouldIntercept(state)) {
+                String content = state.getDebugInfo(false);
+                state.getBreakpointHandler().breakRun(state, content);
             }
         }
     }
 
     /**
-     * Resolve a jump by {@linkplain ProgramInfo#getLineStartStamentIndex(int) retrieving the index of the first
-     * statement} of the {@linkplain InterpreterState#getLineJumpTarget() target line}, and
-     * {@linkplain de.haupz.basicode.interpreter.StatementIterator#setIndex(int) setting that} to be the next statement
-     * to execute}.
+     * Trigger any watchpoints whose conditions have just become true.
+     *
+     * @param state the interpreter state.
+     */
+    private void checkWatchpoints(InterpreterState state) {
+        state.getProgramInfo().watchpoints().forEach(watchpoint -> {
+            if (watchpoint.shouldIntercept(state)) {
+                String content = state.getDebugInfo(false);
+                state.getBreakpointHandler().breakRun(state, content);
+            }
+        });
+    }
+
+    /**
+     * Resolve a jump by setting its {@linkplain InterpreterState#getJumpTargetIndex() target statement index} to be the
+     * next statement to execute. If the jump target is only given as a line number, this is done by
+     * {@linkplain ProgramInfo#getLineStartStamentIndex(int) retrieving the index of the first statement} of the
+     * {@linkplain InterpreterState#getLineJumpTarget() target line}.
      *
      * @param state the interpreter state.
      */
     private void resolveJump(InterpreterState state) {
-        try {
-            state.getStatementIterator().setIndex(
-                    state.getProgramInfo().getLineStartStamentIndex(state.getLineJumpTarget()));
-        } catch (NullPointerException npe) {
-            throw new IllegalStateException("line not found: " + state.getLineJumpTarget());
+        int index = state.getJumpTargetIndex();
+        if (index < 0) {
+            index = state.getProgramInfo().getLineStartStamentIndex(state.getLineJumpTarget());
         }
+        state.getStatementIterator().setIndex(index);
         state.lineJumpDone();
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        lines.forEach(line -> line.resolveVariables(slots));
+    }
+
+    @Override
+    public void resolveJumpTargets(Map<Integer, Integer> lineStarts) {
+        lines.forEach(line -> line.resolveJumpTargets(lineStarts));
+    }
+
+    /**
+     * <p>The constant folding pass: replace all constant subexpressions in the program, such as {@code 2*3.14159},
+     * {@code CHR$(65)}, or {@code -1}, by literals, so that they are not evaluated again and again at run-time.
+     * Expressions whose evaluation fails, e.g., because of a division by zero, are left in place, so that the error
+     * occurs at run-time, as it would without folding.</p>
+     *
+     * <p>This pass is not part of construction, so that it can be switched off for debugging (see
+     * {@link de.haupz.basicode.interpreter.Configuration#nofold()}). It must be run before the program is.</p>
+     */
+    @Override
+    public void foldConstants() {
+        lines.forEach(LineNode::foldConstants);
+    }
+
+    /**
+     * @return a map from the program's line numbers to the indices of the lines' first statements in the
+     * {@linkplain StatementIterator flattened statement list}.
+     */
+    private Map<Integer, Integer> computeLineStarts() {
+        Map<Integer, Integer> lineStarts = new HashMap<>();
+        int index = 0;
+        for (LineNode line : lines) {
+            lineStarts.put(line.getLineNumber(), index);
+            index += line.getStatements().size();
+        }
+        return lineStarts;
+    }
+
     /**
      * This method is overridden to throw an exception, as programs aren't expressions.
      *
@@ -179,4 +378,11 @@ public class ProgramNode extends BasicNode {
         return lines;
     }
 
+    /**
+     * @return the slot table for the variables used in the program.
+     */
+    public VariableSlots getVariableSlots() {
+        return variableSlots;
+    }
+
 }
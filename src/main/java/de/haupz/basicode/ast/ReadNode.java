@@ -1,6 +1,7 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 import java.util.List;
 
@@ -52,4 +53,14 @@ public class ReadNode extends StatementNode {
         lets.forEach(let -> let.run(state));
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        lets.forEach(let -> let.resolveVariables(slots));
+    }
+
+    @Override
+    public void foldConstants() {
+        lets.forEach(LetNode::foldConstants);
+    }
+
 }
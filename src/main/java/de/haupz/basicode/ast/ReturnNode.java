@@ -17,4 +17,9 @@ public class ReturnNode extends StatementNode {
         state.requestReturn();
     }
 
+    @Override
+    public int execute(InterpreterState state, int index) {
+        return state.getReturnIndex();
+    }
+
 }
@@ -19,4 +19,10 @@ public class RunNode extends StatementNode {
         state.getStatementIterator().setIndex(0);
     }
 
+    @Override
+    public int execute(InterpreterState state, int index) {
+        run(state);
+        return 0;
+    }
+
 }
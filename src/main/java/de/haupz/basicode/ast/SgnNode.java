@@ -1,22 +1,17 @@
 package de.haupz.basicode.ast;
 
-import java.util.Optional;
-
 /**
  * {@code SGN}.
  */
-public class SgnNode extends WrappingExpressionNode {
+public class SgnNode extends NumericWrappingNode {
 
     public SgnNode(ExpressionNode expression) {
         super(expression);
     }
 
     @Override
-    Optional<Object> evalWithTypes(Object value) {
-        if (value instanceof Double d) {
-            return Optional.of(Math.signum(d));
-        }
-        return Optional.empty();
+    public double evalWithDouble(double value) {
+        return Math.signum(value);
     }
 
 }
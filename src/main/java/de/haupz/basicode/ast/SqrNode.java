@@ -1,25 +1,20 @@
 package de.haupz.basicode.ast;
 
-import java.util.Optional;
-
 /**
  * {@code SQR}.
  */
-public class SqrNode extends WrappingExpressionNode {
+public class SqrNode extends NumericWrappingNode {
 
     public SqrNode(ExpressionNode expression) {
         super(expression);
     }
 
     @Override
-    Optional<Object> evalWithTypes(Object value) {
-        if (value instanceof Double d) {
-            if (d < 0) {
-                throw new ArithmeticException();
-            }
-            return Optional.of(Math.sqrt(d));
+    public double evalWithDouble(double value) {
+        if (value < 0) {
+            throw new ArithmeticException();
         }
-        return Optional.empty();
+        return Math.sqrt(value);
     }
 
 }
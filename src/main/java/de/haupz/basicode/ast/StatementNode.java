@@ -8,6 +8,11 @@ import de.haupz.basicode.interpreter.InterpreterState;
  * hierarchy.</p>
  *
  * <p>Statements also hold their start position on the line they occur on.</p>
+ *
+ * <p>In addition to {@link #run(InterpreterState)}, statements implement {@link #execute(InterpreterState, int)}, which
+ * is used by the {@linkplain ProgramNode#runThreaded(InterpreterState) threaded interpreter loop}: it runs the statement
+ * and returns the index of the statement to run next. Statements that change the control flow override it to compute
+ * that index directly, instead of signalling the change through the flags in the {@link InterpreterState}.</p>
  */
 public abstract class StatementNode extends BasicNode {
 
@@ -22,6 +27,37 @@ public abstract class StatementNode extends BasicNode {
         throw new IllegalStateException(this.getClass().getName() + " is a StatementNode and should not be evaluated");
     }
 
+    /**
+     * Run this statement, and determine the statement to run next. The default implementation runs the statement and
+     * proceeds with the following one, which is right for all statements that don't change the control flow.
+     *
+     * @param state the interpreter state.
+     * @param index the index of this statement in the {@linkplain de.haupz.basicode.interpreter.StatementIterator
+     *              flattened statement list}.
+     * @return the index of the statement to run next. If the program should end, the return value is undefined.
+     */
+    public int execute(InterpreterState state, int index) {
+        run(state);
+        return index + 1;
+    }
+
+    /**
+     * Handle the control flow flags set while running a statement the
+     * {@linkplain ProgramNode#proceed(InterpreterState) same way the classic interpreter loop does}. This is for
+     * statements whose control flow cannot be determined in {@link #execute(InterpreterState, int)} directly, e.g.,
+     * because they call {@linkplain de.haupz.basicode.subroutines.Subroutines subroutines}.
+     *
+     * @param state the interpreter state.
+     * @return the index of the statement to run next, or -1 if the program should end.
+     */
+    protected static int proceed(InterpreterState state) {
+        if (state.shouldEnd()) {
+            return -1;
+        }
+        state.getProgram().proceed(state);
+        return state.shouldEnd() ? -1 : state.getStatementIterator().getNextIndex();
+    }
+
     public int getStartPosition() {
         return startPosition;
     }
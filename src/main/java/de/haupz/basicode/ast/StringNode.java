@@ -13,9 +13,18 @@ public class StringNode extends ValueNode {
         this.value = value;
     }
 
+    public String getValue() {
+        return value;
+    }
+
     @Override
     public Object eval(InterpreterState state) {
         return value;
     }
 
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
+
 }
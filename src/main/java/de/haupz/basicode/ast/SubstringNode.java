@@ -1,5 +1,8 @@
 package de.haupz.basicode.ast;
 
+import de.haupz.basicode.interpreter.VariableSlots;
+import de.haupz.basicode.string.BasicString;
+
 /**
  * A common superclass for the {@code LEFT$}, {@code MID$}, and {@code RIGHT$} operations that contains some shared
  * functionality used by the three.
@@ -9,19 +12,44 @@ public abstract class SubstringNode extends ExpressionNode {
     /**
      * An expression yielding the string from which to extract a substring.
      */
-    protected final ExpressionNode expression1;
+    protected ExpressionNode expression1;
 
     /**
      * An expression to yield the first numeric argument to the substring expression. This will be the only argument in
      * {@code LEFT$} and {@code RIGHT$}.
      */
-    protected final ExpressionNode expression2;
+    protected ExpressionNode expression2;
 
     public SubstringNode(ExpressionNode expression1, ExpressionNode expression2) {
         this.expression1 = expression1;
         this.expression2 = expression2;
     }
 
+    public ExpressionNode getExpression1() {
+        return expression1;
+    }
+
+    public ExpressionNode getExpression2() {
+        return expression2;
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        expression1.resolveVariables(slots);
+        expression2.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        expression1 = fold(expression1);
+        expression2 = fold(expression2);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return expression1.isConstant() && expression2.isConstant();
+    }
+
     /**
      * @return the name of the BASIC function represented by this node.
      */
@@ -52,13 +80,14 @@ public abstract class SubstringNode extends ExpressionNode {
 
     /**
      * Helper method to convert an argument to a string. In case the conversion fails, throw an exception with a message
-     * helpful for debugging.
+     * helpful for debugging. The string is not flattened, so that substrings can be
+     * {@linkplain BasicString#substring(CharSequence, int, int) taken without copying}.
      *
      * @param arg the argument to convert to a string.
      * @return the argument, converted to a string.
      */
-    protected String argToString(Object arg) {
-        if (arg instanceof String s) {
+    protected CharSequence argToString(Object arg) {
+        if (arg instanceof CharSequence s) {
             return s;
         } else {
             throw new IllegalStateException(opName() + " expects string as first argument");
@@ -1,22 +1,17 @@
 package de.haupz.basicode.ast;
 
-import java.util.Optional;
-
 /**
  * {@code TAN}.
  */
-public class TanNode extends WrappingExpressionNode {
+public class TanNode extends NumericWrappingNode {
 
     public TanNode(ExpressionNode expression) {
         super(expression);
     }
 
     @Override
-    Optional<Object> evalWithTypes(Object value) {
-        if (value instanceof Double d) {
-            return Optional.of(Math.tan(d));
-        }
-        return Optional.empty();
+    public double evalWithDouble(double value) {
+        return Math.tan(value);
     }
 
 }
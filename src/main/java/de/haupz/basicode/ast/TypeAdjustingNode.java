@@ -1,6 +1,7 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 import java.util.Optional;
 
@@ -11,22 +12,77 @@ import java.util.Optional;
  * <p>The node, when executed, will evaluate its arguments, and wrap execution of the actual functionality in a call to
  * {@link #evalWithTypes(Object,Object)}. If that call returns {@link Optional#empty()}, an exception will be
  * thrown.</p>
+ *
+ * <p>If both arguments are {@linkplain ExpressionNode#isNumeric() statically known to be numeric}, the node instead
+ * evaluates them {@linkplain ExpressionNode#evalDouble(InterpreterState) as primitive numbers} and computes the result
+ * using {@link #evalWithDoubles(double, double)}, avoiding boxing of intermediate results.</p>
  */
 public abstract class TypeAdjustingNode extends ExpressionNode {
 
-    private final ExpressionNode expression1;
+    private ExpressionNode expression1;
+
+    private ExpressionNode expression2;
 
-    private final ExpressionNode expression2;
+    /**
+     * {@code true} if both arguments are statically known to be numeric.
+     */
+    private boolean numericArguments;
 
     public TypeAdjustingNode(ExpressionNode expression1, ExpressionNode expression2) {
         this.expression1 = expression1;
         this.expression2 = expression2;
+        this.numericArguments = expression1.isNumeric() && expression2.isNumeric();
+    }
+
+    public ExpressionNode getExpression1() {
+        return expression1;
+    }
+
+    public ExpressionNode getExpression2() {
+        return expression2;
     }
 
     abstract Optional<Object> evalWithTypes(Object value1, Object value2);
 
+    /**
+     * Perform the actual operation on two numbers. This is public so that
+     * {@linkplain de.haupz.basicode.compiler.ProgramCompiler compiled programs} can call it directly.
+     *
+     * @param value1 the first argument.
+     * @param value2 the second argument.
+     * @return the result of the operation.
+     */
+    public abstract double evalWithDoubles(double value1, double value2);
+
+    /**
+     * @return {@code true} if both arguments are statically known to be numeric.
+     */
+    protected boolean hasNumericArguments() {
+        return numericArguments;
+    }
+
+    /**
+     * @return {@code true}, as all operations represented by subclasses yield numbers, with the exception of string
+     * concatenation in {@link AddNode}.
+     */
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public double evalDouble(InterpreterState state) {
+        if (numericArguments) {
+            return evalWithDoubles(expression1.evalDouble(state), expression2.evalDouble(state));
+        }
+        return super.evalDouble(state);
+    }
+
     @Override
     public Object eval(InterpreterState state) {
+        if (numericArguments) {
+            return evalWithDoubles(expression1.evalDouble(state), expression2.evalDouble(state));
+        }
         Object value1 = expression1.eval(state);
         Object value2 = expression2.eval(state);
         return evalWithTypes(value1, value2)
@@ -34,4 +90,22 @@ public abstract class TypeAdjustingNode extends ExpressionNode {
                         value1.getClass().getName() + " and " + value2.getClass()));
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        expression1.resolveVariables(slots);
+        expression2.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        expression1 = fold(expression1);
+        expression2 = fold(expression2);
+        numericArguments = expression1.isNumeric() && expression2.isNumeric();
+    }
+
+    @Override
+    public boolean isConstant() {
+        return expression1.isConstant() && expression2.isConstant();
+    }
+
 }
@@ -1,27 +1,30 @@
 package de.haupz.basicode.ast;
 
+import de.haupz.basicode.string.NumberConversion;
+
 import java.util.Optional;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * {@code VAL}.
+ * {@code VAL}. The number is {@linkplain NumberConversion#parse(CharSequence) parsed} from the beginning of the string;
+ * the rest of the string is ignored.
  */
 public class ValNode extends WrappingExpressionNode {
 
-    private static final Pattern DOUBLE = Pattern.compile("^[-+]?[0-9]*\\.?[0-9]+([eE][-+]?[0-9]+)?");
-
     public ValNode(ExpressionNode expression) {
         super(expression);
     }
 
     @Override
     Optional<Object> evalWithTypes(Object value) {
-        if (value instanceof String s) {
-            Matcher matcher = DOUBLE.matcher(s);
-            return Optional.of(matcher.find() ? Double.parseDouble(matcher.group()) : 0.0);
+        if (value instanceof CharSequence s) {
+            return Optional.of(NumberConversion.parse(s));
         }
         return Optional.empty();
     }
 
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
 }
@@ -1,8 +1,7 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
-
-import java.util.Optional;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 /**
  * <p>Retrieving a variable. This works for both ordinary variables and arrays.</p>
@@ -10,6 +9,10 @@ import java.util.Optional;
  * <p>When evaluated on non-array variables, the node checks whether the variable has already been initialised, and
  * initialises it to the type default (zero or empty string) if that is not the case. Arrays have to be initialised
  * using {@code DIM}, so the node does not check whether they have been initialised.</p>
+ *
+ * <p>Ordinary variables are accessed through their {@linkplain VariableSlots slot}, which is assigned by the
+ * {@linkplain #resolveVariables(VariableSlots) resolution pass}. Nodes that have not been resolved look their slot up by
+ * name upon each evaluation.</p>
  */
 public class VarNode extends ExpressionNode {
 
@@ -17,6 +20,11 @@ public class VarNode extends ExpressionNode {
 
     private final boolean isArray;
 
+    /**
+     * The variable's slot, or -1 if this node has not been resolved.
+     */
+    private int slot = -1;
+
     public VarNode(String id, boolean isArray) {
         this.id = id.toUpperCase();
         this.isArray = isArray;
@@ -35,13 +43,28 @@ public class VarNode extends ExpressionNode {
         if (isArray) {
             return state.getArray(id).orElseThrow(() -> new IllegalStateException("no such array: " + id));
         }
-        Optional<Object> v = state.getVar(id);
-        if (v.isEmpty()) {
-            Object value = id.endsWith("$") ? "" : 0.0;
-            v = Optional.of(value);
-            state.setVar(id, value);
+        int s = slot >= 0 ? slot : state.resolveVar(id);
+        Object v = state.getVar(s);
+        if (v == null) {
+            v = id.endsWith("$") ? "" : 0.0;
+            state.setVar(s, v);
+        }
+        return v;
+    }
+
+    /**
+     * @return {@code true} if this node retrieves an ordinary variable whose name does not end in {@code $}.
+     */
+    @Override
+    public boolean isNumeric() {
+        return !isArray && !id.endsWith("$");
+    }
+
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        if (!isArray) {
+            slot = slots.slotFor(id);
         }
-        return v.get();
     }
 
 }
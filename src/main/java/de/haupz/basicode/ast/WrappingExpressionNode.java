@@ -1,6 +1,7 @@
 package de.haupz.basicode.ast;
 
 import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
 
 import java.util.Optional;
 
@@ -14,7 +15,7 @@ import java.util.Optional;
  */
 public abstract class WrappingExpressionNode extends ExpressionNode {
 
-    private final ExpressionNode expression;
+    private ExpressionNode expression;
 
     public WrappingExpressionNode(ExpressionNode expression) {
         this.expression = expression;
@@ -32,6 +33,21 @@ public abstract class WrappingExpressionNode extends ExpressionNode {
                         " in " + getClass().getSimpleName()));
     }
 
+    @Override
+    public void resolveVariables(VariableSlots slots) {
+        expression.resolveVariables(slots);
+    }
+
+    @Override
+    public void foldConstants() {
+        expression = fold(expression);
+    }
+
+    @Override
+    public boolean isConstant() {
+        return expression.isConstant();
+    }
+
     /**
      * Perform the actual evaluation of the expression.
      *
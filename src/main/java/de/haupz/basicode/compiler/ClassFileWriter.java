@@ -0,0 +1,230 @@
+package de.haupz.basicode.compiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>A minimal writer for JVM class files. It supports just what the {@link ProgramCompiler} needs: a constant pool
+ * holding class, field, method, integer, and double entries, and methods with {@linkplain CodeBuffer code}.</p>
+ *
+ * <p>Class files are written in version 49 (Java 5). The JVM verifies classes of that version by type inference, so
+ * that no stack map frames need to be computed for the generated code.</p>
+ */
+final class ClassFileWriter {
+
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int MAJOR_VERSION = 49;
+
+    static final int ACC_PUBLIC = 0x0001;
+
+    static final int ACC_PRIVATE = 0x0002;
+
+    static final int ACC_FINAL = 0x0010;
+
+    static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+
+    private static final int CONSTANT_INTEGER = 3;
+
+    private static final int CONSTANT_DOUBLE = 6;
+
+    private static final int CONSTANT_CLASS = 7;
+
+    private static final int CONSTANT_FIELDREF = 9;
+
+    private static final int CONSTANT_METHODREF = 10;
+
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    /**
+     * The serialised constant pool entries.
+     */
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream pool = new DataOutputStream(poolBytes);
+
+    /**
+     * Map constant pool entries, in a textual key form, to their indices, so that every entry is only written once.
+     */
+    private final Map<String, Integer> poolIndices = new HashMap<>();
+
+    /**
+     * The index the next constant pool entry will receive. Index 0 is unused by definition.
+     */
+    private int nextPoolIndex = 1;
+
+    /**
+     * The serialised methods.
+     */
+    private final ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream methods = new DataOutputStream(methodBytes);
+
+    private int methodCount = 0;
+
+    private final int access;
+
+    private final int thisClass;
+
+    private final int superClass;
+
+    /**
+     * @param access the access flags of the class.
+     * @param name the internal name (using slashes) of the class.
+     * @param superName the internal name of the super class.
+     */
+    ClassFileWriter(int access, String name, String superName) {
+        this.access = access;
+        thisClass = classRef(name);
+        superClass = classRef(superName);
+    }
+
+    int utf8(String s) {
+        return entry("U" + s, out -> {
+            out.writeByte(CONSTANT_UTF8);
+            out.writeUTF(s);
+        });
+    }
+
+    int integer(int value) {
+        return entry("I" + value, out -> {
+            out.writeByte(CONSTANT_INTEGER);
+            out.writeInt(value);
+        });
+    }
+
+    int doubleConstant(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        // A double constant takes up two entries in the constant pool.
+        return entry("D" + bits, 2, out -> {
+            out.writeByte(CONSTANT_DOUBLE);
+            out.writeLong(bits);
+        });
+    }
+
+    int classRef(String internalName) {
+        int name = utf8(internalName);
+        return entry("C" + internalName, out -> {
+            out.writeByte(CONSTANT_CLASS);
+            out.writeShort(name);
+        });
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_FIELDREF, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_METHODREF, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int ownerIndex = classRef(owner);
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int nameAndType = entry("N" + name + ":" + descriptor, out -> {
+            out.writeByte(CONSTANT_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return entry(tag + owner + "." + name + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(ownerIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    /**
+     * Add a method to the class.
+     *
+     * @param access the method's access flags.
+     * @param name the method's name.
+     * @param descriptor the method's type descriptor.
+     * @param code the method's code.
+     * @throws IllegalStateException if the code exceeds the size limit the JVM imposes on methods.
+     */
+    void addMethod(int access, String name, String descriptor, CodeBuffer code) {
+        byte[] bytes = code.toByteArray();
+        int nameIndex = utf8(name);
+        int descriptorIndex = utf8(descriptor);
+        int codeAttribute = utf8("Code");
+        try {
+            methods.writeShort(access);
+            methods.writeShort(nameIndex);
+            methods.writeShort(descriptorIndex);
+            methods.writeShort(1);
+            methods.writeShort(codeAttribute);
+            methods.writeInt(12 + bytes.length + 8 * code.getHandlerCount());
+            methods.writeShort(code.getMaxStack());
+            methods.writeShort(code.getMaxLocals());
+            methods.writeInt(bytes.length);
+            methods.write(bytes);
+            methods.writeShort(code.getHandlerCount());
+            code.writeHandlers(methods);
+            methods.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        ++methodCount;
+    }
+
+    /**
+     * @return the complete class file.
+     */
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(nextPoolIndex);
+            poolBytes.writeTo(out);
+            out.writeShort(access);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0); // interfaces
+            out.writeShort(0); // fields
+            out.writeShort(methodCount);
+            methodBytes.writeTo(out);
+            out.writeShort(0); // attributes
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @FunctionalInterface
+    private interface EntryWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private int entry(String key, EntryWriter writer) {
+        return entry(key, 1, writer);
+    }
+
+    private int entry(String key, int size, EntryWriter writer) {
+        Integer index = poolIndices.get(key);
+        if (index == null) {
+            try {
+                writer.write(pool);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            index = nextPoolIndex;
+            nextPoolIndex += size;
+            if (nextPoolIndex > 0xFFFF) {
+                throw new IllegalStateException("constant pool too large");
+            }
+            poolIndices.put(key, index);
+        }
+        return index;
+    }
+
+}
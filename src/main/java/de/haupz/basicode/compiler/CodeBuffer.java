@@ -0,0 +1,324 @@
+package de.haupz.basicode.compiler;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The code of a single method being generated by the {@link ProgramCompiler}. Jumps refer to {@linkplain Label labels}
+ * that may be placed after the jump instruction has been emitted; their offsets are filled in when the code is
+ * {@linkplain #toByteArray() retrieved}.
+ */
+final class CodeBuffer {
+
+    static final int ICONST_M1 = 0x02;
+    static final int ICONST_0 = 0x03;
+    static final int ICONST_1 = 0x04;
+    static final int DCONST_0 = 0x0e;
+    static final int DCONST_1 = 0x0f;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int LDC_W = 0x13;
+    static final int LDC2_W = 0x14;
+    static final int ILOAD = 0x15;
+    static final int DLOAD = 0x18;
+    static final int ALOAD = 0x19;
+    static final int ILOAD_2 = 0x1c;
+    static final int ILOAD_3 = 0x1d;
+    static final int ALOAD_0 = 0x2a;
+    static final int ALOAD_1 = 0x2b;
+    static final int ALOAD_2 = 0x2c;
+    static final int ALOAD_3 = 0x2d;
+    static final int AALOAD = 0x32;
+    static final int ISTORE = 0x36;
+    static final int DSTORE = 0x39;
+    static final int ASTORE = 0x3a;
+    static final int ISTORE_2 = 0x3d;
+    static final int ASTORE_3 = 0x4e;
+    static final int DADD = 0x63;
+    static final int DSUB = 0x67;
+    static final int DMUL = 0x6b;
+    static final int DNEG = 0x77;
+    static final int IXOR = 0x82;
+    static final int DCMPL = 0x97;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFLE = 0x9e;
+    static final int IF_ICMPNE = 0xa0;
+    static final int GOTO = 0xa7;
+    static final int TABLESWITCH = 0xaa;
+    static final int IRETURN = 0xac;
+    static final int RETURN = 0xb1;
+    static final int GETFIELD = 0xb4;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int ATHROW = 0xbf;
+    static final int CHECKCAST = 0xc0;
+    static final int WIDE = 0xc4;
+
+    /**
+     * The maximum length of a method's code, as imposed by the class file format.
+     */
+    private static final int MAX_CODE_LENGTH = 0xFFFF;
+
+    /**
+     * A position in the code that can be jumped to.
+     */
+    static final class Label {
+        private int position = -1;
+    }
+
+    /**
+     * A jump offset to be filled in once the target label's position is known.
+     *
+     * @param instruction the position of the jump instruction, to which the offset is relative.
+     * @param offset the position of the offset in the code.
+     * @param wide {@code true} for a four-byte offset, {@code false} for a two-byte one.
+     * @param target the label to jump to.
+     */
+    private record Fixup(int instruction, int offset, boolean wide, Label target) {}
+
+    /**
+     * An exception table entry.
+     */
+    private record Handler(Label start, Label end, Label handler, int catchType) {}
+
+    private byte[] code = new byte[1024];
+
+    private int length = 0;
+
+    private final List<Fixup> fixups = new ArrayList<>();
+
+    private final List<Handler> handlers = new ArrayList<>();
+
+    private int maxStack;
+
+    private final int maxLocals;
+
+    /**
+     * @param maxStack the maximum operand stack depth the code will use. It can be raised later using
+     *                 {@link #requireStack(int)}.
+     * @param maxLocals the number of local variable slots the code will use, including the arguments.
+     */
+    CodeBuffer(int maxStack, int maxLocals) {
+        this.maxStack = maxStack;
+        this.maxLocals = maxLocals;
+    }
+
+    /**
+     * Make sure the maximum operand stack depth is at least the given one.
+     */
+    void requireStack(int depth) {
+        maxStack = Math.max(maxStack, depth);
+    }
+
+    void op(int opcode) {
+        u1(opcode);
+    }
+
+    void op(int opcode, int operand) {
+        u1(opcode);
+        u1(operand);
+    }
+
+    /**
+     * Emit an instruction with a two-byte operand, such as a constant pool index.
+     */
+    void opU2(int opcode, int operand) {
+        u1(opcode);
+        u2(operand);
+    }
+
+    /**
+     * Emit the shortest instruction pushing an {@code int} constant.
+     *
+     * @param value the constant.
+     * @param cf the class file, in case the constant needs to go into the constant pool.
+     */
+    void pushInt(int value, ClassFileWriter cf) {
+        if (value >= -1 && value <= 5) {
+            op(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            op(BIPUSH, value & 0xFF);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            opU2(SIPUSH, value & 0xFFFF);
+        } else {
+            opU2(LDC_W, cf.integer(value));
+        }
+    }
+
+    /**
+     * Emit an instruction accessing a local variable, using the {@code wide} form if the index needs it.
+     *
+     * @param opcode the instruction, e.g., {@link #DLOAD}.
+     * @param index the index of the local variable.
+     */
+    void local(int opcode, int index) {
+        if (index <= 0xFF) {
+            op(opcode, index);
+        } else {
+            u1(WIDE);
+            opU2(opcode, index);
+        }
+    }
+
+    /**
+     * Emit the shortest instruction pushing a {@code double} constant.
+     *
+     * @param value the constant.
+     * @param cf the class file, in case the constant needs to go into the constant pool.
+     */
+    void pushDouble(double value, ClassFileWriter cf) {
+        // Compare the bits, so that -0.0 does not end up as 0.0.
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            op(DCONST_0);
+        } else if (value == 1.0) {
+            op(DCONST_1);
+        } else {
+            opU2(LDC2_W, cf.doubleConstant(value));
+        }
+    }
+
+    /**
+     * Emit a jump instruction with a two-byte offset.
+     */
+    void jump(int opcode, Label target) {
+        int instruction = length;
+        u1(opcode);
+        fixups.add(new Fixup(instruction, length, false, target));
+        u2(0);
+    }
+
+    /**
+     * Emit a {@code tableswitch} instruction for the keys {@code 0} to {@code targets.length - 1}.
+     */
+    void tableSwitch(Label defaultTarget, Label[] targets) {
+        tableSwitch(defaultTarget, 0, targets);
+    }
+
+    /**
+     * Emit a {@code tableswitch} instruction for the keys {@code low} to {@code low + targets.length - 1}.
+     */
+    void tableSwitch(Label defaultTarget, int low, Label[] targets) {
+        int instruction = length;
+        u1(TABLESWITCH);
+        while (length % 4 != 0) {
+            u1(0);
+        }
+        fixups.add(new Fixup(instruction, length, true, defaultTarget));
+        u4(0);
+        u4(low);
+        u4(low + targets.length - 1);
+        for (Label target : targets) {
+            fixups.add(new Fixup(instruction, length, true, target));
+            u4(0);
+        }
+    }
+
+    /**
+     * Place a label at the current position.
+     */
+    void mark(Label label) {
+        label.position = length;
+    }
+
+    /**
+     * Add an exception table entry.
+     *
+     * @param start the first instruction covered.
+     * @param end the position right after the last instruction covered.
+     * @param handler the handler code.
+     * @param catchType the constant pool index of the exception class to catch.
+     */
+    void handler(Label start, Label end, Label handler, int catchType) {
+        handlers.add(new Handler(start, end, handler, catchType));
+    }
+
+    /**
+     * @return the length of the code emitted so far, in bytes.
+     */
+    int length() {
+        return length;
+    }
+
+    int getMaxStack() {
+        return maxStack;
+    }
+
+    int getMaxLocals() {
+        return maxLocals;
+    }
+
+    int getHandlerCount() {
+        return handlers.size();
+    }
+
+    /**
+     * @return the code, with all jump offsets filled in.
+     * @throws IllegalStateException if the code is too large, or a label has not been placed.
+     */
+    byte[] toByteArray() {
+        if (length > MAX_CODE_LENGTH) {
+            throw new IllegalStateException("method code too large: " + length + " bytes");
+        }
+        for (Fixup fixup : fixups) {
+            int offset = position(fixup.target) - fixup.instruction;
+            if (fixup.wide) {
+                putU4(fixup.offset, offset);
+            } else {
+                if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                    throw new IllegalStateException("jump offset out of range: " + offset);
+                }
+                code[fixup.offset] = (byte) (offset >> 8);
+                code[fixup.offset + 1] = (byte) offset;
+            }
+        }
+        return Arrays.copyOf(code, length);
+    }
+
+    void writeHandlers(DataOutputStream out) throws IOException {
+        for (Handler h : handlers) {
+            out.writeShort(position(h.start));
+            out.writeShort(position(h.end));
+            out.writeShort(position(h.handler));
+            out.writeShort(h.catchType);
+        }
+    }
+
+    private int position(Label label) {
+        if (label.position < 0) {
+            throw new IllegalStateException("label not placed");
+        }
+        return label.position;
+    }
+
+    private void u1(int b) {
+        if (length == code.length) {
+            code = Arrays.copyOf(code, code.length * 2);
+        }
+        code[length++] = (byte) b;
+    }
+
+    private void u2(int v) {
+        u1(v >> 8);
+        u1(v);
+    }
+
+    private void u4(int v) {
+        u2(v >> 16);
+        u2(v);
+    }
+
+    private void putU4(int at, int v) {
+        code[at] = (byte) (v >> 24);
+        code[at + 1] = (byte) (v >> 16);
+        code[at + 2] = (byte) (v >> 8);
+        code[at + 3] = (byte) v;
+    }
+
+}
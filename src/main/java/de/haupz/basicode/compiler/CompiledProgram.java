@@ -0,0 +1,189 @@
+package de.haupz.basicode.compiler;
+
+import de.haupz.basicode.ast.BasicNode;
+import de.haupz.basicode.ast.NextNode;
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.ast.StatementNode;
+import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.StatementIterator;
+
+/**
+ * <p>The super class of all classes generated by the {@link ProgramCompiler}. A subclass implements
+ * {@link #execute(InterpreterState)} with code specific to one BASICODE program.</p>
+ *
+ * <p>The methods in this class implement the parts of running a program that the generated code does not inline, so
+ * that compiled programs behave exactly like interpreted ones. In particular, the {@linkplain StatementIterator
+ * statement iterator} is positioned at each statement that is run through its AST node, so that statements relying on
+ * it, debugging support, and error reporting work as usual.</p>
+ */
+public abstract class CompiledProgram {
+
+    /**
+     * The program this class was compiled from.
+     */
+    protected final ProgramNode program;
+
+    /**
+     * The AST nodes the generated code calls, indexed by numbers known to the generated code.
+     */
+    protected final BasicNode[] nodes;
+
+    /**
+     * The number of statements in the program.
+     */
+    private final int statementCount;
+
+    protected CompiledProgram(ProgramNode program, BasicNode[] nodes, int statementCount) {
+        this.program = program;
+        this.nodes = nodes;
+        this.statementCount = statementCount;
+    }
+
+    /**
+     * Run the compiled program. The compiled code supports neither debugging nor slowdown; if either is needed, or
+     * becomes needed while the program is running, the program is handed over to the
+     * {@linkplain ProgramNode#run(InterpreterState) interpreter}.
+     *
+     * @param state the interpreter state.
+     */
+    public final void run(InterpreterState state) {
+        if (!state.shouldEnd() && state.getConfiguration().slowness() == 0
+                && !state.getProgramInfo().hasDebugHooks()) {
+            execute(state);
+        }
+        // If the program has ended, this returns right away.
+        program.run(state);
+    }
+
+    /**
+     * Run the program until it ends, or until debugging support is needed. In the latter case, the statement iterator
+     * is left positioned at the next statement to run.
+     *
+     * @param state the interpreter state.
+     */
+    protected abstract void execute(InterpreterState state);
+
+    /**
+     * @param state the interpreter state.
+     * @return the index of the first statement to run.
+     */
+    protected final int start(InterpreterState state) {
+        return state.getStatementIterator().getNextIndex();
+    }
+
+    /**
+     * Prepare running a statement through its AST node.
+     *
+     * @param state the interpreter state.
+     * @param index the index of the statement about to be run.
+     */
+    protected final void enter(InterpreterState state, int index) {
+        state.getStatementIterator().setCurrentIndex(index);
+    }
+
+    /**
+     * Finish running a statement through its AST node.
+     *
+     * @param state the interpreter state.
+     * @param next the index of the statement to run next.
+     * @return {@code next} if the compiled code should continue, or its bitwise complement if it should return because
+     * the program has ended or needs debugging support.
+     */
+    protected final int leave(InterpreterState state, int next) {
+        if (state.shouldEnd()) {
+            return ~statementCount;
+        }
+        if (state.getProgramInfo().hasDebugHooks()) {
+            // The statement has registered a breakpoint or watchpoint, the latter of which is due for checking right
+            // away.
+            program.afterStatement(state);
+            return ~next;
+        }
+        return next;
+    }
+
+    /**
+     * Run a statement through its AST node. The generated code uses this for statements after which it reads all
+     * variables again, where the cost of the call does not matter.
+     *
+     * @param state the interpreter state.
+     * @param node the index of the statement's node in {@link #nodes}.
+     * @param index the index of the statement.
+     * @return the index of the statement to run next, or its bitwise complement, as returned by
+     * {@link #leave(InterpreterState, int)}.
+     */
+    protected final int step(InterpreterState state, int node, int index) {
+        enter(state, index);
+        return leave(state, ((StatementNode) nodes[node]).execute(state, index));
+    }
+
+    /**
+     * Read a numeric variable into the compiled code. A variable that has not been set reads as 0, but remains unset
+     * until the compiled code actually {@linkplain de.haupz.basicode.ast.VarNode reads it}, as some subroutines
+     * distinguish unset variables.
+     *
+     * @param state the interpreter state.
+     * @param slot the variable's slot.
+     * @return the variable's value.
+     */
+    protected final double load(InterpreterState state, int slot) {
+        Object value = state.getVar(slot);
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        if (value == null) {
+            return 0.0;
+        }
+        throw new IllegalStateException("not a number: " + value);
+    }
+
+    /**
+     * @param state the interpreter state.
+     * @param slot a variable's slot.
+     * @return the initial state of the variable's flag in the compiled code: 0 if the variable has been set, -1 if not.
+     */
+    protected final int flag(InterpreterState state, int slot) {
+        return state.getVar(slot) == null ? -1 : 0;
+    }
+
+    /**
+     * Check that a {@code NEXT} statement belongs to a running loop.
+     *
+     * @param state the interpreter state.
+     * @param slot the slot of the loop's iterator variable.
+     * @param node the index of the {@link NextNode} in {@link #nodes}.
+     * @return the loop's step width.
+     */
+    protected final double loopStep(InterpreterState state, int slot, int node) {
+        if (!state.isRunningLoop(slot)) {
+            throw new IllegalStateException("no loop with " + ((NextNode) nodes[node]).getId());
+        }
+        return state.getLoopStep(slot);
+    }
+
+    /**
+     * Leave the compiled code.
+     *
+     * @param state the interpreter state.
+     * @param index the index of the next statement to run.
+     */
+    protected final void finish(InterpreterState state, int index) {
+        if (index >= statementCount) {
+            state.terminate();
+        } else {
+            state.getStatementIterator().setIndex(index);
+        }
+    }
+
+    /**
+     * @param state the interpreter state.
+     * @param index the index of the statement that has thrown an exception.
+     * @param e the exception.
+     * @return the exception to throw instead.
+     */
+    protected final RuntimeException fail(InterpreterState state, int index, Exception e) {
+        state.getStatementIterator().setCurrentIndex(index);
+        return program.runtimeError(state, e);
+    }
+
+}
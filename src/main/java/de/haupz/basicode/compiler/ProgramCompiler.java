@@ -0,0 +1,917 @@
+package de.haupz.basicode.compiler;
+
+import de.haupz.basicode.ast.AddNode;
+import de.haupz.basicode.ast.BasicNode;
+import de.haupz.basicode.ast.DefFnNode;
+import de.haupz.basicode.ast.DependentJumpNode;
+import de.haupz.basicode.ast.DoubleNode;
+import de.haupz.basicode.ast.ExpressionNode;
+import de.haupz.basicode.ast.ForNode;
+import de.haupz.basicode.ast.GosubNode;
+import de.haupz.basicode.ast.GotoNode;
+import de.haupz.basicode.ast.IfThenNode;
+import de.haupz.basicode.ast.LetNode;
+import de.haupz.basicode.ast.LineNode;
+import de.haupz.basicode.ast.MultiplyNode;
+import de.haupz.basicode.ast.NegateNode;
+import de.haupz.basicode.ast.NextNode;
+import de.haupz.basicode.ast.NumericWrappingNode;
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.ast.RemNode;
+import de.haupz.basicode.ast.ReturnNode;
+import de.haupz.basicode.ast.RunNode;
+import de.haupz.basicode.ast.StatementNode;
+import de.haupz.basicode.ast.SubtractNode;
+import de.haupz.basicode.ast.TypeAdjustingNode;
+import de.haupz.basicode.ast.VarNode;
+import de.haupz.basicode.interpreter.InterpreterState;
+import de.haupz.basicode.interpreter.VariableSlots;
+
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import static de.haupz.basicode.compiler.CodeBuffer.*;
+
+/**
+ * <p>The {@code ProgramCompiler} turns a {@link ProgramNode} into a {@linkplain CompiledProgram generated class} whose
+ * {@link CompiledProgram#run(InterpreterState) run()} method replaces the
+ * {@linkplain ProgramNode#run(InterpreterState) interpreter loop}.</p>
+ *
+ * <p>The generated code contains one block per statement, in the order of the flattened statement list. Execution
+ * falls through from one block to the next unless the statement changes the control flow. A {@code tableswitch} over
+ * the statement index leads to the block of any statement in the same method; it is used where the next statement is
+ * only known at run-time.</p>
+ *
+ * <p>Numeric variables used by compiled statements are held in {@code double} local variables of the generated methods.
+ * Each has an {@code int} companion flag that is set when the local holds a value not yet written back to the
+ * interpreter state. The following statements are compiled:<ul>
+ *     <li>Assignments of numeric expressions to numeric variables. Expressions are compiled to arithmetic on
+ *     {@code double} values; operations other than {@code +}, {@code -}, and {@code *} call the respective AST node's
+ *     {@code evalWithDoubles()} or {@code evalWithDouble()} method, so that their semantics are exactly those of the
+ *     interpreter.</li>
+ *     <li>{@code FOR} and {@code NEXT}. The loop frame is kept in the interpreter state as usual, but {@code NEXT}
+ *     jumps straight to the first statement of the loop body of the {@code FOR} statement preceding it in the
+ *     source.</li>
+ *     <li>{@code GOTO} and {@code GOSUB} to line numbers of 1000 or above, which become direct jumps. {@code GOSUB}
+ *     pushes the return index on the interpreter state's call stack, and {@code RETURN} jumps to the block of the
+ *     popped index through the {@code tableswitch}.</li>
+ *     <li>{@code IF ... THEN} with a numeric condition, the {@code THEN} branch of which is compiled like any other
+ *     statement.</li>
+ *     <li>{@code REM}, which compiles to nothing.</li>
+ * </ul>All other statements, and all other subexpressions, are run through their AST nodes. Before that, the numeric
+ * variables they reference are written back to the interpreter state, if needed, and afterwards, they are read again.
+ * For statements that call {@linkplain de.haupz.basicode.subroutines.Subroutines subroutines}, restart the program, or
+ * call functions defined with {@code DEF FN}, this is done for all variables held in locals.</p>
+ *
+ * <p>Backward jumps, and jumps through the {@code tableswitch}, check whether the program should end, so that programs
+ * can be stopped. The generated code returns when the program ends, or when a statement run through its node has
+ * activated debugging support, which the generated code does not implement; the interpreter takes over in that
+ * case.</p>
+ *
+ * <p>HotSpot does not compile methods of more than 8000 bytes of bytecode to machine code, and running a generated
+ * method that large in the JVM's bytecode interpreter would be slower than running the program in the BASICODE
+ * interpreter. The generated code is therefore split into parts, each a method running a range of whole lines, that
+ * stay below that size. A part holds the variables its statements use in its own locals. Control passing to a
+ * statement outside the part writes them back, and returns the statement's index to
+ * {@link CompiledProgram#execute(InterpreterState) execute()}, which calls the part containing the statement through a
+ * {@code tableswitch} over all statement indices.</p>
+ */
+public class ProgramCompiler {
+
+    private static final String COMPILED_PROGRAM = "de/haupz/basicode/compiler/CompiledProgram";
+
+    private static final String GENERATED_PROGRAM = "de/haupz/basicode/compiler/GeneratedProgram";
+
+    private static final String INTERPRETER_STATE = "de/haupz/basicode/interpreter/InterpreterState";
+
+    private static final String STATE = "L" + INTERPRETER_STATE + ";";
+
+    private static final String NODES = "[Lde/haupz/basicode/ast/BasicNode;";
+
+    private static final String CONSTRUCTOR = "(Lde/haupz/basicode/ast/ProgramNode;" + NODES + "I)V";
+
+    /**
+     * The size of the largest method HotSpot compiles to machine code (its {@code HugeMethodLimit}).
+     */
+    private static final int HUGE_METHOD_LIMIT = 8000;
+
+    private static final int LOCAL_INDEX = 2;
+
+    private static final int LOCAL_NODES = 3;
+
+    private static final int LOCAL_EXCEPTION = 4;
+
+    private static final int LOCAL_TEMP = 5;
+
+    private static final int LOCAL_LOOP_END = 6;
+
+    private static final int LOCAL_LOOP_STEP = 8;
+
+    private static final int FIRST_VARIABLE_LOCAL = 10;
+
+    /**
+     * A numeric variable held in locals of the generated method: a {@code double} at {@code local}, and its flag, an
+     * {@code int}, at {@code local + 2}. The flag is 1 if the local holds a value not yet written back to the
+     * interpreter state, 0 if it holds the variable's current value, and -1 if the variable has not been set.
+     *
+     * @param slot the variable's slot.
+     * @param local the index of the {@code double} local.
+     */
+    private record Variable(int slot, int local) {
+        int flag() {
+            return local + 2;
+        }
+    }
+
+    /**
+     * A slot table that records the slots of all variables a node references when it is
+     * {@linkplain BasicNode#resolveVariables(VariableSlots) resolved} against it. The slots are those of the program's
+     * actual slot table, so that resolving the node again does not change it.
+     */
+    private static final class ReferenceRecorder extends VariableSlots {
+        private final VariableSlots slots;
+        private final Set<Integer> referenced = new TreeSet<>();
+
+        ReferenceRecorder(VariableSlots slots) {
+            this.slots = slots;
+        }
+
+        @Override
+        public int slotFor(String id) {
+            int slot = slots.slotFor(id);
+            referenced.add(slot);
+            return slot;
+        }
+    }
+
+    /**
+     * A method of the generated class that runs a range of whole lines.
+     *
+     * @param name the method's name.
+     * @param start the index of the first statement in the range.
+     * @param end the index of the first statement after the range.
+     */
+    private record Part(String name, int start, int end) {}
+
+    /**
+     * A class loader for the generated classes. Each compiled program gets its own loader, so that the class can be
+     * unloaded once the program is no longer used.
+     */
+    private static final class GeneratedClassLoader extends ClassLoader {
+        GeneratedClassLoader() {
+            super(ProgramCompiler.class.getClassLoader());
+        }
+
+        Class<?> define(byte[] classFile) {
+            return defineClass(GENERATED_PROGRAM.replace('/', '.'), classFile, 0, classFile.length);
+        }
+    }
+
+    private final ProgramNode program;
+
+    private final VariableSlots slots;
+
+    /**
+     * The flattened list of all statements.
+     */
+    private final List<StatementNode> statements = new ArrayList<>();
+
+    /**
+     * For each statement, the index of the first statement on the next line, or the number of statements if the
+     * statement is on the last line.
+     */
+    private final int[] nextLineStarts;
+
+    /**
+     * For each line, the index of its first statement, followed by the number of statements.
+     */
+    private final int[] lineStarts;
+
+    /**
+     * The slots of the functions defined with {@code DEF FN}.
+     */
+    private final Set<Integer> functionSlots = new HashSet<>();
+
+    /**
+     * The parts generated so far.
+     */
+    private final List<Part> parts = new ArrayList<>();
+
+    /**
+     * The numeric variables held in locals of the part being generated, by slot.
+     */
+    private Map<Integer, Variable> variables;
+
+    /**
+     * The AST nodes the generated code calls, in the order of their indices.
+     */
+    private final List<BasicNode> nodes = new ArrayList<>();
+
+    private final Map<BasicNode, Integer> nodeIndices = new IdentityHashMap<>();
+
+    /**
+     * For each slot, the index of the last {@code FOR} statement using it as its iterator variable that has been
+     * compiled so far.
+     */
+    private final Map<Integer, Integer> lastLoopHeads = new HashMap<>();
+
+    private ClassFileWriter cf;
+
+    private CodeBuffer code;
+
+    /**
+     * The range of statements of the part being generated.
+     */
+    private int partStart;
+
+    private int partEnd;
+
+    private Label[] blocks;
+
+    /**
+     * The labels of the code leaving the part being generated for statements outside of it, by statement index.
+     */
+    private Map<Integer, Label> exits;
+
+    private Label dispatch;
+
+    private Label exit;
+
+    private Label leave;
+
+    private Label runWithAllVariables;
+
+    private ProgramCompiler(ProgramNode program) {
+        this.program = program;
+        slots = program.getVariableSlots();
+        for (LineNode line : program.getLines()) {
+            statements.addAll(line.getStatements());
+        }
+        nextLineStarts = new int[statements.size()];
+        lineStarts = new int[program.getLines().size() + 1];
+        int index = 0;
+        int lineIndex = 0;
+        for (LineNode line : program.getLines()) {
+            lineStarts[lineIndex++] = index;
+            int nextLine = index + line.getStatements().size();
+            while (index < nextLine) {
+                nextLineStarts[index++] = nextLine;
+            }
+        }
+        lineStarts[lineIndex] = index;
+        statements.forEach(this::findFunctions);
+    }
+
+    /**
+     * Compile a program.
+     *
+     * @param program the program to compile.
+     * @return an instance of the generated class, ready to {@linkplain CompiledProgram#run(InterpreterState) run}.
+     * @throws IllegalStateException if the program cannot be compiled, e.g., because it is empty.
+     */
+    public static CompiledProgram compile(ProgramNode program) {
+        return new ProgramCompiler(program).generate();
+    }
+
+    private void findFunctions(StatementNode statement) {
+        if (statement instanceof DefFnNode defFn) {
+            functionSlots.add(slots.slotFor(defFn.getId()));
+        } else if (statement instanceof IfThenNode ifThen) {
+            findFunctions(ifThen.getThen());
+        }
+    }
+
+    /**
+     * Hold all numeric variables referenced by a statement in locals, if the statement is compiled.
+     */
+    private void findVariables(StatementNode statement) {
+        if (!isCompiled(statement)) {
+            return;
+        }
+        for (int slot : references(statement)) {
+            if (isNumericVariable(slots.nameOf(slot))) {
+                variables.computeIfAbsent(slot, s -> new Variable(s, FIRST_VARIABLE_LOCAL + 3 * variables.size()));
+            }
+        }
+    }
+
+    private boolean isNumericVariable(String id) {
+        return !id.endsWith("$") && !functionSlots.contains(slots.slotFor(id));
+    }
+
+    /**
+     * @return {@code true} if the statement is compiled, rather than run through its AST node.
+     */
+    private boolean isCompiled(StatementNode statement) {
+        if (statement instanceof LetNode let) {
+            return let.getLhs() instanceof LetNode.Variable lhs && isNumericVariable(lhs.getId())
+                    && let.getExpression().isNumeric();
+        }
+        if (statement instanceof ForNode forNode) {
+            return isNumericVariable(forNode.getId()) && forNode.getInit().isNumeric()
+                    && forNode.getEnd().isNumeric() && forNode.getStep().isNumeric();
+        }
+        if (statement instanceof NextNode next) {
+            return isNumericVariable(next.getId());
+        }
+        if (statement instanceof GotoNode gotoNode) {
+            return gotoNode.getTargetIndex() >= 0;
+        }
+        if (statement instanceof GosubNode gosub) {
+            return gosub.getTargetIndex() >= 0;
+        }
+        if (statement instanceof IfThenNode ifThen) {
+            return ifThen.getCondition().isNumeric();
+        }
+        return statement instanceof ReturnNode || statement instanceof RemNode;
+    }
+
+    /**
+     * @return the slots of all variables the node references.
+     */
+    private Set<Integer> references(BasicNode node) {
+        ReferenceRecorder recorder = new ReferenceRecorder(slots);
+        node.resolveVariables(recorder);
+        return recorder.referenced;
+    }
+
+    /**
+     * @return the variables held in locals that need to be written back before running the node, and read again
+     * afterwards.
+     */
+    private Collection<Variable> touchedVariables(BasicNode node) {
+        Set<Integer> referenced = references(node);
+        if (touchesAllVariables(node) || referenced.stream().anyMatch(functionSlots::contains)) {
+            return variables.values();
+        }
+        return referenced.stream().map(variables::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * @return {@code true} if running the statement may access variables other than those it references, because it
+     * calls a subroutine or restarts the program.
+     */
+    private static boolean touchesAllVariables(BasicNode node) {
+        return node instanceof GotoNode gotoNode && gotoNode.getTargetIndex() < 0
+                || node instanceof GosubNode gosub && gosub.getTargetIndex() < 0
+                || node instanceof DependentJumpNode
+                || node instanceof RunNode
+                || node instanceof IfThenNode ifThen && touchesAllVariables(ifThen.getThen());
+    }
+
+    private CompiledProgram generate() {
+        if (statements.isEmpty()) {
+            throw new IllegalStateException("cannot compile an empty program");
+        }
+        cf = new ClassFileWriter(ClassFileWriter.ACC_PUBLIC | ClassFileWriter.ACC_FINAL | ClassFileWriter.ACC_SUPER,
+                GENERATED_PROGRAM, COMPILED_PROGRAM);
+        generateConstructor();
+        generateParts(0, program.getLines().size());
+        generateExecute();
+        byte[] classFile = cf.toByteArray();
+        try {
+            Class<?> generated = new GeneratedClassLoader().define(classFile);
+            return (CompiledProgram) generated.getConstructor(ProgramNode.class, BasicNode[].class, int.class)
+                    .newInstance(program, nodes.toArray(BasicNode[]::new), statements.size());
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("could not load compiled program: " + e.getMessage(), e);
+        }
+    }
+
+    private void generateConstructor() {
+        CodeBuffer init = new CodeBuffer(4, 4);
+        init.op(ALOAD_0);
+        init.op(ALOAD_1);
+        init.op(ALOAD_2);
+        init.op(ILOAD_3);
+        init.opU2(INVOKESPECIAL, cf.methodRef(COMPILED_PROGRAM, "<init>", CONSTRUCTOR));
+        init.op(RETURN);
+        cf.addMethod(ClassFileWriter.ACC_PUBLIC, "<init>", CONSTRUCTOR, init);
+    }
+
+    /**
+     * Generate the {@code execute()} method, which calls the parts until the program ends or needs debugging support.
+     */
+    private void generateExecute() {
+        code = new CodeBuffer(3, 3);
+        Label[] partCalls = new Label[parts.size()];
+        Label[] calls = new Label[statements.size()];
+        for (int i = 0; i < partCalls.length; ++i) {
+            partCalls[i] = new Label();
+            Arrays.fill(calls, parts.get(i).start(), parts.get(i).end(), partCalls[i]);
+        }
+        Label loop = new Label();
+        Label returned = new Label();
+        Label finish = new Label();
+
+        callHelper("start", "(" + STATE + ")I");
+        code.op(ISTORE_2);
+        code.mark(loop);
+        code.op(ILOAD_2);
+        code.tableSwitch(finish, calls);
+        for (int i = 0; i < partCalls.length; ++i) {
+            Part part = parts.get(i);
+            code.mark(partCalls[i]);
+            code.op(ALOAD_0);
+            code.op(ALOAD_1);
+            code.op(ILOAD_2);
+            code.opU2(INVOKESPECIAL, cf.methodRef(GENERATED_PROGRAM, part.name(), "(" + STATE + "I)I"));
+            code.jump(GOTO, returned);
+        }
+
+        code.mark(returned);
+        code.op(ISTORE_2);
+        code.op(ILOAD_2);
+        code.jump(IFGE, loop);
+        code.op(ILOAD_2);
+        code.op(ICONST_M1);
+        code.op(IXOR);
+        code.op(ISTORE_2);
+        code.mark(finish);
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        code.op(ILOAD_2);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, "finish", "(" + STATE + "I)V"));
+        code.op(RETURN);
+
+        cf.addMethod(ClassFileWriter.ACC_PUBLIC, "execute", "(" + STATE + ")V", code);
+    }
+
+    /**
+     * Generate the parts for a range of lines. If the code for the range exceeds the {@link #HUGE_METHOD_LIMIT}, the
+     * range is split in halves.
+     *
+     * @param fromLine the index of the first line.
+     * @param toLine the index of the first line after the range.
+     */
+    private void generateParts(int fromLine, int toLine) {
+        Map<Integer, Integer> loopHeads = new HashMap<>(lastLoopHeads);
+        generatePart(lineStarts[fromLine], lineStarts[toLine]);
+        if (code.length() > HUGE_METHOD_LIMIT && toLine - fromLine > 1) {
+            lastLoopHeads.clear();
+            lastLoopHeads.putAll(loopHeads);
+            int middle = (fromLine + toLine) >>> 1;
+            generateParts(fromLine, middle);
+            generateParts(middle, toLine);
+            return;
+        }
+        String name = "lines" + program.getLines().get(fromLine).getLineNumber();
+        cf.addMethod(ClassFileWriter.ACC_PRIVATE, name, "(" + STATE + "I)I", code);
+        parts.add(new Part(name, partStart, partEnd));
+    }
+
+    /**
+     * Generate the code for a part. It runs the statements from the one at the index passed to it, and returns the
+     * index of the next statement to run once that is outside the part, or the bitwise complement of that index if the
+     * program has ended or needs debugging support.
+     *
+     * @param start the index of the first statement of the part.
+     * @param end the index of the first statement after the part.
+     */
+    private void generatePart(int start, int end) {
+        partStart = start;
+        partEnd = end;
+        variables = new LinkedHashMap<>();
+        for (int i = start; i < end; ++i) {
+            findVariables(statements.get(i));
+        }
+        code = new CodeBuffer(8, FIRST_VARIABLE_LOCAL + 3 * variables.size());
+        blocks = new Label[end - start];
+        for (int i = 0; i < blocks.length; ++i) {
+            blocks[i] = new Label();
+        }
+        exits = new TreeMap<>();
+        dispatch = new Label();
+        exit = new Label();
+        leave = new Label();
+        runWithAllVariables = new Label();
+        Label handler = new Label();
+        Label protectedEnd = new Label();
+
+        code.op(ALOAD_0);
+        code.opU2(GETFIELD, cf.fieldRef(COMPILED_PROGRAM, "nodes", NODES));
+        code.op(ASTORE_3);
+        for (Variable variable : variables.values()) {
+            load(variable);
+        }
+
+        // The dispatch code comes first, so that jumps to it are backward branches. The JVM only considers those for
+        // compiling the (usually only once invoked) method while it is running.
+        code.mark(dispatch);
+        exitIfEnding();
+        code.op(ILOAD_2);
+        code.tableSwitch(leave, start, blocks);
+
+        if (statements.subList(start, end).stream().anyMatch(this::runsWithAllVariables)) {
+            // Statements that may access any variable share the code that writes back and reads all variables. They
+            // pass the index of their node in the temporary local.
+            code.mark(runWithAllVariables);
+            storeAll();
+            code.op(ALOAD_0);
+            code.op(ALOAD_1);
+            code.local(ILOAD, LOCAL_TEMP);
+            code.op(ILOAD_2);
+            code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, "step", "(" + STATE + "II)I"));
+            code.op(ISTORE_2);
+            variables.values().forEach(this::load);
+            code.op(ILOAD_2);
+            code.jump(IFLT, leave);
+            code.jump(GOTO, dispatch);
+        }
+
+        for (int i = start; i < end; ++i) {
+            code.mark(blocks[i - start]);
+            generateStatement(statements.get(i), i, false);
+        }
+        code.jump(GOTO, target(end));
+
+        exits.forEach((index, label) -> {
+            code.mark(label);
+            code.pushInt(index, cf);
+            code.op(ISTORE_2);
+            code.jump(GOTO, leave);
+        });
+        code.mark(protectedEnd);
+
+        code.mark(exit);
+        code.op(ILOAD_2);
+        code.op(ICONST_M1);
+        code.op(IXOR);
+        code.op(ISTORE_2);
+
+        code.mark(leave);
+        storeAll();
+        code.op(ILOAD_2);
+        code.op(IRETURN);
+
+        code.mark(handler);
+        code.local(ASTORE, LOCAL_EXCEPTION);
+        storeAll();
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        code.op(ILOAD_2);
+        code.local(ALOAD, LOCAL_EXCEPTION);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, "fail",
+                "(" + STATE + "ILjava/lang/Exception;)Ljava/lang/RuntimeException;"));
+        code.op(ATHROW);
+
+        code.handler(dispatch, protectedEnd, handler, cf.classRef("java/lang/Exception"));
+    }
+
+    /**
+     * Generate the code for a statement.
+     *
+     * @param statement the statement.
+     * @param index the statement's index.
+     * @param nested {@code true} if the statement is the {@code THEN} branch of an {@code IF} statement.
+     */
+    private void generateStatement(StatementNode statement, int index, boolean nested) {
+        if (!isCompiled(statement)) {
+            generateInterpreted(statement, index);
+            return;
+        }
+        if (statement instanceof RemNode) {
+            return;
+        }
+        if (statement instanceof GotoNode gotoNode) {
+            jump(index, gotoNode.getTargetIndex());
+            return;
+        }
+        if (!nested) {
+            // The index of the current statement is only needed for error reporting.
+            code.pushInt(index, cf);
+            code.op(ISTORE_2);
+        }
+        if (statement instanceof LetNode let) {
+            generateNumber(let.getExpression());
+            store(variable(let.getLhs().getId()));
+        } else if (statement instanceof ForNode forNode) {
+            generateFor(forNode, index);
+        } else if (statement instanceof NextNode next) {
+            generateNext(next, index);
+        } else if (statement instanceof GosubNode gosub) {
+            code.op(ALOAD_1);
+            code.pushInt(index + 1, cf);
+            code.opU2(INVOKEVIRTUAL, cf.methodRef(INTERPRETER_STATE, "pushReturnIndex", "(I)V"));
+            jump(index, gosub.getTargetIndex());
+        } else if (statement instanceof ReturnNode) {
+            code.op(ALOAD_1);
+            code.opU2(INVOKEVIRTUAL, cf.methodRef(INTERPRETER_STATE, "getReturnIndex", "()I"));
+            code.op(ISTORE_2);
+            code.jump(GOTO, dispatch);
+        } else if (statement instanceof IfThenNode ifThen) {
+            generateNumber(ifThen.getCondition());
+            code.op(DCONST_0);
+            code.op(DCMPL);
+            code.jump(IFEQ, target(nextLineStarts[index]));
+            generateStatement(ifThen.getThen(), index, true);
+        } else {
+            throw new IllegalStateException("cannot compile " + statement.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Generate the code for a {@code FOR} statement. If the loop is not running yet, it initialises the iterator
+     * variable and starts the loop; otherwise, it does nothing.
+     */
+    private void generateFor(ForNode forNode, int index) {
+        Variable variable = variable(forNode.getId());
+        Label running = new Label();
+        code.op(ALOAD_1);
+        code.pushInt(variable.slot(), cf);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(INTERPRETER_STATE, "isRunningLoop", "(I)Z"));
+        code.jump(IFNE, running);
+        generateNumber(forNode.getInit());
+        generateNumber(forNode.getEnd());
+        generateNumber(forNode.getStep());
+        code.local(DSTORE, LOCAL_LOOP_STEP);
+        code.local(DSTORE, LOCAL_LOOP_END);
+        store(variable);
+        code.op(ALOAD_1);
+        code.pushInt(variable.slot(), cf);
+        code.pushInt(index + 1, cf);
+        code.local(DLOAD, LOCAL_LOOP_END);
+        code.local(DLOAD, LOCAL_LOOP_STEP);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(INTERPRETER_STATE, "startLoop", "(IIDD)V"));
+        code.mark(running);
+        lastLoopHeads.put(variable.slot(), index);
+    }
+
+    /**
+     * Generate the code for a {@code NEXT} statement. It advances the iterator variable, and either proceeds with the
+     * next statement, or jumps to the first statement of the loop body. If the loop was started by the {@code FOR}
+     * statement preceding this one in the program, that is a direct jump.
+     */
+    private void generateNext(NextNode next, int index) {
+        Variable variable = variable(next.getId());
+        Label done = new Label();
+        code.local(DLOAD, variable.local());
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        code.pushInt(variable.slot(), cf);
+        code.pushInt(nodeIndex(next), cf);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, "loopStep", "(" + STATE + "II)D"));
+        code.op(DADD);
+        store(variable);
+        code.op(ALOAD_1);
+        code.pushInt(variable.slot(), cf);
+        code.local(DLOAD, variable.local());
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(INTERPRETER_STATE, "continueLoop", "(ID)I"));
+        code.local(ISTORE, LOCAL_TEMP);
+        code.local(ILOAD, LOCAL_TEMP);
+        code.jump(IFLT, done);
+        Integer loopHead = lastLoopHeads.get(variable.slot());
+        if (loopHead != null) {
+            Label elsewhere = new Label();
+            code.local(ILOAD, LOCAL_TEMP);
+            code.pushInt(loopHead + 1, cf);
+            code.jump(IF_ICMPNE, elsewhere);
+            jump(index, loopHead + 1);
+            code.mark(elsewhere);
+        }
+        code.local(ILOAD, LOCAL_TEMP);
+        code.op(ISTORE_2);
+        code.jump(GOTO, dispatch);
+        code.mark(done);
+    }
+
+    /**
+     * Generate the code for a statement that is run through its AST node.
+     */
+    private void generateInterpreted(StatementNode statement, int index) {
+        Collection<Variable> touched = touchedVariables(statement);
+        if (touched == variables.values()) {
+            code.pushInt(nodeIndex(statement), cf);
+            code.local(ISTORE, LOCAL_TEMP);
+            code.pushInt(index, cf);
+            code.op(ISTORE_2);
+            code.jump(GOTO, runWithAllVariables);
+            return;
+        }
+        touched.forEach(this::writeBack);
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        code.pushInt(index, cf);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, "enter", "(" + STATE + "I)V"));
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        String type = loadNode(statement, StatementNode.class);
+        code.op(ALOAD_1);
+        code.pushInt(index, cf);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(type, "execute", "(" + STATE + "I)I"));
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, "leave", "(" + STATE + "I)I"));
+        code.op(ISTORE_2);
+        touched.forEach(this::load);
+        code.op(ILOAD_2);
+        code.jump(IFLT, leave);
+        code.op(ILOAD_2);
+        code.pushInt(index + 1, cf);
+        code.jump(IF_ICMPNE, dispatch);
+    }
+
+    /**
+     * @return {@code true} if the statement, or the {@code THEN} branch of a compiled {@code IF} statement, is run
+     * through its AST node with all variables written back.
+     */
+    private boolean runsWithAllVariables(StatementNode statement) {
+        if (statement instanceof IfThenNode ifThen && isCompiled(ifThen)) {
+            return runsWithAllVariables(ifThen.getThen());
+        }
+        return !isCompiled(statement) && touchedVariables(statement) == variables.values();
+    }
+
+    /**
+     * Generate the code for a numeric expression, leaving its value on the operand stack.
+     */
+    private void generateNumber(ExpressionNode expression) {
+        // Below the expression, there are at most two other doubles on the stack (in FOR statements).
+        code.requireStack(4 + generateDouble(expression));
+    }
+
+    /**
+     * Generate the code for a numeric expression, leaving its value on the operand stack.
+     *
+     * @return the maximum number of operand stack slots the code uses.
+     */
+    private int generateDouble(ExpressionNode expression) {
+        if (expression instanceof DoubleNode doubleNode) {
+            code.pushDouble(doubleNode.getValue(), cf);
+            return 2;
+        }
+        if (expression instanceof VarNode var && var.isNumeric()) {
+            Variable variable = variables.get(slots.slotFor(var.getId()));
+            if (variable != null) {
+                // Reading an unset variable sets it to 0, as in the interpreter.
+                Label set = new Label();
+                code.local(ILOAD, variable.flag());
+                code.jump(IFGE, set);
+                code.op(ICONST_1);
+                code.local(ISTORE, variable.flag());
+                code.mark(set);
+                code.local(DLOAD, variable.local());
+                return 2;
+            }
+        }
+        if (expression instanceof TypeAdjustingNode binary && binary.getExpression1().isNumeric()
+                && binary.getExpression2().isNumeric() && isPublic(binary)) {
+            int opcode = binary.getClass() == AddNode.class ? DADD
+                    : binary.getClass() == SubtractNode.class ? DSUB
+                    : binary.getClass() == MultiplyNode.class ? DMUL : -1;
+            if (opcode >= 0) {
+                int stack = Math.max(generateDouble(binary.getExpression1()),
+                        2 + generateDouble(binary.getExpression2()));
+                code.op(opcode);
+                return stack;
+            }
+            String type = loadNode(binary, TypeAdjustingNode.class);
+            int stack = 1 + Math.max(generateDouble(binary.getExpression1()),
+                    2 + generateDouble(binary.getExpression2()));
+            code.opU2(INVOKEVIRTUAL, cf.methodRef(type, "evalWithDoubles", "(DD)D"));
+            return stack;
+        }
+        if (expression instanceof NumericWrappingNode unary && unary.getExpression().isNumeric() && isPublic(unary)) {
+            if (unary.getClass() == NegateNode.class) {
+                int stack = generateDouble(unary.getExpression());
+                code.op(DNEG);
+                return stack;
+            }
+            String type = loadNode(unary, NumericWrappingNode.class);
+            int stack = 1 + generateDouble(unary.getExpression());
+            code.opU2(INVOKEVIRTUAL, cf.methodRef(type, "evalWithDouble", "(D)D"));
+            return stack;
+        }
+        Collection<Variable> touched = touchedVariables(expression);
+        touched.forEach(this::writeBack);
+        String type = loadNode(expression, ExpressionNode.class);
+        code.op(ALOAD_1);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(type, "evalDouble", "(" + STATE + ")D"));
+        if (touched == variables.values()) {
+            // A function call may have changed its argument variable.
+            touched.forEach(this::load);
+        }
+        // Writing back takes four slots, reading five, including the value on the stack.
+        return 5;
+    }
+
+    /**
+     * Generate a jump between two statements. A backward jump may close a loop, so it checks whether the program
+     * should end, e.g., because the stop key has been pressed.
+     */
+    private void jump(int from, int to) {
+        if (to <= from) {
+            code.pushInt(to, cf);
+            code.op(ISTORE_2);
+            exitIfEnding();
+        }
+        code.jump(GOTO, target(to));
+    }
+
+    /**
+     * @return the label of the block of a statement in the part being generated, or of the code leaving the part for
+     * a statement outside of it.
+     */
+    private Label target(int index) {
+        if (index >= partStart && index < partEnd) {
+            return blocks[index - partStart];
+        }
+        return exits.computeIfAbsent(index, i -> new Label());
+    }
+
+    /**
+     * Generate code that leaves the method if the program should end.
+     */
+    private void exitIfEnding() {
+        code.op(ALOAD_1);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(INTERPRETER_STATE, "shouldEnd", "()Z"));
+        code.jump(IFNE, exit);
+    }
+
+    private Variable variable(String id) {
+        return variables.get(slots.slotFor(id));
+    }
+
+    /**
+     * Generate code that stores the value on the operand stack in a variable.
+     */
+    private void store(Variable variable) {
+        code.local(DSTORE, variable.local());
+        code.op(ICONST_1);
+        code.local(ISTORE, variable.flag());
+    }
+
+    /**
+     * Generate code that reads a variable from the interpreter state.
+     */
+    private void load(Variable variable) {
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        code.pushInt(variable.slot(), cf);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, "load", "(" + STATE + "I)D"));
+        code.local(DSTORE, variable.local());
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        code.pushInt(variable.slot(), cf);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, "flag", "(" + STATE + "I)I"));
+        code.local(ISTORE, variable.flag());
+    }
+
+    /**
+     * Generate code that writes a variable back to the interpreter state if it has been changed.
+     */
+    private void writeBack(Variable variable) {
+        Label clean = new Label();
+        code.local(ILOAD, variable.flag());
+        code.jump(IFLE, clean);
+        code.op(ALOAD_1);
+        code.pushInt(variable.slot(), cf);
+        code.local(DLOAD, variable.local());
+        code.opU2(INVOKESTATIC, cf.methodRef("java/lang/Double", "valueOf", "(D)Ljava/lang/Double;"));
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(INTERPRETER_STATE, "setVar", "(ILjava/lang/Object;)V"));
+        code.op(ICONST_0);
+        code.local(ISTORE, variable.flag());
+        code.mark(clean);
+    }
+
+    private void storeAll() {
+        variables.values().forEach(this::writeBack);
+    }
+
+    /**
+     * Generate code that pushes an AST node on the operand stack. The node is referenced through its concrete class if
+     * that is public, so that each call site in the generated code only ever sees one receiver type.
+     *
+     * @param node the node.
+     * @param fallback the type to reference the node through if its concrete class is not public.
+     * @return the internal name of the type the node is referenced through.
+     */
+    private String loadNode(BasicNode node, Class<?> fallback) {
+        Class<?> type = isPublic(node) ? node.getClass() : fallback;
+        code.op(ALOAD_3);
+        code.pushInt(nodeIndex(node), cf);
+        code.op(AALOAD);
+        code.opU2(CHECKCAST, cf.classRef(internalName(type)));
+        return internalName(type);
+    }
+
+    private int nodeIndex(BasicNode node) {
+        return nodeIndices.computeIfAbsent(node, n -> {
+            nodes.add(n);
+            return nodes.size() - 1;
+        });
+    }
+
+    private void callHelper(String name, String descriptor) {
+        code.op(ALOAD_0);
+        code.op(ALOAD_1);
+        code.opU2(INVOKEVIRTUAL, cf.methodRef(COMPILED_PROGRAM, name, descriptor));
+    }
+
+    private static boolean isPublic(BasicNode node) {
+        return Modifier.isPublic(node.getClass().getModifiers());
+    }
+
+    private static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+}
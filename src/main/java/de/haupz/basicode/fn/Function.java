@@ -3,8 +3,6 @@ package de.haupz.basicode.fn;
 import de.haupz.basicode.ast.ExpressionNode;
 import de.haupz.basicode.interpreter.InterpreterState;
 
-import java.util.Optional;
-
 /**
  * A {@code Function} instance represents a BASIC function, defined using {@code DEF FN}. It also provides means to
  * call the respective function, which is facilitated by {@link de.haupz.basicode.ast.FnCallNode} instances.
@@ -12,9 +10,9 @@ import java.util.Optional;
 public class Function {
 
     /**
-     * The name of the argument to this function.
+     * The {@linkplain de.haupz.basicode.interpreter.VariableSlots slot} of the argument to this function.
      */
-    private final String argName;
+    private final int argSlot;
 
     /**
      * The expression embodying this function.
@@ -22,13 +20,13 @@ public class Function {
     private final ExpressionNode expression;
 
     /**
-     * Construct a function from an argument name and expression.
+     * Construct a function from an argument slot and expression.
      *
-     * @param argName the name of the function's sole argument.
+     * @param argSlot the slot of the function's sole argument.
      * @param expression the AST root representing this function.
      */
-    public Function(String argName, ExpressionNode expression) {
-        this.argName = argName;
+    public Function(int argSlot, ExpressionNode expression) {
+        this.argSlot = argSlot;
         this.expression = expression;
     }
 
@@ -40,14 +38,11 @@ public class Function {
      * @return the result of applying this function to the argument.
      */
     public Object apply(InterpreterState state, Object arg) {
-        Optional<Object> savedArg = state.getVar(argName);
-        state.setVar(argName, arg);
+        Object savedArg = state.getVar(argSlot);
+        state.setVar(argSlot, arg);
         Object result = expression.eval(state);
-        if (savedArg.isPresent()) {
-            state.setVar(argName, savedArg.get());
-        } else {
-            state.removeVar(argName);
-        }
+        // Restoring a null value removes the argument variable again if it did not exist before the call.
+        state.setVar(argSlot, savedArg);
         return result;
     }
 
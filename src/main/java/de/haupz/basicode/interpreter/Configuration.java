@@ -12,6 +12,12 @@ package de.haupz.basicode.interpreter;
  *                          outside the 0 <= x <= 1 range.
  * @param showMapKeys display debugging information when keys are pressed and mapped.
  * @param slowness slow the interpreter down by a given factor.
+ * @param compile run the program {@linkplain de.haupz.basicode.compiler.ProgramCompiler compiled to JVM bytecode}
+ *                instead of interpreting it.
+ * @param nofold do not {@linkplain de.haupz.basicode.ast.ProgramNode#foldConstants() fold constant expressions} after
+ *               parsing the program.
+ * @param frameRate the number of frames per second at which output is presented in the GUI; 0 presents every change
+ *                  immediately.
  */
 public record Configuration(
         boolean nowait,
@@ -19,9 +25,17 @@ public record Configuration(
         boolean hold,
         boolean enforceBoundaries,
         boolean showMapKeys,
-        int slowness
+        int slowness,
+        boolean compile,
+        boolean nofold,
+        int frameRate
 ) {
+    /**
+     * The default frame rate, that of a PAL display.
+     */
+    public static final int DEFAULT_FRAME_RATE = 50;
+
     public Configuration() {
-        this(false, false, false, false, false, 0);
+        this(false, false, false, false, false, 0, false, false, DEFAULT_FRAME_RATE);
     }
 }
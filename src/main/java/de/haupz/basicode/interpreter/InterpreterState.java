@@ -10,13 +10,13 @@ import de.haupz.basicode.io.BasicInput;
 import de.haupz.basicode.io.BasicOutput;
 import de.haupz.basicode.parser.Parser;
 import de.haupz.basicode.ui.BasicFrame;
+import de.haupz.basicode.ui.Sound;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.io.StringReader;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static de.haupz.basicode.interpreter.ProgramInfo.LineAndStatement;
@@ -52,10 +52,28 @@ public class InterpreterState {
     private final Configuration configuration;
 
     /**
-     * Variables used in the program. Note that variables and arrays don't share a namespace, hence the {@link #arrays}
-     * field contains the latter.
+     * The slot table of the {@link #program}, mapping variable names to indices into {@link #vars}. It is shared by all
+     * states running the program, and is not changed at run-time.
      */
-    private final Map<String, Object> vars = new HashMap<>();
+    private final VariableSlots variableSlots;
+
+    /**
+     * Slots for variable names not in the {@link #variableSlots}, which are only accessed at run-time. They follow the
+     * slots in that table.
+     */
+    private final Map<String, Integer> runtimeSlots = new HashMap<>();
+
+    /**
+     * The names of the variables with {@link #runtimeSlots}, in the order of their slots.
+     */
+    private final List<String> runtimeNames = new ArrayList<>();
+
+    /**
+     * Variables used in the program, indexed by their {@linkplain VariableSlots slots}. A {@code null} entry denotes
+     * a variable that has not been set. Note that variables and arrays don't share a namespace, hence the
+     * {@link #arrays} field contains the latter.
+     */
+    private Object[] vars;
 
     /**
      * Arrays used in the program. Note that variables and arrays don't share a namespace, hence the {@link #vars}
@@ -64,9 +82,15 @@ public class InterpreterState {
     private final Map<String, BasicArray> arrays = new HashMap<>();
 
     /**
-     * The call stack, for {@code GOSUB}/{@code RETURN} handling.
+     * The call stack, for {@code GOSUB}/{@code RETURN} handling. It holds the statement indices of the return
+     * addresses; the first {@link #callStackSize} entries are in use, the last of which is the top of the stack.
+     */
+    private int[] callStack = new int[16];
+
+    /**
+     * The number of entries on the {@link #callStack}.
      */
-    private final Stack<Integer> callStack = new Stack<>();
+    private int callStackSize = 0;
 
     /**
      * The iterator for statement retrieval from a flattened list of all statements in the program.
@@ -79,24 +103,28 @@ public class InterpreterState {
     private final ProgramInfo programInfo;
 
     /**
-     * A triple to keep track of running {@code FOR} loops.
-     *
-     * @param startIndex the index, into the {@link #program}'s statements list, of the {@code FOR} statement that is
-     *                   the head of the loop.
-     * @param end the end value of the loop iterator.
-     * @param step the step by which to increase/decrease the loop iterator.
+     * The frames of running {@code FOR} loops, indexed by the {@linkplain VariableSlots slots} of their iterator
+     * variables. For each slot, this holds the index, into the {@link #program}'s statements list, of the statement
+     * following the {@code FOR} statement that is the head of the loop, or -1 if no loop is running with that iterator
+     * variable.
      */
-    public record For(int startIndex, Number end, Number step) {}
+    private int[] loopStarts = new int[0];
 
     /**
-     * Map the names of running loops' iterator variables to their {@linkplain For loop records}.
+     * The end values of running loops' iterator variables, indexed by slot.
      */
-    private final Map<String, For> runningForLoops = new HashMap<>();
+    private double[] loopEnds = new double[0];
 
     /**
-     * If {@code true}, notifies the interpreter that it should terminate execution.
+     * The steps by which to increase/decrease running loops' iterator variables, indexed by slot.
      */
-    private boolean end = false;
+    private double[] loopSteps = new double[0];
+
+    /**
+     * If {@code true}, notifies the interpreter that it should terminate execution. This may be set from other
+     * threads, e.g., when the stop key is pressed, or when a batch run times out.
+     */
+    private volatile boolean end = false;
 
     /**
      * If {@code true}, notifies the interpreter that it needs to execute a jump.
@@ -124,6 +152,12 @@ public class InterpreterState {
      */
     private int lineJumpTarget;
 
+    /**
+     * The statement index a jump the interpreter needs to execute leads to, or -1 if the jump target is given as a
+     * {@linkplain #lineJumpTarget line number}. Used when {@link #lineJump} is {@code true}.
+     */
+    private int jumpTargetIndex = -1;
+
     /**
      * The target of a loop backedge jump the interpreter needs to execute. Used when {@link #backedge} is {@code true}.
      */
@@ -146,7 +180,8 @@ public class InterpreterState {
     private BufferedReader currentInFile;
 
     /**
-     * The "printer".
+     * The "printer". If this is {@code null} when printer output is first written, the
+     * {@linkplain de.haupz.basicode.subroutines.Subroutines#PRINTER_FILE printer file} is opened.
      */
     private PrintStream printer;
 
@@ -155,6 +190,16 @@ public class InterpreterState {
      */
     private BreakpointHandler breakpointHandler;
 
+    /**
+     * The random number generator used by {@link de.haupz.basicode.subroutines.Subroutines#gosub260 GOSUB 260}.
+     */
+    private final Random random = new Random();
+
+    /**
+     * The sound output, created when it is first used.
+     */
+    private Sound sound;
+
     /**
      * Create an interpreter state, and initialise BASICODE standard variables.
      *
@@ -169,6 +214,8 @@ public class InterpreterState {
                             BreakpointHandler breakpointHandler, Configuration configuration) {
         this.program = program;
         this.frame = frame;
+        this.variableSlots = program.getVariableSlots();
+        this.vars = new Object[variableSlots.size()];
         this.statementIterator = new StatementIterator(program.getLines());
         this.programInfo = new ProgramInfo(program.getLines());
         this.in = in;
@@ -192,8 +239,8 @@ public class InterpreterState {
     private void initialiseStandardVariables() {
         // colours
         BasicArray1D cc = new BasicArray1D(ArrayType.NUMBER, 2);
-        cc.setAt(0, -1, 6.0); // foreground: yellow
-        cc.setAt(1, -1, 1.0); // background: blue
+        cc.setAtDouble(0, -1, 6.0); // foreground: yellow
+        cc.setAtDouble(1, -1, 1.0); // background: blue
         setArray("CC", cc);
         // drawing text defaults to using the foreground colour
         setVar("CN", 0.0);
@@ -235,7 +282,20 @@ public class InterpreterState {
      * @param value the variable's new value.
      */
     public void setVar(String id, Object value) {
-        vars.put(id.toUpperCase(), value);
+        setVar(resolveVar(id), value);
+    }
+
+    /**
+     * Set a variable by its {@linkplain VariableSlots slot}.
+     *
+     * @param slot the variable's slot.
+     * @param value the variable's new value, or {@code null} to remove the variable.
+     */
+    public void setVar(int slot, Object value) {
+        if (slot >= vars.length) {
+            vars = Arrays.copyOf(vars, Math.max(slot + 1, variableSlots.size()));
+        }
+        vars[slot] = value;
     }
 
     /**
@@ -245,14 +305,67 @@ public class InterpreterState {
      * @return the variable's value wrapped in an {@link Optional}, if it exists; otherwise, {@code empty}.
      */
     public Optional<Object> getVar(String id) {
-        return Optional.ofNullable(vars.get(id.toUpperCase()));
+        int slot = lookupVar(id);
+        return slot < 0 ? Optional.empty() : Optional.ofNullable(getVar(slot));
+    }
+
+    /**
+     * Retrieve a variable by its {@linkplain VariableSlots slot}.
+     *
+     * @param slot the variable's slot.
+     * @return the variable's value, or {@code null} if it has not been set.
+     */
+    public Object getVar(int slot) {
+        return slot < vars.length ? vars[slot] : null;
+    }
+
+    /**
+     * Retrieve the {@linkplain VariableSlots slot} for a variable name, assigning one if needed. This is used by nodes
+     * that have not been through the resolution pass, e.g., conditions parsed at run-time, and by subroutines. A name
+     * that is not in the program's slot table is assigned a slot of this state only.
+     *
+     * @param id the variable's name.
+     * @return the variable's slot.
+     */
+    public int resolveVar(String id) {
+        int slot = variableSlots.lookup(id);
+        if (slot >= 0) {
+            return slot;
+        }
+        return runtimeSlots.computeIfAbsent(id.toUpperCase(), name -> {
+            runtimeNames.add(name);
+            return variableSlots.size() + runtimeNames.size() - 1;
+        });
+    }
+
+    /**
+     * Retrieve the {@linkplain VariableSlots slot} for a variable name without assigning one.
+     *
+     * @param id the variable's name.
+     * @return the variable's slot, or -1 if the name has no slot.
+     */
+    private int lookupVar(String id) {
+        int slot = variableSlots.lookup(id);
+        return slot >= 0 ? slot : runtimeSlots.getOrDefault(id.toUpperCase(), -1);
+    }
+
+    /**
+     * @param slot a variable's slot.
+     * @return the name of the variable stored in the given slot.
+     */
+    private String nameOf(int slot) {
+        int shared = variableSlots.size();
+        return slot < shared ? variableSlots.nameOf(slot) : runtimeNames.get(slot - shared);
     }
 
     /**
      * @return a stream of all variable bindings, sorted by variable name.
      */
     public Stream<Map.Entry<String, Object>> getVarStream() {
-        return vars.entrySet().stream().sorted(Map.Entry.comparingByKey());
+        return IntStream.range(0, vars.length)
+                .filter(slot -> vars[slot] != null)
+                .mapToObj(slot -> Map.entry(nameOf(slot), vars[slot]))
+                .sorted(Map.Entry.comparingByKey());
     }
 
     /**
@@ -289,14 +402,17 @@ public class InterpreterState {
      * @param id the variable's name.
      */
     public void removeVar(String id) {
-        vars.remove(id);
+        int slot = lookupVar(id);
+        if (slot >= 0) {
+            setVar(slot, null);
+        }
     }
 
     /**
      * Remove all variables.
      */
     public void clearVars() {
-        vars.clear();
+        Arrays.fill(vars, null);
     }
 
     /**
@@ -332,6 +448,26 @@ public class InterpreterState {
      */
     public void lineJumpDone() {
         lineJump = false;
+        jumpTargetIndex = -1;
+    }
+
+    /**
+     * Note that a jump to an already known statement index should be executed.
+     *
+     * @param statementIndex the index of the statement to jump to.
+     */
+    public void requestJump(int statementIndex) {
+        jumpTargetIndex = statementIndex;
+        lineJump = true;
+    }
+
+    /**
+     * @return the statement index of a jump, or -1 if the jump target is given as a
+     * {@linkplain #getLineJumpTarget() line number}. This value is valid only while {@link #isLineJumpNext()} is
+     * {@code true}.
+     */
+    public int getJumpTargetIndex() {
+        return jumpTargetIndex;
     }
 
     /**
@@ -377,70 +513,142 @@ public class InterpreterState {
      * instance.
      */
     public void pushReturnIndex() {
-        callStack.push(statementIterator.getNextIndex());
+        pushReturnIndex(statementIterator.getNextIndex());
+    }
+
+    /**
+     * Push a "return address" on the call stack.
+     *
+     * @param index the statement index to return to.
+     */
+    public void pushReturnIndex(int index) {
+        if (callStackSize == callStack.length) {
+            callStack = Arrays.copyOf(callStack, 2 * callStack.length);
+        }
+        callStack[callStackSize++] = index;
     }
 
     /**
-     * @return the statement index from the top of the call stack.
+     * @return the statement index from the top of the call stack, which is removed from the stack.
+     * @throws IllegalStateException if the call stack is empty.
      */
     public int getReturnIndex() {
-        return callStack.pop();
+        if (callStackSize == 0) {
+            throw new IllegalStateException("RETURN without GOSUB");
+        }
+        return callStack[--callStackSize];
     }
 
     /**
      * Clear the entire call stack.
      */
     public void clearCallStack() {
-        callStack.removeAllElements();
+        callStackSize = 0;
     }
 
     /**
-     * @return the interpreter's call stack.
+     * @return a copy of the interpreter's call stack, from the bottom to the top.
      */
-    public Stack<Integer> getCallStack() {
-        return callStack;
+    public int[] getCallStack() {
+        return Arrays.copyOf(callStack, callStackSize);
     }
 
     /**
      * Check whether a loop using a given iterator variable is currently running.
      *
-     * @param id the name of the iterator variable.
-     * @return {@code true} if the variable name is an iterator variable in a running {@code FOR} loop.
+     * @param slot the {@linkplain VariableSlots slot} of the iterator variable.
+     * @return {@code true} if the variable is an iterator variable in a running {@code FOR} loop.
+     */
+    public boolean isRunningLoop(int slot) {
+        return slot < loopStarts.length && loopStarts[slot] >= 0;
+    }
+
+    /**
+     * Note the start of a {@code FOR} loop by memorising its start, end value, and step width in the frame for its
+     * iterator variable.
+     *
+     * @param slot the {@linkplain VariableSlots slot} of the iterator variable used in the loop.
+     * @param end the end value of the loop's iterator variable.
+     * @param step the step width by which the iterator variable is to be incremented/decremented after each iteration.
      */
-    public boolean isRunningLoop(String id) {
-        return runningForLoops.containsKey(id);
+    public void startLoop(int slot, double end, double step) {
+        startLoop(slot, statementIterator.getNextIndex(), end, step);
     }
 
     /**
-     * Note the start of a {@code FOR} loop by memorising its iterator variable, end value, and step width in a
-     * {@link For} record.
+     * Note the start of a {@code FOR} loop whose body begins at the given statement index.
      *
-     * @param id the name of the iterator variable used in the loop.
+     * @param slot the {@linkplain VariableSlots slot} of the iterator variable used in the loop.
+     * @param start the index of the first statement of the loop's body.
      * @param end the end value of the loop's iterator variable.
      * @param step the step width by which the iterator variable is to be incremented/decremented after each iteration.
      */
-    public void startLoop(String id, Number end, Number step) {
-        runningForLoops.put(id, new For(statementIterator.getNextIndex(), end, step));
+    public void startLoop(int slot, int start, double end, double step) {
+        if (slot >= loopStarts.length) {
+            int size = Math.max(slot + 1, variableSlots.size());
+            int oldSize = loopStarts.length;
+            loopStarts = Arrays.copyOf(loopStarts, size);
+            Arrays.fill(loopStarts, oldSize, size, -1);
+            loopEnds = Arrays.copyOf(loopEnds, size);
+            loopSteps = Arrays.copyOf(loopSteps, size);
+        }
+        loopStarts[slot] = start;
+        loopEnds[slot] = end;
+        loopSteps[slot] = step;
     }
 
     /**
      * Note that the loop with the given iterator variable has ended.
      *
-     * @param id the name of the iterator variable.
+     * @param slot the {@linkplain VariableSlots slot} of the iterator variable.
      */
-    public void stopLoop(String id) {
-        runningForLoops.remove(id);
+    public void stopLoop(int slot) {
+        loopStarts[slot] = -1;
     }
 
     /**
-     * Retrieve the {@link For} record for a running loop with the given iterator variable.
+     * Decide whether a running loop needs another iteration after its iterator variable has been advanced. If it does
+     * not, the loop is {@linkplain #stopLoop(int) stopped}.
      *
-     * @param id the iterator variable for which the loop information is to be retrieved.
-     * @return the corresponding {@link For} record, or {@code null}, if there is no running loop with the given
-     * iterator variable.
+     * @param slot the {@linkplain VariableSlots slot} of the iterator variable of a running loop.
+     * @param value the advanced value of the iterator variable.
+     * @return the index of the first statement of the loop's body if another iteration is due, or -1 if the loop has
+     * ended.
+     */
+    public int continueLoop(int slot, double value) {
+        double step = loopSteps[slot];
+        double end = loopEnds[slot];
+        // Special case: if the step width is 0, reaching the target value terminates the loop.
+        boolean shouldEnd = step == 0 ? value == end : step > 0 ? value > end : value < end;
+        if (shouldEnd) {
+            stopLoop(slot);
+            return -1;
+        }
+        return loopStarts[slot];
+    }
+
+    /**
+     * @param slot the {@linkplain VariableSlots slot} of the iterator variable of a running loop.
+     * @return the index of the first statement of the loop's body.
+     */
+    public int getLoopStart(int slot) {
+        return loopStarts[slot];
+    }
+
+    /**
+     * @param slot the {@linkplain VariableSlots slot} of the iterator variable of a running loop.
+     * @return the end value of the loop's iterator variable.
+     */
+    public double getLoopEnd(int slot) {
+        return loopEnds[slot];
+    }
+
+    /**
+     * @param slot the {@linkplain VariableSlots slot} of the iterator variable of a running loop.
+     * @return the step width of the loop's iterator variable.
      */
-    public For getLoop(String id) {
-        return runningForLoops.get(id);
+    public double getLoopStep(int slot) {
+        return loopSteps[slot];
     }
 
     /**
@@ -592,6 +800,41 @@ public class InterpreterState {
         }
     }
 
+    /**
+     * Release all resources held by the interpreter state: close all {@linkplain #closeFiles() open files}, and the
+     * {@linkplain #getSound() sound output}.
+     */
+    public void releaseResources() {
+        closeFiles();
+        if (null != sound) {
+            sound.close();
+        }
+    }
+
+    /**
+     * @return the random number generator for this interpreter.
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * @return the sound output for this interpreter.
+     */
+    public Sound getSound() {
+        if (null == sound) {
+            sound = new Sound();
+        }
+        return sound;
+    }
+
+    /**
+     * @return the root node of the program whose state this instance represents.
+     */
+    public ProgramNode getProgram() {
+        return program;
+    }
+
     /**
      * @return the iterator over the flattened list of statements in the program.
      */
@@ -621,17 +864,19 @@ public class InterpreterState {
      * @return the stack dump.
      */
     public String getStackDump(boolean suppressNativeFrame) {
-        Stack<Integer> stack = getCallStack();
         String stackDump = "";
         if (!suppressNativeFrame) {
             LineAndStatement las = getHere();
             stackDump = stackTraceEntry(las, getStatementIterator().getNextIndex() - 1);
         }
-        if (!stack.isEmpty()) {
-            stackDump += (!suppressNativeFrame?"\n":"") + stack.reversed().stream().map(stmt -> {
+        if (callStackSize > 0) {
+            StringJoiner frames = new StringJoiner("\n");
+            for (int i = callStackSize - 1; i >= 0; --i) {
+                int stmt = callStack[i];
                 LineAndStatement sdlas = getProgramInfo().locateStatement(stmt - 1);
-                return stackTraceEntry(sdlas, stmt - 1);
-            }).collect(Collectors.joining("\n"));
+                frames.add(stackTraceEntry(sdlas, stmt - 1));
+            }
+            stackDump += (!suppressNativeFrame?"\n":"") + frames;
         }
         return stackDump;
     }
@@ -664,7 +909,7 @@ public class InterpreterState {
             Optional<BasicArray> oods = getArray("OD$");
             if (oods.isPresent()) {
                 Object[] oodsObjects = oods.get().getRawData();
-                String[] oodsStrings = Arrays.copyOf(oodsObjects, oodsObjects.length, String[].class);
+                String[] oodsStrings = Arrays.stream(oodsObjects).map(Object::toString).toArray(String[]::new);
                 return getValues(oodsStrings);
             }
         }
@@ -726,8 +971,7 @@ public class InterpreterState {
      * @return a textual representation of the stack trace entry.
      */
     private String stackTraceEntry(LineAndStatement las, int statementIndex) {
-        LineNode line = program.getLines().stream().
-                filter(l -> l.getLineNumber() == las.line()).findFirst().orElse(null);
+        LineNode line = getProgramInfo().getLine(las.line());
         String pointer = "-".repeat(getStatementIterator().peek(statementIndex).getStartPosition()) +"^";
         return String.format("at line %d, statement %d\n%s\n%s", las.line(), las.statement(), line.getLineText(), pointer);
     }
@@ -761,8 +1005,8 @@ public class InterpreterState {
         if (oc.isEmpty()) {
             return true;
         }
-        String ocs = (String) oc.get();
-        Parser parser = new Parser(new StringReader(ocs));
+        String ocs = oc.get().toString();
+        Parser parser = new Parser(ocs);
         ExpressionNode condition = parser.expression();
         Object cond = condition.eval(this);
         return cond instanceof Number n && n.doubleValue() != 0.0;
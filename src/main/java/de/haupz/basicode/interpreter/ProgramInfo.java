@@ -11,11 +11,6 @@ import java.util.stream.Stream;
  */
 public class ProgramInfo {
 
-    /**
-     * A map of line numbers to the corresponding source code lines.
-     */
-    private Map<Integer, LineNode> lines = new HashMap<>();
-
     /**
      * A "code address", comprising of a line and statement index on that line.
      *
@@ -25,16 +20,40 @@ public class ProgramInfo {
     public record LineAndStatement(int line, int statement) {}
 
     /**
-     * Map BASIC line numbers to indices in a {@link StatementIterator#statements flattened statements list}. The
-     * statement index for any line number is the index of the first statement on the respective line.
+     * The line numbers of the program, sorted in ascending order. The arrays {@link #lineNodes} and
+     * {@link #lineStartIndex} are indexed in the same way, so that a line number's position in this array, found by
+     * binary search, is the key to all information about the line.
+     */
+    private final int[] lineNumbers;
+
+    /**
+     * The source code lines, in the order of {@link #lineNumbers}.
      */
-    private Map<Integer, Integer> lineNumberToStatementIndex = new HashMap<>();
+    private final LineNode[] lineNodes;
 
     /**
-     * Map statement indices from a {@link StatementIterator#statements flattened statements list} back to line numbers
-     * and statements.
+     * The indices in a {@link StatementIterator#statements flattened statements list} of the first statements of the
+     * lines, in the order of {@link #lineNumbers}.
      */
-    private Map<Integer, LineAndStatement> statementIndexToLineNumberAndStatement = new HashMap<>();
+    private final int[] lineStartIndex;
+
+    /**
+     * For each index in a {@link StatementIterator#statements flattened statements list}, the number of the line the
+     * statement is on.
+     */
+    private final int[] lineOfStatement;
+
+    /**
+     * For each index in a {@link StatementIterator#statements flattened statements list}, the 0-based index of the
+     * statement on its line.
+     */
+    private final int[] statementOfStatement;
+
+    /**
+     * For each index in a {@link StatementIterator#statements flattened statements list}, the index of the first
+     * statement on the following line. For statements on the last line, this is the total number of statements.
+     */
+    private final int[] nextLineStartIndex;
 
     /**
      * The list of watchpoints for this BASICODE program.
@@ -47,25 +66,68 @@ public class ProgramInfo {
     private List<Breakpoint> breakpoints = new ArrayList<>();
 
     /**
-     * Populate the {@link #lineNumberToStatementIndex} and {@link #statementIndexToLineNumberAndStatement} maps by
-     * processing all lines from the program.
+     * The {@link StatementIterator#statements flattened statement indices} at which at least one breakpoint is set.
+     */
+    private final BitSet breakpointStatements = new BitSet();
+
+    /**
+     * Map {@link StatementIterator#statements flattened statement indices} to the breakpoints set on them. Only
+     * indices marked in {@link #breakpointStatements} have an entry.
+     */
+    private final Map<Integer, List<Breakpoint>> breakpointsByStatement = new HashMap<>();
+
+    /**
+     * This is {@code true} as soon as a breakpoint or watchpoint has been registered. As long as it is {@code false},
+     * the interpreter does not need to check for either.
+     */
+    private boolean debugHooks = false;
+
+    /**
+     * Populate the line and statement tables by processing all lines from the program.
      *
      * @param lines the lines of the program this info object will be representing.
      */
     public ProgramInfo(List<LineNode> lines) {
+        int nStatements = lines.stream().mapToInt(line -> line.getStatements().size()).sum();
+        lineOfStatement = new int[nStatements];
+        statementOfStatement = new int[nStatements];
+        nextLineStartIndex = new int[nStatements];
+        int[] starts = new int[lines.size()];
         for (int i = 0, totalStatements = 0; i < lines.size(); ++i) {
             LineNode line = lines.get(i);
-            this.lines.put(line.getLineNumber(), line);
             // A new line: the index of its first statement is the current size of the statements array.
-            lineNumberToStatementIndex.put(line.getLineNumber(), totalStatements);
-            totalStatements += line.getStatements().size();
+            starts[i] = totalStatements;
             int nStatementsOnLine = line.getStatements().size();
-            int lineNum = line.getLineNumber();
+            totalStatements += nStatementsOnLine;
             for (int s = 0; s < nStatementsOnLine; ++s) {
-                statementIndexToLineNumberAndStatement.put(
-                        totalStatements - nStatementsOnLine + s, new LineAndStatement(lineNum, s));
+                lineOfStatement[starts[i] + s] = line.getLineNumber();
+                statementOfStatement[starts[i] + s] = s;
+                nextLineStartIndex[starts[i] + s] = totalStatements;
+            }
+        }
+
+        // Sort the lines by number. The sort is stable, so that, of several lines with the same number, the last one
+        // in the source code can take precedence.
+        Integer[] order = new Integer[lines.size()];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.comparingInt(i -> lines.get(i).getLineNumber()));
+        int[] numbers = new int[lines.size()];
+        LineNode[] nodes = new LineNode[lines.size()];
+        int[] startIndices = new int[lines.size()];
+        int n = 0;
+        for (int i : order) {
+            int lineNumber = lines.get(i).getLineNumber();
+            if (n > 0 && numbers[n - 1] == lineNumber) {
+                --n;
             }
+            numbers[n] = lineNumber;
+            nodes[n] = lines.get(i);
+            startIndices[n] = starts[i];
+            ++n;
         }
+        lineNumbers = Arrays.copyOf(numbers, n);
+        lineNodes = Arrays.copyOf(nodes, n);
+        lineStartIndex = Arrays.copyOf(startIndices, n);
     }
 
     /**
@@ -73,9 +135,14 @@ public class ProgramInfo {
      *                   {@link StatementIterator#statements flattened statements list} where the line's first statement
      *                   is found.
      * @return the index of that statement.
+     * @throws IllegalStateException if the line does not exist.
      */
     public int getLineStartStamentIndex(int lineNumber) {
-        return lineNumberToStatementIndex.get(lineNumber);
+        int pos = Arrays.binarySearch(lineNumbers, lineNumber);
+        if (pos < 0) {
+            throw new IllegalStateException("line not found: " + lineNumber);
+        }
+        return lineStartIndex[pos];
     }
 
     /**
@@ -84,7 +151,27 @@ public class ProgramInfo {
      * @return the respective line number and line-local statement index.
      */
     public LineAndStatement locateStatement(int flatIndex) {
-        return statementIndexToLineNumberAndStatement.get(flatIndex);
+        if (flatIndex < 0 || flatIndex >= lineOfStatement.length) {
+            return null;
+        }
+        return new LineAndStatement(lineOfStatement[flatIndex], statementOfStatement[flatIndex]);
+    }
+
+    /**
+     * @param flatIndex an index into a {@link StatementIterator#statements flattened statements list}.
+     * @return the number of the line the statement at the given index is on.
+     */
+    public int getLineOfStatement(int flatIndex) {
+        return lineOfStatement[flatIndex];
+    }
+
+    /**
+     * @param flatIndex an index into a {@link StatementIterator#statements flattened statements list}.
+     * @return the index of the first statement on the line following that of the given statement. If the statement
+     * is on the last line, this is the total number of statements.
+     */
+    public int getNextLineStartIndex(int flatIndex) {
+        return nextLineStartIndex[flatIndex];
     }
 
     /**
@@ -96,6 +183,7 @@ public class ProgramInfo {
     public int registerWatchpoint(ExpressionNode condition) {
         int id = watchpoints.size() + 1;
         watchpoints.add(new Watchpoint(id, condition));
+        debugHooks = true;
         return id;
     }
 
@@ -117,7 +205,12 @@ public class ProgramInfo {
      */
     public int registerBreakpoint(int line, int statementIndex, List<String> displayInfo, Optional<ExpressionNode> condition) {
         int id = breakpoints.size() + 1;
-        breakpoints.add(new Breakpoint(id, line, statementIndex, displayInfo, condition));
+        Breakpoint breakpoint = new Breakpoint(id, line, statementIndex, displayInfo, condition);
+        breakpoints.add(breakpoint);
+        int flatIndex = getLineStartStamentIndex(line) + statementIndex;
+        breakpointStatements.set(flatIndex);
+        breakpointsByStatement.computeIfAbsent(flatIndex, i -> new ArrayList<>()).add(breakpoint);
+        debugHooks = true;
         return id;
     }
 
@@ -129,14 +222,18 @@ public class ProgramInfo {
     }
 
     /**
-     * @return the breakpoints (if any) for a given line number and statement index.
-     *
-     * @param here the current line and statement index.
+     * @param flatIndex an index into a {@link StatementIterator#statements flattened statements list}.
+     * @return the breakpoints (if any) set on the statement at the given index.
+     */
+    public List<Breakpoint> breakpointsAt(int flatIndex) {
+        return breakpointStatements.get(flatIndex) ? breakpointsByStatement.get(flatIndex) : List.of();
+    }
+
+    /**
+     * @return {@code true} if any breakpoint or watchpoint has been registered for this BASICODE program.
      */
-    public List<Breakpoint> breakpointsForHere(LineAndStatement here) {
-        return breakpoints.stream()
-                .filter(b -> b.getLine() == here.line && b.getStatementIndex() == here.statement)
-                .toList();
+    public boolean hasDebugHooks() {
+        return debugHooks;
     }
 
     /**
@@ -144,7 +241,7 @@ public class ProgramInfo {
      * @return {@code true} iff the given line number exists in this program.
      */
     public boolean hasLineNumber(int line) {
-        return lineNumberToStatementIndex.containsKey(line);
+        return Arrays.binarySearch(lineNumbers, line) >= 0;
     }
 
     /**
@@ -152,7 +249,8 @@ public class ProgramInfo {
      * @return the line node for the given line number.
      */
     public LineNode getLine(int line) {
-        return lines.get(line);
+        int pos = Arrays.binarySearch(lineNumbers, line);
+        return pos < 0 ? null : lineNodes[pos];
     }
 
 }
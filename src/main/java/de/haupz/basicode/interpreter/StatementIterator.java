@@ -48,6 +48,16 @@ public class StatementIterator {
         index = idx;
     }
 
+    /**
+     * Position the iterator as if the statement at the given index had just been retrieved via {@link #getNext()}.
+     * This is for code that runs statements without retrieving them from the iterator, and does not check bounds.
+     *
+     * @param idx the index of the statement about to be run.
+     */
+    public void setCurrentIndex(int idx) {
+        index = idx + 1;
+    }
+
     /**
      * @return {@code true} iff there is a next statement to retrieve.
      */
@@ -55,6 +65,14 @@ public class StatementIterator {
         return index < statements.size();
     }
 
+    /**
+     * @param idx an index to check.
+     * @return {@code true} iff the given index is within the bounds of the flattened statements list.
+     */
+    public boolean isValidIndex(int idx) {
+        return idx >= 0 && idx < statements.size();
+    }
+
     /**
      * @return the next statement from the current iterator position.
      */
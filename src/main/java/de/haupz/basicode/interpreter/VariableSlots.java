@@ -0,0 +1,91 @@
+package de.haupz.basicode.interpreter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A table assigning each distinct variable name used in a program a fixed slot index. Variable values are stored in
+ * an array in the {@linkplain InterpreterState interpreter state}, indexed by these slots.</p>
+ *
+ * <p>Slots are assigned by the {@linkplain de.haupz.basicode.ast.BasicNode#resolveVariables(VariableSlots) resolution
+ * pass} run over a program after parsing. The table is then {@linkplain #seal() sealed}, so that it is only read while
+ * the program runs, and can be shared by interpreter states running the program on several threads. Names that are
+ * only accessed at run-time (e.g., the BASICODE standard variables set by
+ * {@linkplain de.haupz.basicode.subroutines.Subroutines subroutines}) are assigned slots by each
+ * {@linkplain InterpreterState#resolveVar(String) interpreter state}, following those in this table.</p>
+ */
+public class VariableSlots {
+
+    /**
+     * Map variable names to their slot indices.
+     */
+    private final Map<String, Integer> slots = new HashMap<>();
+
+    /**
+     * The variable names, indexed by slot.
+     */
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Whether the table is sealed, i.e., no new slots are assigned.
+     */
+    private boolean sealed = false;
+
+    /**
+     * Retrieve the slot for a variable name, assigning a new one if the name has not been seen before. Note that the
+     * variable name will be converted to upper case if it isn't.
+     *
+     * @param id the variable's name.
+     * @return the variable's slot index.
+     * @throws IllegalStateException if the name has not been seen before, and the table is {@linkplain #seal() sealed}.
+     */
+    public int slotFor(String id) {
+        String name = id.toUpperCase();
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            if (sealed) {
+                throw new IllegalStateException("no slot for variable " + name);
+            }
+            slot = names.size();
+            names.add(name);
+            slots.put(name, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Retrieve the slot for a variable name without assigning a new one. Note that the variable name will be converted
+     * to upper case if it isn't.
+     *
+     * @param id the variable's name.
+     * @return the variable's slot index, or -1 if the name has no slot.
+     */
+    public int lookup(String id) {
+        return slots.getOrDefault(id.toUpperCase(), -1);
+    }
+
+    /**
+     * @param slot a slot index.
+     * @return the name of the variable stored in the given slot.
+     */
+    public String nameOf(int slot) {
+        return names.get(slot);
+    }
+
+    /**
+     * @return the number of slots assigned so far.
+     */
+    public int size() {
+        return names.size();
+    }
+
+    /**
+     * Stop assigning new slots. From now on, the table is only read.
+     */
+    public void seal() {
+        sealed = true;
+    }
+
+}
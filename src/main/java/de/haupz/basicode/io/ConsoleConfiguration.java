@@ -1,8 +1,7 @@
 package de.haupz.basicode.io;
 
-import de.haupz.basicode.ui.BasicContainer;
-
 import java.awt.*;
+import java.io.InputStream;
 
 /**
  * A set of configuration options for the graphical console.
@@ -42,16 +41,39 @@ public final class ConsoleConfiguration {
     public static final int HEIGHT = C_HEIGHT * LINES;
 
     /**
-     * The font used to render text in text mode and graphics mode.
+     * Holder for the font, so that it is only loaded when it is first needed. Loading the font takes a considerable
+     * part of the startup time, and headless runs mostly don't need it at all.
+     */
+    private static final class FontHolder {
+        static final Font FONT;
+
+        static {
+            try (InputStream in = ConsoleConfiguration.class.getResourceAsStream("/amstrad_cpc464.ttf")) {
+                FONT = Font.createFont(Font.TRUETYPE_FONT, in).deriveFont(24.0f);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * @return the font used to render text in text mode and graphics mode. It is loaded on the first call.
+     */
+    public static Font font() {
+        return FontHolder.FONT;
+    }
+
+    /**
+     * Initialise the AWT toolkit, which loads the AWT native libraries, and, optionally, the font now, rather than when
+     * they are first used. The colours are initialised along with this class. This is meant to be called from a
+     * background thread during startup.
+     *
+     * @param withFont whether to load the font as well.
      */
-    public static final Font FONT;
-
-    static {
-        try {
-            FONT = Font.createFont(Font.TRUETYPE_FONT,
-                    BasicContainer.class.getResourceAsStream("/amstrad_cpc464.ttf")).deriveFont(24.0f);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    public static void preload(boolean withFont) {
+        Toolkit.getDefaultToolkit();
+        if (withFont) {
+            font();
         }
     }
 
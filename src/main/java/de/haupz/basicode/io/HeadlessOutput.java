@@ -0,0 +1,123 @@
+package de.haupz.basicode.io;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.PrintStream;
+
+import static de.haupz.basicode.io.ConsoleConfiguration.*;
+
+/**
+ * <p>An implementation of the {@link BasicOutput} interface for running programs without a display. Text output goes
+ * to a {@link PrintStream}, as in {@link PrintStreamOutput}. Graphics mode is supported by means of an in-memory
+ * image, so that the graphics subroutines ({@code GOSUB 600} to {@code GOSUB 650}) work as they do in the GUI. The
+ * image can be {@linkplain #getImage() inspected} after the program has run.</p>
+ *
+ * <p>No windows are opened, and no AWT components are created.</p>
+ */
+public class HeadlessOutput extends PrintStreamOutput {
+
+    /**
+     * The representation of the display in graphics mode. It is only allocated once graphics mode is first used.
+     */
+    private BufferedImage image;
+
+    /**
+     * The background colour for graphics mode.
+     */
+    private Color backgroundColour = COLOR_MAP[1]; // initially, blue
+
+    /**
+     * The foreground colour for graphics mode.
+     */
+    private Color foregroundColour = COLOR_MAP[6]; // initially, yellow
+
+    /**
+     * The cursor in graphics mode.
+     */
+    private GraphicsCursor graphicsCursor = new GraphicsCursor(0.0, 0.0);
+
+    public HeadlessOutput(PrintStream ps) {
+        super(ps);
+    }
+
+    /**
+     * Switch to graphics mode, and clear the image.
+     */
+    @Override
+    public void graphicsMode() {
+        Graphics2D g2 = (Graphics2D) getImage().getGraphics();
+        g2.setBackground(backgroundColour);
+        g2.clearRect(0, 0, ConsoleConfiguration.WIDTH, ConsoleConfiguration.HEIGHT);
+        g2.dispose();
+    }
+
+    /**
+     * @return the graphics content in graphics mode.
+     */
+    @Override
+    public BufferedImage getImage() {
+        if (image == null) {
+            image = new BufferedImage(ConsoleConfiguration.WIDTH, ConsoleConfiguration.HEIGHT,
+                    BufferedImage.TYPE_INT_RGB);
+        }
+        return image;
+    }
+
+    /**
+     * @return the font used to draw text in graphics mode.
+     */
+    @Override
+    public Font getFont() {
+        return font();
+    }
+
+    @Override
+    public void setColours(int fg, int bg) {
+        ensureColourRange("foreground", fg);
+        ensureColourRange("background", bg);
+        foregroundColour = COLOR_MAP[fg];
+        backgroundColour = COLOR_MAP[bg];
+    }
+
+    /**
+     * Colours have no effect on text output, but are checked like in the GUI.
+     */
+    @Override
+    public void setPrintColours(int fg, int bg) {
+        ensureColourRange("foreground", fg);
+        ensureColourRange("background", bg);
+    }
+
+    @Override
+    public Color getBackgroundColour() {
+        return backgroundColour;
+    }
+
+    @Override
+    public Color getForegroundColour() {
+        return foregroundColour;
+    }
+
+    @Override
+    public void setGraphicsCursor(double h, double v) {
+        graphicsCursor = new GraphicsCursor(h, v);
+    }
+
+    @Override
+    public GraphicsCursor getGraphicsCursor() {
+        return graphicsCursor;
+    }
+
+    /**
+     * Helper: ensure a colour number is in the allowed range.
+     *
+     * @param name the name of the colour (foreground, background), for debugging purposes.
+     * @param c the colour code to test.
+     */
+    private static void ensureColourRange(String name, int c) {
+        if (c < 0 || c >= N_COLORS) {
+            throw new IllegalStateException(name + " colour out of range: " + c);
+        }
+    }
+
+}
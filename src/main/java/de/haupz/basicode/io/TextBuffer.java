@@ -6,8 +6,11 @@ import java.awt.*;
 import java.util.Arrays;
 
 /**
- * A buffer for the contents of the BASICODE console when it is in text mode. The buffer stores text as well as
- * information about whether each of the characters is printed in normal or reverse mode.
+ * <p>A buffer for the contents of the BASICODE console when it is in text mode. The buffer stores text as well as
+ * information about whether each of the characters is printed in normal or reverse mode.</p>
+ *
+ * <p>The buffer also keeps track of which of its cells have changed since the changes were last
+ * {@linkplain #drainDirtyRegions(DirtyRegionConsumer) drained}, so that a display only needs to redraw those.</p>
  */
 public class TextBuffer {
 
@@ -66,12 +69,47 @@ public class TextBuffer {
      */
     private Color curForegroundColour;
 
+    /**
+     * For each line, the first column that has changed since the last time dirty regions were drained. For a line
+     * without changes, this is the number of columns.
+     */
+    private final int[] dirtyFrom;
+
+    /**
+     * For each line, the column after the last one that has changed since the last time dirty regions were drained.
+     * For a line without changes, this is 0.
+     */
+    private final int[] dirtyTo;
+
+    /**
+     * {@code true} if any line has changed since the last time dirty regions were drained.
+     */
+    private boolean dirty;
+
+    /**
+     * A receiver of the regions of a text buffer that have changed. Coordinates are given in cells, not pixels.
+     */
+    @FunctionalInterface
+    public interface DirtyRegionConsumer {
+        /**
+         * Accept a changed region.
+         *
+         * @param column the first column of the region.
+         * @param line the first line of the region.
+         * @param width the number of columns in the region.
+         * @param height the number of lines in the region.
+         */
+        void accept(int column, int line, int width, int height);
+    }
+
     public TextBuffer(int lines, int columns, Color backgroundColour, Color foregroundColour) {
         this.lines = lines;
         this.columns = columns;
         this.textBuffer = new char[lines][columns];
         this.foregroundColours = new Color[lines][columns];
         this.backgroundColours = new Color[lines][columns];
+        this.dirtyFrom = new int[lines];
+        this.dirtyTo = new int[lines];
         this.curBackgroundColour = backgroundColour;
         this.curForegroundColour = foregroundColour;
         clear();
@@ -89,6 +127,68 @@ public class TextBuffer {
         }
         curLine = 0;
         curColumn = 0;
+        markAllDirty();
+    }
+
+    /**
+     * Record that some cells in a line have changed.
+     *
+     * @param line the line.
+     * @param from the first changed column.
+     * @param to the column after the last changed one.
+     */
+    private void markDirty(int line, int from, int to) {
+        dirtyFrom[line] = Math.min(dirtyFrom[line], from);
+        dirtyTo[line] = Math.max(dirtyTo[line], to);
+        dirty = true;
+    }
+
+    /**
+     * Record that the entire buffer has changed.
+     */
+    private void markAllDirty() {
+        Arrays.fill(dirtyFrom, 0);
+        Arrays.fill(dirtyTo, columns);
+        dirty = true;
+    }
+
+    /**
+     * @return {@code true} if any cells have changed since the last time dirty regions were drained.
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Pass the regions that have changed since the last call to this method to a consumer, and mark the entire buffer
+     * as unchanged. Each run of consecutive changed lines is passed as one rectangle, spanning the columns changed in
+     * any of these lines.
+     *
+     * @param consumer the consumer to receive the changed regions.
+     */
+    public void drainDirtyRegions(DirtyRegionConsumer consumer) {
+        if (!dirty) {
+            return;
+        }
+        int l = 0;
+        while (l < lines) {
+            if (dirtyTo[l] == 0) {
+                ++l;
+                continue;
+            }
+            int first = l;
+            int from = columns;
+            int to = 0;
+            while (l < lines && dirtyTo[l] != 0) {
+                from = Math.min(from, dirtyFrom[l]);
+                to = Math.max(to, dirtyTo[l]);
+                dirtyFrom[l] = columns;
+                dirtyTo[l] = 0;
+                ++l;
+            }
+            consumer.accept(from, first, to - from, l - first);
+        }
+        dirty = false;
     }
 
     /**
@@ -129,9 +229,11 @@ public class TextBuffer {
                 }
                 textBuffer[curLine][curColumn] = ' ';
                 setColoursAt(curLine, curColumn, r);
+                markDirty(curLine, curColumn, curColumn + 1);
             } else {
                 textBuffer[curLine][curColumn] = c;
                 setColoursAt(curLine, curColumn, r);
+                markDirty(curLine, curColumn, curColumn + 1);
                 curColumn++;
                 if (curColumn == columns) {
                     // wrap around if need be
@@ -174,6 +276,7 @@ public class TextBuffer {
                     r ? curBackgroundColour : curForegroundColour);
             Arrays.fill(backgroundColours[curLine], curColumn, curColumn + chunkLength,
                     r ? curForegroundColour : curBackgroundColour);
+            markDirty(curLine, curColumn, curColumn + chunkLength);
             curColumn += chunkLength;
             if (curColumn == columns) {
                 // wrap around if need be
@@ -232,6 +335,7 @@ public class TextBuffer {
             Arrays.fill(foregroundColours[lines-1], curForegroundColour);
             Arrays.fill(backgroundColours[lines-1], curBackgroundColour);
             curLine--;
+            markAllDirty();
         }
     }
 
@@ -0,0 +1,101 @@
+package de.haupz.basicode.parser;
+
+import java.util.Arrays;
+
+/**
+ * <p>A case-insensitive trie over the {@linkplain Symbol#text texts} of all keyword symbols, used by the {@link Lexer}
+ * to recognise keywords directly in the source code, without allocating.</p>
+ *
+ * <p>The trie is stored in a flat array: the children of node {@code n} are found at {@code n * SPAN + (c - FIRST)}
+ * for the upper-case character {@code c}. Node 0 is the root; a child entry of 0 means there is no child.</p>
+ */
+final class KeywordTrie {
+
+    /**
+     * The lowest character occurring in keywords.
+     */
+    private static final char FIRST = '$';
+
+    /**
+     * The number of characters from {@link #FIRST} up to and including {@code 'Z'}, the highest character occurring in
+     * keywords.
+     */
+    private static final int SPAN = 'Z' - FIRST + 1;
+
+    /**
+     * The child node table.
+     */
+    private final int[] children;
+
+    /**
+     * For each node, the keyword symbol ending at that node, or {@code null}.
+     */
+    private final Symbol[] accept;
+
+    /**
+     * Build the trie for all symbols that have a text.
+     */
+    KeywordTrie() {
+        int maxNodes = 1 + Arrays.stream(Symbol.values()).mapToInt(s -> s.text.length()).sum();
+        int[] nodes = new int[maxNodes * SPAN];
+        Symbol[] symbols = new Symbol[maxNodes];
+        int nNodes = 1;
+        for (Symbol s : Symbol.values()) {
+            if (s.text.isEmpty()) {
+                continue;
+            }
+            int node = 0;
+            for (int i = 0; i < s.text.length(); ++i) {
+                int slot = node * SPAN + index(s.text.charAt(i));
+                if (nodes[slot] == 0) {
+                    nodes[slot] = nNodes++;
+                }
+                node = nodes[slot];
+            }
+            // Of several symbols with the same text, the first one takes precedence.
+            if (symbols[node] == null) {
+                symbols[node] = s;
+            }
+        }
+        children = Arrays.copyOf(nodes, nNodes * SPAN);
+        accept = Arrays.copyOf(symbols, nNodes);
+    }
+
+    /**
+     * @param c an upper-case character.
+     * @return the index of the character in a node's children, or -1 if no keyword contains it.
+     */
+    private static int index(char c) {
+        return c >= FIRST && c <= 'Z' ? c - FIRST : -1;
+    }
+
+    /**
+     * Find the keyword at a position in the source code, ignoring case. If several keywords match, e.g., because one
+     * is a prefix of another, the one declared first in {@link Symbol} is returned.
+     *
+     * @param source the source code.
+     * @param pos the position at which the keyword starts.
+     * @param end the position at which the source code ends, exclusive.
+     * @return the keyword symbol, or {@link Symbol#None} if there is no keyword at the position.
+     */
+    Symbol match(CharSequence source, int pos, int end) {
+        Symbol match = Symbol.None;
+        int node = 0;
+        for (int i = pos; i < end; ++i) {
+            int index = index(Character.toUpperCase(source.charAt(i)));
+            if (index < 0) {
+                break;
+            }
+            node = children[node * SPAN + index];
+            if (node == 0) {
+                break;
+            }
+            Symbol s = accept[node];
+            if (s != null && (match == Symbol.None || s.ordinal() < match.ordinal())) {
+                match = s;
+            }
+        }
+        return match;
+    }
+
+}
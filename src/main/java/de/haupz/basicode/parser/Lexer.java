@@ -1,33 +1,38 @@
 package de.haupz.basicode.parser;
 
-import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.CharBuffer;
 import java.util.Arrays;
-import java.util.List;
-import java.util.stream.Collectors;
 
 import static de.haupz.basicode.parser.Symbol.*;
 
 /**
- * A lexer for BASICODE.
+ * <p>A lexer for BASICODE.</p>
+ *
+ * <p>The lexer works directly on the source code, which is held in memory in its entirety. Symbols are represented by
+ * their start and end positions in the source code; their {@linkplain #getText() text} is only extracted on
+ * request.</p>
  */
 public class Lexer {
 
     /**
-     * The input reader. It represents one complete BASIC program.
+     * The source code being lexed. It represents one complete BASIC program.
      */
-    private final BufferedReader in;
+    private final CharSequence source;
 
     /**
-     * The number of the line currently being read from the input, starting at 1 for the first line. Note that this is
-     * not the BASIC line number.
+     * The end of the source code. A line terminator at the very end of the source code is not lexed, so that the last
+     * line of a program does not need to be terminated.
      */
-    private int fileLineNumber = 0;
+    private final int sourceEnd;
 
     /**
-     * The source code being lexed.
+     * The number of the line currently being read from the input, starting at 1 for the first line. Note that this is
+     * not the BASIC line number.
      */
-    private String source;
+    private int fileLineNumber = 0;
 
     /**
      * The position of the next character to be read from the source code input, starting at 0.
@@ -40,14 +45,19 @@ public class Lexer {
     private Symbol sym = None;
 
     /**
-     * The text corresponding to the next symbol.
+     * The position in the source code where the text corresponding to the current symbol starts.
+     */
+    private int textStart = 0;
+
+    /**
+     * The position in the source code where the text corresponding to the current symbol ends (exclusive).
      */
-    private StringBuilder text = new StringBuilder();
+    private int textEnd = 0;
 
     /**
-     * The lexer's position on the current line.
+     * The position in the source code where the current line starts.
      */
-    private int currentLinePos = 0;
+    private int lineStart = 0;
 
     /**
      * The start position, on the current line, of the current symbol.
@@ -55,52 +65,90 @@ public class Lexer {
     private int currentSymbolStartPos = 0;
 
     /**
-     * The text of the current line, as it is being lexed.
+     * The position in the source code where the last completely parsed line starts.
      */
-    private StringBuilder currentLineText = new StringBuilder();
+    private int lastLineStart = 0;
 
     /**
-     * The complete text of the last completely parsed line.
+     * The position in the source code where the last completely parsed line ends (exclusive), not including the line
+     * terminator.
      */
-    private String lastLineText = "";
+    private int lastLineEnd = 0;
 
     /**
-     * All Symbols representing BASIC keywords.
+     * The trie of all Symbols representing BASIC keywords.
      */
-    private static final List<Symbol> KEYWORD_SYMBOLS =
-            Arrays.stream(Symbol.values()).filter(s -> !s.text.isEmpty()).toList();
+    private static final KeywordTrie KEYWORDS = new KeywordTrie();
 
     /**
-     * Construct a lexer.
+     * Construct a lexer. The input is read completely, in bulk.
      *
      * @param in the reader from which to lex input.
      */
     public Lexer(Reader in) {
-        this.in = new BufferedReader(in);
-        source = readSource();
+        this(readSource(in));
     }
 
     /**
-     * Read the source code from the {@link #in input}.
+     * Construct a lexer for source code that is already in memory. The source code is not copied.
      *
+     * @param source the source code.
+     */
+    public Lexer(CharSequence source) {
+        this.source = source;
+        int end = source.length();
+        if (end > 0 && source.charAt(end - 1) == '\n') {
+            --end;
+        }
+        if (end > 0 && source.charAt(end - 1) == '\r') {
+            --end;
+        }
+        sourceEnd = end;
+    }
+
+    /**
+     * Read the source code from an input.
+     *
+     * @param in the input.
      * @return the source code.
      */
-    private String readSource() {
-        return in.lines().collect(Collectors.joining("\n"));
+    private static CharSequence readSource(Reader in) {
+        char[] buffer = new char[8192];
+        int length = 0;
+        try {
+            for (int n; (n = in.read(buffer, length, buffer.length - length)) >= 0; ) {
+                length += n;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return CharBuffer.wrap(buffer, 0, length);
+    }
+
+    /**
+     * @param start a start position in the source code.
+     * @param end an end position in the source code (exclusive).
+     * @return the source code between the two positions.
+     */
+    private String text(int start, int end) {
+        return source.subSequence(start, end).toString();
     }
 
     /**
      * @return the last completely parsed line.
      */
     public String getLastLineText() {
-        return lastLineText;
+        return text(lastLineStart, lastLineEnd);
     }
 
     /**
      * @return the text of the line currently being parsed, so far.
      */
     public String getLineSoFar() {
-        return currentLineText.toString();
+        return text(lineStart, currentCharPos);
     }
 
     /**
@@ -116,60 +164,62 @@ public class Lexer {
     public Symbol getSymbol() {
         if (!hasMoreInput()) {
             sym = None;
-            text.setLength(0);
-            lastLineText = currentLineText.toString();
+            textStart = textEnd = currentCharPos;
+            lastLineStart = lineStart;
+            lastLineEnd = currentCharPos;
             return sym;
         }
         skipWhiteSpace();
-        currentSymbolStartPos = currentLinePos;
+        currentSymbolStartPos = currentCharPos - lineStart;
+        textStart = currentCharPos;
 
         if (0x02 == currentChar()) {
-            note(Stx, consumeChar());
+            note(Stx);
         } else if (0x03 == currentChar()) {
-            note(Etx, consumeChar());
+            note(Etx);
         } else if (0x1C == currentChar()) {
-            note(Fs, consumeChar());
+            note(Fs);
         } else if ('\n' == currentChar() || '\r' == currentChar()) {
             lexEol();
-        } else if (Character.isDigit(currentChar()) || ('.' == currentChar() && peekIsDigit())) {
+        } else if (Character.isDigit(currentChar()) || ('.' == currentChar() && Character.isDigit(peekChar()))) {
             lexNumerical();
         } else if ('"' == currentChar()) {
             lexString();
         } else if (':' == currentChar()) {
-            note(Colon, consumeChar());
+            note(Colon);
         } else if (',' == currentChar()) {
-            note(Comma, consumeChar());
+            note(Comma);
         } else if (';' == currentChar()) {
-            note(Semicolon, consumeChar());
+            note(Semicolon);
         } else if ('+' == currentChar()) {
-            note(Plus, consumeChar());
+            note(Plus);
         } else if ('-' == currentChar()) {
-            note(Minus, consumeChar());
+            note(Minus);
         } else if ('*' == currentChar()) {
-            note(Multiply, consumeChar());
+            note(Multiply);
         } else if ('/' == currentChar()) {
-            note(Divide, consumeChar());
+            note(Divide);
         } else if ('^' == currentChar()) {
-            note(Power, consumeChar());
+            note(Power);
         } else if ('(' == currentChar()) {
-            note(LeftBracket, consumeChar());
+            note(LeftBracket);
         } else if (')' == currentChar()) {
-            note(RightBracket, consumeChar());
+            note(RightBracket);
         } else if ('=' == currentChar()) {
-            note(Equal, consumeChar());
+            note(Equal);
         } else if ('<' == currentChar()) {
-            if (">".equals(peek(1))) {
-                note(NotEqual, consume(2));
-            } else if ("=".equals(peek(1))) {
-                note(LessEqual, consume(2));
+            if ('>' == peekChar()) {
+                note(NotEqual, 2);
+            } else if ('=' == peekChar()) {
+                note(LessEqual, 2);
             } else {
-                note(Less, consumeChar());
+                note(Less);
             }
         } else if ('>' == currentChar()) {
-            if ("=".equals(peek(1))) {
-                note(GreaterEqual, consume(2));
+            if ('=' == peekChar()) {
+                note(GreaterEqual, 2);
             } else {
-                note(Greater, consumeChar());
+                note(Greater);
             }
         } else if (Character.isLetter(currentChar())) {
             lexKeyword(); // keywords take precedence
@@ -180,6 +230,7 @@ public class Lexer {
             sym = None;
         }
 
+        textEnd = currentCharPos;
         return sym;
     }
 
@@ -187,40 +238,35 @@ public class Lexer {
      * Helper to note a single character as a lexed symbol.
      *
      * @param s the {@link Symbol} to note.
-     * @param c the character representing the symbol.
      */
-    private void note(Symbol s, char c) {
-        sym = s;
-        text = new StringBuilder();
-        text.append(c);
+    private void note(Symbol s) {
+        note(s, 1);
     }
 
     /**
-     * Helper to note a string as a lexed symbol.
+     * Helper to note a number of characters as a lexed symbol.
      *
      * @param s the {@link Symbol} to note.
-     * @param v the string representing the symbol.
+     * @param n the number of characters representing the symbol.
      */
-    private void note(Symbol s, String v) {
+    private void note(Symbol s, int n) {
         sym = s;
-        text = new StringBuilder();
-        text.append(v);
+        consume(n);
     }
 
     /**
-     * Handle an end-of-line sequence.
+     * Handle an end-of-line sequence. Like {@link java.io.BufferedReader#readLine()}, this accepts {@code "\n"},
+     * {@code "\r"}, and {@code "\r\n"} as line terminators.
      */
     private void lexEol() {
-        text = new StringBuilder();
-        char c = consumeChar();
-        text.append(c);
-        if (hasMoreInput() && ((c == '\n' && currentChar() == '\r') || (c == '\r' && currentChar() == '\n'))) {
-            text.append(consumeChar());
+        int eolStart = currentCharPos;
+        if ('\r' == consumeChar() && '\n' == currentChar()) {
+            consumeChar();
         }
-        note(Eol, text.toString());
-        lastLineText = currentLineText.toString();
-        currentLineText = new StringBuilder();
-        currentLinePos = 0;
+        sym = Eol;
+        lastLineStart = lineStart;
+        lastLineEnd = eolStart;
+        lineStart = currentCharPos;
         ++fileLineNumber;
     }
 
@@ -228,7 +274,6 @@ public class Lexer {
      * Handle a number or floating-point number from the input.
      */
     private void lexNumerical() {
-        text = new StringBuilder();
         sym = NumberLiteral;
         if (Character.isDigit(currentChar())) {
             consumeNumberPart();
@@ -237,15 +282,15 @@ public class Lexer {
         boolean exponent = Character.toUpperCase(currentChar()) == 'E';
         if (decimalPoint || exponent) {
             sym = FloatLiteral;
-            text.append(consumeChar());
+            consumeChar();
             if (decimalPoint) {
                 consumeNumberPart();
                 exponent = Character.toUpperCase(currentChar()) == 'E';
             }
             if (exponent) {
-                text.append(consumeChar());
+                consumeChar();
                 if ('-' == currentChar()) {
-                    text.append(consumeChar());
+                    consumeChar();
                 }
                 consumeNumberPart();
             }
@@ -257,7 +302,7 @@ public class Lexer {
      */
     private void consumeNumberPart() {
         while (Character.isDigit(currentChar())) {
-            text.append(consumeChar());
+            consumeChar();
         }
     }
 
@@ -265,52 +310,37 @@ public class Lexer {
      * Lex a keyword. This includes handling REM lines and FN identifiers.
      */
     private void lexKeyword() {
-        sym = KEYWORD_SYMBOLS.stream()
-                .filter(ks -> matchKeyword(ks.text))
-                .findFirst()
-                .orElse(None);
+        sym = KEYWORDS.match(source, currentCharPos, sourceEnd);
         if (None != sym) {
-            text = new StringBuilder();
-            text.append(consume(sym.text.length()));
+            consume(sym.text.length());
             if (Rem == sym) {
                 // special handling: consume until the end of the current line
-                int eolPos = source.indexOf('\n', currentCharPos);
-                text.append(consume((eolPos > 0 ? eolPos : source.length()) - currentCharPos));
+                while (hasMoreInput() && '\n' != currentChar() && '\r' != currentChar()) {
+                    consumeChar();
+                }
             }
             if (Fn == sym && Character.isLetter(currentChar())) {
                 // special handling: we have a FnIndentifier, which consists of one or two more letters
                 sym = FnIdentifier;
-                text.append(consumeChar());
+                consumeChar();
                 if (Character.isLetter(currentChar())) {
-                    text.append(consumeChar());
+                    consumeChar();
                 }
             }
         }
     }
 
-    /**
-     * Helper to check whether a given keyword matches the input.
-     *
-     * @param kwtext the keyword text, in upper case.
-     * @return {@code true} iff the input (transformed to upper case) matches the given keyword.
-     */
-    private boolean matchKeyword(String kwtext) {
-        return kwtext.charAt(0) == Character.toUpperCase(currentChar())
-                && kwtext.substring(1).equals(peek(kwtext.length() - 1).toUpperCase());
-    }
-
     /**
      * Lex an identifier. This is a letter, possibly followed by a letter or digit, and possibly a '$' at the end.
      */
     private void lexIdentifier() {
         sym = Identifier;
-        text = new StringBuilder();
-        text.append(consumeChar());
+        consumeChar();
         if (Character.isLetterOrDigit(currentChar())) {
-            text.append(consumeChar());
+            consumeChar();
         }
         if ('$' == currentChar()) {
-            text.append(consumeChar());
+            consumeChar();
         }
     }
 
@@ -318,14 +348,13 @@ public class Lexer {
      * Handle a string from the input.
      */
     private void lexString() {
-        text = new StringBuilder();
         do {
-            text.append(consumeChar());
-        } while ('"' != currentChar() && '\n' != currentChar() && hasMoreInput());
-        if ('\n' == currentChar() || !hasMoreInput()) {
-            throw new LexerException("string does not end: " + text.toString());
+            consumeChar();
+        } while ('"' != currentChar() && '\n' != currentChar() && '\r' != currentChar() && hasMoreInput());
+        if ('"' != currentChar()) {
+            throw new LexerException("string does not end: " + text(textStart, currentCharPos));
         }
-        text.append(consumeChar());
+        consumeChar();
         sym = StringLiteral;
     }
 
@@ -333,7 +362,29 @@ public class Lexer {
      * @return the current text, i.e., the text representing the current symbol.
      */
     public String getText() {
-        return text.toString();
+        return text(textStart, textEnd);
+    }
+
+    /**
+     * @return the position in the source code where the text representing the current symbol starts.
+     */
+    public int getTextStart() {
+        return textStart;
+    }
+
+    /**
+     * @return the position in the source code where the text representing the current symbol ends (exclusive).
+     */
+    public int getTextEnd() {
+        return textEnd;
+    }
+
+    /**
+     * @return the source code being lexed. Together with {@link #getTextStart()} and {@link #getTextEnd()}, this
+     * allows to inspect the text of the current symbol without copying it.
+     */
+    public CharSequence getSource() {
+        return source;
     }
 
     /**
@@ -350,10 +401,6 @@ public class Lexer {
      */
     private char consumeChar() {
         char c = currentChar();
-        if ('\n' != c && '\r' != c) {
-            currentLineText.append(c);
-        }
-        ++currentLinePos;
         ++currentCharPos;
         return c;
     }
@@ -362,34 +409,16 @@ public class Lexer {
      * Consume a number of characters from the input.
      *
      * @param n the number of characters to consume.
-     * @return the consumed characters, as a string of length {@code n}.
      */
-    private String consume(int n) {
-        String r = source.substring(currentCharPos, currentCharPos + n);
-        currentLineText.append(r);
-        currentLinePos += n;
+    private void consume(int n) {
         currentCharPos += n;
-        return r;
-    }
-
-    /**
-     * @return the following {@code n} character from the input buffer; or an empty string if that is not possible. This
-     * can be the case at the end of an input line, as tokens do not span multiple lines.
-     */
-    private String peek(int n) {
-        return currentCharPos + n + 1 <= source.length() ?
-                source.substring(currentCharPos + 1, currentCharPos + n + 1) :
-                "";
     }
 
     /**
-     * Check if the next character from the input is a digit. This is a helper to keep expressions tidy.
-     *
-     * @return {@code true} iff the next character from the input is a digit.
+     * @return the character following the current one in the input, or {@code '\0'} if there is none.
      */
-    private boolean peekIsDigit() {
-        String peek = peek(1);
-        return peek.isEmpty() ? false : Character.isDigit(peek.charAt(0));
+    private char peekChar() {
+        return currentCharPos + 1 < sourceEnd ? source.charAt(currentCharPos + 1) : '\0';
     }
 
     /**
@@ -398,7 +427,7 @@ public class Lexer {
      * @return {@code true} if more input is available; {@code false} otherwise.
      */
     public boolean hasMoreInput() {
-        return currentCharPos < source.length();
+        return currentCharPos < sourceEnd;
     }
 
     /**
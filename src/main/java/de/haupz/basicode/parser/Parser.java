@@ -5,7 +5,6 @@ import de.haupz.basicode.ast.*;
 import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 import static de.haupz.basicode.parser.Symbol.*;
 
@@ -31,9 +30,14 @@ public class Parser {
     private Symbol sym = None;
 
     /**
-     * The current symbol's text.
+     * The start position of the current symbol's text() in the source code.
      */
-    private String text = "";
+    private int textStart = 0;
+
+    /**
+     * The end position of the current symbol's text() in the source code (exclusive).
+     */
+    private int textEnd = 0;
 
     /**
      * The current symbol's start position on the source code line.
@@ -41,19 +45,29 @@ public class Parser {
     private int symStartPos = 0;
 
     /**
-     * A stored symbol to return first, if any.
+     * Whether a stored symbol is to be returned first.
+     */
+    private boolean pending = false;
+
+    /**
+     * A stored symbol to return first, if {@link #pending} is set.
      */
-    private Optional<Symbol> pendingSymbol = Optional.empty();
+    private Symbol pendingSymbol = None;
 
     /**
-     * The text corresponding to {@link #pendingSymbol}.
+     * The text() start position corresponding to {@link #pendingSymbol}.
      */
-    private Optional<String> pendingText = Optional.empty();
+    private int pendingTextStart = 0;
+
+    /**
+     * The text() end position corresponding to {@link #pendingSymbol}.
+     */
+    private int pendingTextEnd = 0;
 
     /**
      * The start position corresponding to {@link #pendingSymbol}.
      */
-    private Optional<Integer> pendingStartPos = Optional.empty();
+    private int pendingStartPos = 0;
 
     /**
      * Construct a parser for a given input.
@@ -65,47 +79,72 @@ public class Parser {
     }
 
     /**
-     * Retrieve the next symbol from the lexer. This populates the {@link #sym} and {@link #text} fields with the
-     * corresponding values.
+     * Construct a parser for source code that is already in memory. The source code is not copied.
+     *
+     * @param source a BASIC program.
+     */
+    public Parser(CharSequence source) {
+        lexer = new Lexer(source);
+    }
+
+    /**
+     * Retrieve the next symbol from the lexer. This populates the {@link #sym}, {@link #textStart}, and
+     * {@link #textEnd} fields with the corresponding values.
      */
     private void getNextSymbol() {
-        if (pendingSymbol.isPresent()) {
+        if (pending) {
             popPendingSymbol();
         } else {
             sym = lexer.getSymbol();
-            text = lexer.getText();
+            textStart = lexer.getTextStart();
+            textEnd = lexer.getTextEnd();
             symStartPos = lexer.getCurrentSymbolStartPos();
         }
     }
 
     /**
-     * Push the current symbol and text into the buffer, to be consumed next. This is a shallow peek implementation.
+     * Push the current symbol and text() into the buffer, to be consumed next. This is a shallow peek implementation.
      */
     private void pushPendingSymbol() {
-        pendingSymbol = Optional.of(sym);
-        pendingText = Optional.of(text);
-        pendingStartPos = Optional.of(symStartPos);
+        pending = true;
+        pendingSymbol = sym;
+        pendingTextStart = textStart;
+        pendingTextEnd = textEnd;
+        pendingStartPos = symStartPos;
     }
 
     /**
-     * Push a dedicated symbol and text into the buffer.
+     * Restore a symbol and text() from the buffer.
      */
-    private void pushPendingSymbol(Symbol s, String t, int start) {
-        pendingSymbol = Optional.of(s);
-        pendingText = Optional.of(t);
-        pendingStartPos = Optional.of(start);
+    private void popPendingSymbol() {
+        pending = false;
+        sym = pendingSymbol;
+        textStart = pendingTextStart;
+        textEnd = pendingTextEnd;
+        symStartPos = pendingStartPos;
     }
 
     /**
-     * Restore a symbol and text from the buffer.
+     * @return the current symbol's text().
      */
-    private void popPendingSymbol() {
-        sym = pendingSymbol.get();
-        text = pendingText.get();
-        symStartPos = pendingStartPos.get();
-        pendingSymbol = Optional.empty();
-        pendingText = Optional.empty();
-        pendingStartPos = Optional.empty();
+    private String text() {
+        return text(0, 0);
+    }
+
+    /**
+     * @param skipStart the number of characters to skip at the start of the current symbol's text().
+     * @param skipEnd the number of characters to skip at the end of the current symbol's text().
+     * @return a section of the current symbol's text(), e.g., a string literal's contents without the quotes.
+     */
+    private String text(int skipStart, int skipEnd) {
+        return lexer.getSource().subSequence(textStart + skipStart, textEnd - skipEnd).toString();
+    }
+
+    /**
+     * @return the current symbol's text(), parsed as an integer number.
+     */
+    private int intText() {
+        return Integer.parseInt(lexer.getSource(), textStart, textEnd, 10);
     }
 
     /**
@@ -125,7 +164,7 @@ public class Parser {
     private void expect(Symbol s) throws ParserException {
         getNextSymbol();
         if (sym != s) {
-            throw new ParserException("Expected " + s + " but got " + sym + " << " + text + " >>", getContext());
+            throw new ParserException("Expected " + s + " but got " + sym + " << " + text() + " >>", getContext());
         }
     }
 
@@ -140,7 +179,7 @@ public class Parser {
         getNextSymbol();
         List<Symbol> lss = List.of(ss);
         if (!lss.contains(sym)) {
-            throw new ParserException("Expected one of " + lss + " but got " + sym + " << " + text + " >>", getContext());
+            throw new ParserException("Expected one of " + lss + " but got " + sym + " << " + text() + " >>", getContext());
         }
     }
 
@@ -188,7 +227,7 @@ public class Parser {
                     StatementNode statement = statement(symStartPos);
                     statements.add(statement);
                 } else {
-                    pushPendingSymbol(Eol, "\n", symStartPos);
+                    pushPendingSymbol();
                 }
             } while (accept(Colon));
         }
@@ -200,7 +239,7 @@ public class Parser {
 
     private int lineNumber() {
         expect(NumberLiteral);
-        return Integer.parseInt(text);
+        return intText();
     }
 
     public StatementNode dataLine(int start) {
@@ -215,11 +254,11 @@ public class Parser {
 
     public Object dataLiteral() {
         if (accept(StringLiteral)) {
-            return text.substring(1, text.length() - 1);
+            return text(1, 1);
         }
         int sgn = accept(Minus) ? -1 : 1;
         expectOneOf(NumberLiteral, FloatLiteral);
-        return sgn * Double.parseDouble(text);
+        return sgn * Double.parseDouble(text());
     }
 
     public StatementNode statement(int start) {
@@ -248,7 +287,7 @@ public class Parser {
             case On -> dependentJump(start);
             case Print -> printStatement(start);
             case Read -> readStatement(start);
-            case Rem -> new RemNode(start, text.substring(3).trim()); // text starts with "REM"
+            case Rem -> new RemNode(start, text(3, 0).trim()); // text starts with "REM"
             case Restore -> new RestoreNode(start);
             case Return -> new ReturnNode(start);
             case Run -> new RunNode(start);
@@ -269,7 +308,7 @@ public class Parser {
         if (Let == sym) {
             expect(Identifier);
         }
-        String id = text;
+        String id = text();
         if (accept(LeftBracket)) {
             ExpressionNode e = expression();
             ExpressionNode f = null;
@@ -395,14 +434,14 @@ public class Parser {
 
     public ExpressionNode literal() {
         if (NumberLiteral == sym || FloatLiteral == sym) {
-            return new DoubleNode(Double.parseDouble(text));
+            return new DoubleNode(Double.parseDouble(text()));
         } else {
-            return new StringNode(text.substring(1, text.length() - 1));
+            return new StringNode(text(1, 1));
         }
     }
 
     public ExpressionNode varOrDimAccess() {
-        String id = text;
+        String id = text();
         if (accept(LeftBracket)) {
             ExpressionNode e = expression();
             ExpressionNode f = null;
@@ -427,9 +466,9 @@ public class Parser {
         String id;
         if (Fn == sym) {
             expect(Identifier);
-            id = text;
+            id = text();
         } else { // FnIdentifier
-            id = text.substring(2);
+            id = text(2, 0);
         }
         return id;
     }
@@ -439,7 +478,7 @@ public class Parser {
         // we'll just get the symbol and proceed with parsing.
         getNextSymbol();
         Symbol builtin = sym;
-        String builtinName = text;
+        String builtinName = text();
         
         expect(LeftBracket);
         ExpressionNode e = expression();
@@ -490,7 +529,7 @@ public class Parser {
             PrintNode.Element e = printElement();
             elements.add(e);
             while (accept(Comma) || accept(Semicolon)) {
-                elements.add(new PrintNode.Element(PrintNode.ElementType.SEPARATOR, text));
+                elements.add(new PrintNode.Element(PrintNode.ElementType.SEPARATOR, text()));
                 if (printElementIsNext()) {
                     e = printElement();
                     elements.add(e);
@@ -535,7 +574,7 @@ public class Parser {
         } else if (accept(Gosub)) {
             isGosub = true;
         } else {
-            throw new ParserException("Expecting GOTO or GOSUB, but got: " + sym + " << " + text + " >>", getContext());
+            throw new ParserException("Expecting GOTO or GOSUB, but got: " + sym + " << " + text() + " >>", getContext());
         }
 
         List<Integer> targets = new ArrayList<>();
@@ -562,7 +601,7 @@ public class Parser {
 
     private DimCreateNode oneDim(int start) {
         expect(Identifier);
-        String id = text;
+        String id = text();
         expect(LeftBracket);
         ExpressionNode d1 = expression();
         ExpressionNode d2 = null;
@@ -575,7 +614,7 @@ public class Parser {
 
     public StatementNode forStatement(int start) {
         expect(Identifier);
-        String id = text;
+        String id = text();
         expect(Equal);
         ExpressionNode e = expression();
         expect(To);
@@ -589,7 +628,7 @@ public class Parser {
 
     public StatementNode nextStatement(int start) {
         expect(Identifier);
-        String id = text;
+        String id = text();
         return new NextNode(start, id);
     }
 
@@ -598,7 +637,7 @@ public class Parser {
         StatementNode s;
         if (accept(Then)) {
             if (accept(NumberLiteral)) {
-                int l = Integer.parseInt(text);
+                int l = intText();
                 s = new GotoNode(start, l);
             } else {
                 s = statement(symStartPos);
@@ -607,7 +646,7 @@ public class Parser {
             int l = lineNumber();
             s = new GotoNode(start, l);
         } else {
-            throw new ParserException("Expecting THEN or GOTO, but got " + sym + " << " + text + " >>", getContext());
+            throw new ParserException("Expecting THEN or GOTO, but got " + sym + " << " + text() + " >>", getContext());
         }
         return new IfThenNode(start, e, s);
     }
@@ -628,7 +667,7 @@ public class Parser {
     public StatementNode inputStatement(int start) {
         String prompt = "? ";
         if (accept(StringLiteral)) {
-            prompt = text.substring(1, text.length() - 1) + prompt;
+            prompt = text(1, 1) + prompt;
             expect(Semicolon);
         }
         expect(Identifier);
@@ -641,7 +680,7 @@ public class Parser {
         String id = fnId();
         expect(LeftBracket);
         expect(Identifier);
-        String u = text;
+        String u = text();
         expect(RightBracket);
         expect(Equal);
         ExpressionNode e = expression();
@@ -0,0 +1,134 @@
+package de.haupz.basicode.parser;
+
+import de.haupz.basicode.ast.ProgramNode;
+
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * <p>An on-disk cache of parsed programs, to skip lexing and parsing when the same program is run again.</p>
+ *
+ * <p>Each program is stored in its own file in the cache directory, in a {@linkplain ProgramCodec compact binary
+ * encoding}. The file name is the SHA-256 hash of the source code, so that a changed source file is never matched
+ * with a stale entry, and identical copies of a program share an entry. Entries that cannot be read, e.g., because
+ * they were written by a different version of the encoding, are treated as missing, and overwritten.</p>
+ *
+ * <p>The cache holds unfolded programs. {@linkplain ProgramNode#foldConstants() Constant folding} is left to the
+ * caller, as for freshly parsed programs.</p>
+ */
+public class ProgramCache {
+
+    /**
+     * The file name extension of cache entries.
+     */
+    private static final String EXTENSION = ".bcp";
+
+    /**
+     * The cache directory.
+     */
+    private final Path directory;
+
+    /**
+     * Construct a cache. The directory is created when the first entry is stored.
+     *
+     * @param directory the cache directory.
+     */
+    public ProgramCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @return the default cache directory, {@code .basicode/cache} in the user's home directory.
+     */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".basicode", "cache");
+    }
+
+    /**
+     * Retrieve a parsed program from the cache, or parse it and store it in the cache.
+     *
+     * @param source the source code of the program.
+     * @return the program.
+     * @throws ParserException in case the program cannot be parsed.
+     */
+    public ProgramNode parse(CharSequence source) {
+        Path entry = entryFor(source);
+        Optional<ProgramNode> cached = load(entry);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+        ProgramNode program = new Parser(source).program();
+        store(entry, ProgramCodec.encode(program));
+        return program;
+    }
+
+    /**
+     * Retrieve a parsed program from the cache.
+     *
+     * @param source the source code of the program.
+     * @return the program, or {@link Optional#empty()} if the cache does not contain a valid entry for it.
+     */
+    public Optional<ProgramNode> load(CharSequence source) {
+        return load(entryFor(source));
+    }
+
+    private Optional<ProgramNode> load(Path entry) {
+        if (!Files.isRegularFile(entry)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(ProgramCodec.decode(Files.readAllBytes(entry)));
+        } catch (IOException | IllegalStateException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store an encoded program. The entry is written to a temporary file first, and then moved into place, so that
+     * concurrent runs never see a partially written entry. Failure to store an entry is not an error: the program will
+     * simply be parsed again next time.
+     */
+    private void store(Path entry, byte[] encoding) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, "entry", ".tmp");
+            try {
+                Files.write(temp, encoding);
+                try {
+                    Files.move(temp, entry, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // not cached, then
+        }
+    }
+
+    /**
+     * @param source the source code of a program.
+     * @return the path of the cache entry for the program.
+     */
+    Path entryFor(CharSequence source) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        digest.update(StandardCharsets.UTF_8.encode(CharBuffer.wrap(source)));
+        return directory.resolve(HexFormat.of().formatHex(digest.digest()) + EXTENSION);
+    }
+
+}
@@ -0,0 +1,525 @@
+package de.haupz.basicode.parser;
+
+import de.haupz.basicode.ast.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>A compact binary encoding of parsed programs, as used by the {@link ProgramCache}.</p>
+ *
+ * <p>The encoding is a pre-order walk of the syntax tree as the {@link Parser} produces it: each node is written as a
+ * one-byte {@linkplain Tag tag}, followed by its fields and children. Strings (identifiers, literals, and source lines)
+ * are written once, and referred to by their index in a string table afterwards. Decoding calls the same constructors
+ * as the parser, so that the decoded program is indistinguishable from a freshly parsed one, but involves neither
+ * lexing nor parsing.</p>
+ *
+ * <p>The encoding covers unfolded programs only; constant folding is applied after decoding.</p>
+ */
+final class ProgramCodec {
+
+    /**
+     * The first bytes of an encoded program.
+     */
+    private static final int MAGIC = 0x42435043; // "BCPC"
+
+    /**
+     * The version of the encoding. This must be incremented whenever the encoding, or the syntax tree produced by the
+     * parser for a given source, changes.
+     */
+    static final int VERSION = 1;
+
+    private ProgramCodec() {}
+
+    /**
+     * The node tags. The ordinals are written to the encoding, so new tags must be added at the end.
+     */
+    private enum Tag {
+        NULL,
+        // expressions
+        DOUBLE, STRING, VAR, DIM_ACCESS, FN_CALL,
+        ABS, ASC, ATN, CHRS, COS, EXP, INT, LEN, LOG, NEGATE, NOT, SGN, SIN, SQR, TAN, VAL,
+        ADD, SUBTRACT, MULTIPLY, DIVIDE, POWER, AND, OR, EQ, NEQ, LT, LEQ, GT, GEQ,
+        LEFTS, MIDS, RIGHTS,
+        // statements
+        DATA, DEF_FN, DIM, END, FOR, GOSUB, GOTO, IF_THEN, INPUT, LET, NEXT, ON_GOSUB, ON_GOTO, PRINT, READ, REM,
+        RESTORE, RETURN, RUN,
+        // left-hand sides
+        LHS_VARIABLE, LHS_ARRAY;
+
+        private static final Tag[] TAGS = values();
+    }
+
+    /**
+     * Encode a program.
+     *
+     * @param program the program, as returned by {@link Parser#program()}.
+     * @return the encoding.
+     */
+    static byte[] encode(ProgramNode program) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            new Encoder(out).program(program);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a program.
+     *
+     * @param encoding the encoding, as returned by {@link #encode(ProgramNode)}.
+     * @return the program.
+     * @throws IllegalStateException if the encoding is malformed, or has a different version.
+     */
+    static ProgramNode decode(byte[] encoding) {
+        try {
+            return new Decoder(ByteBuffer.wrap(encoding)).program();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("malformed program encoding", e);
+        }
+    }
+
+    private static final class Encoder {
+
+        private final DataOutputStream out;
+
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Encoder(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void program(ProgramNode program) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(program.getLines().size());
+            for (LineNode line : program.getLines()) {
+                out.writeInt(line.getLineNumber());
+                string(line.getLineText());
+                statements(line.getStatements());
+            }
+            data(program.getDataList());
+        }
+
+        private void tag(Tag tag) throws IOException {
+            out.writeByte(tag.ordinal());
+        }
+
+        /**
+         * Write a string as its index in the string table, followed by its UTF-8 bytes if it is new.
+         */
+        private void string(String s) throws IOException {
+            Integer index = strings.get(s);
+            if (index != null) {
+                out.writeInt(index);
+                return;
+            }
+            out.writeInt(strings.size());
+            strings.put(s, strings.size());
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+
+        private void data(List<Object> data) throws IOException {
+            out.writeInt(data.size());
+            for (Object d : data) {
+                if (d instanceof String s) {
+                    tag(Tag.STRING);
+                    string(s);
+                } else {
+                    tag(Tag.DOUBLE);
+                    out.writeDouble((Double) d);
+                }
+            }
+        }
+
+        private void targets(List<Integer> targets) throws IOException {
+            out.writeInt(targets.size());
+            for (int target : targets) {
+                out.writeInt(target);
+            }
+        }
+
+        private void statements(List<? extends StatementNode> statements) throws IOException {
+            out.writeInt(statements.size());
+            for (StatementNode statement : statements) {
+                statement(statement);
+            }
+        }
+
+        private void statement(StatementNode s) throws IOException {
+            Tag tag = switch (s) {
+                case DataNode n -> Tag.DATA;
+                case DefFnNode n -> Tag.DEF_FN;
+                case DimNode n -> Tag.DIM;
+                case EndNode n -> Tag.END;
+                case ForNode n -> Tag.FOR;
+                case GosubNode n -> Tag.GOSUB;
+                case GotoNode n -> Tag.GOTO;
+                case IfThenNode n -> Tag.IF_THEN;
+                case InputNode n -> Tag.INPUT;
+                case LetNode n -> Tag.LET;
+                case NextNode n -> Tag.NEXT;
+                case OnGosubNode n -> Tag.ON_GOSUB;
+                case OnGotoNode n -> Tag.ON_GOTO;
+                case PrintNode n -> Tag.PRINT;
+                case ReadNode n -> Tag.READ;
+                case RemNode n -> Tag.REM;
+                case RestoreNode n -> Tag.RESTORE;
+                case ReturnNode n -> Tag.RETURN;
+                case RunNode n -> Tag.RUN;
+                default -> throw new IllegalStateException("cannot encode " + s.getClass().getSimpleName());
+            };
+            tag(tag);
+            out.writeInt(s.getStartPosition());
+            switch (s) {
+                case DataNode n -> data(n.getData());
+                case DefFnNode n -> {
+                    string(n.getId());
+                    string(n.getArg());
+                    expression(n.getExpression());
+                }
+                case DimNode n -> {
+                    out.writeInt(n.getDims().size());
+                    for (DimCreateNode d : n.getDims()) {
+                        out.writeInt(d.getStartPosition());
+                        string(d.getId());
+                        expression(d.getDim1());
+                        expression(d.getDim2());
+                    }
+                }
+                case ForNode n -> {
+                    string(n.getId());
+                    expression(n.getInit());
+                    expression(n.getEnd());
+                    expression(n.getStep());
+                }
+                case GosubNode n -> out.writeInt(n.getTarget());
+                case GotoNode n -> out.writeInt(n.getTarget());
+                case IfThenNode n -> {
+                    expression(n.getCondition());
+                    statement(n.getThen());
+                }
+                case InputNode n -> {
+                    StringNode prompt = (StringNode) n.getPrompt().getElements().get(0).payload();
+                    string(prompt.getValue());
+                    lhs(n.getLet().getLhs());
+                }
+                case LetNode n -> {
+                    lhs(n.getLhs());
+                    expression(n.getExpression());
+                }
+                case NextNode n -> string(n.getId());
+                case DependentJumpNode n -> {
+                    expression(n.getExpression());
+                    targets(n.getTargets());
+                }
+                case PrintNode n -> {
+                    out.writeInt(n.getElements().size());
+                    for (PrintNode.Element e : n.getElements()) {
+                        out.writeByte(e.type().ordinal());
+                        if (e.payload() instanceof ExpressionNode expression) {
+                            expression(expression);
+                        } else {
+                            string((String) e.payload());
+                        }
+                    }
+                }
+                case ReadNode n -> {
+                    out.writeInt(n.getLets().size());
+                    for (LetNode let : n.getLets()) {
+                        lhs(let.getLhs());
+                    }
+                }
+                case RemNode n -> string(n.getRem());
+                default -> {
+                    // no fields besides the start position
+                }
+            }
+        }
+
+        private void lhs(LetNode.LHS lhs) throws IOException {
+            if (lhs instanceof LetNode.Array a) {
+                tag(Tag.LHS_ARRAY);
+                string(a.getId());
+                expression(a.getDim1());
+                expression(a.getDim2());
+            } else {
+                tag(Tag.LHS_VARIABLE);
+                string(lhs.getId());
+            }
+        }
+
+        private void expression(ExpressionNode e) throws IOException {
+            switch (e) {
+                case null -> tag(Tag.NULL);
+                case DoubleNode n -> {
+                    tag(Tag.DOUBLE);
+                    out.writeDouble(n.getValue());
+                }
+                case StringNode n -> {
+                    tag(Tag.STRING);
+                    string(n.getValue());
+                }
+                case VarNode n -> {
+                    tag(Tag.VAR);
+                    string(n.getId());
+                    out.writeBoolean(n.isArray());
+                }
+                case DimAccessNode n -> {
+                    tag(Tag.DIM_ACCESS);
+                    string(n.getId());
+                    expression(n.getDim1());
+                    expression(n.getDim2());
+                }
+                case FnCallNode n -> {
+                    tag(Tag.FN_CALL);
+                    string(n.getId());
+                    expression(n.getArgument());
+                }
+                case WrappingExpressionNode n -> {
+                    tag(switch (n) {
+                        case AbsNode x -> Tag.ABS;
+                        case AscNode x -> Tag.ASC;
+                        case AtnNode x -> Tag.ATN;
+                        case ChrsNode x -> Tag.CHRS;
+                        case CosNode x -> Tag.COS;
+                        case ExpNode x -> Tag.EXP;
+                        case IntNode x -> Tag.INT;
+                        case LenNode x -> Tag.LEN;
+                        case LogNode x -> Tag.LOG;
+                        case NegateNode x -> Tag.NEGATE;
+                        case NotNode x -> Tag.NOT;
+                        case SgnNode x -> Tag.SGN;
+                        case SinNode x -> Tag.SIN;
+                        case SqrNode x -> Tag.SQR;
+                        case TanNode x -> Tag.TAN;
+                        case ValNode x -> Tag.VAL;
+                        default -> throw new IllegalStateException("cannot encode " + n.getClass().getSimpleName());
+                    });
+                    expression(n.getExpression());
+                }
+                case TypeAdjustingNode n -> {
+                    tag(switch (n) {
+                        case AddNode x -> Tag.ADD;
+                        case SubtractNode x -> Tag.SUBTRACT;
+                        case MultiplyNode x -> Tag.MULTIPLY;
+                        case DivideNode x -> Tag.DIVIDE;
+                        case PowerNode x -> Tag.POWER;
+                        case AndNode x -> Tag.AND;
+                        case OrNode x -> Tag.OR;
+                        case EqNode x -> Tag.EQ;
+                        case NeqNode x -> Tag.NEQ;
+                        case LtNode x -> Tag.LT;
+                        case LeqNode x -> Tag.LEQ;
+                        case GtNode x -> Tag.GT;
+                        case GeqNode x -> Tag.GEQ;
+                        default -> throw new IllegalStateException("cannot encode " + n.getClass().getSimpleName());
+                    });
+                    expression(n.getExpression1());
+                    expression(n.getExpression2());
+                }
+                case MidsNode n -> {
+                    tag(Tag.MIDS);
+                    expression(n.getExpression1());
+                    expression(n.getExpression2());
+                    expression(n.getExpression3());
+                }
+                case SubstringNode n -> {
+                    tag(n instanceof LeftsNode ? Tag.LEFTS : Tag.RIGHTS);
+                    expression(n.getExpression1());
+                    expression(n.getExpression2());
+                }
+                default -> throw new IllegalStateException("cannot encode " + e.getClass().getSimpleName());
+            }
+        }
+
+    }
+
+    private static final class Decoder {
+
+        private final ByteBuffer in;
+
+        private final List<String> strings = new ArrayList<>();
+
+        Decoder(ByteBuffer in) {
+            this.in = in;
+        }
+
+        ProgramNode program() {
+            if (in.getInt() != MAGIC || in.getInt() != VERSION) {
+                throw new IllegalStateException("not a program encoding of version " + VERSION);
+            }
+            int nLines = in.getInt();
+            List<LineNode> lines = new ArrayList<>(nLines);
+            for (int i = 0; i < nLines; ++i) {
+                int lineNumber = in.getInt();
+                String lineText = string();
+                lines.add(new LineNode(lineNumber, statements(), lineText));
+            }
+            List<Object> dataList = data();
+            if (in.hasRemaining()) {
+                throw new IllegalStateException("trailing bytes after program encoding");
+            }
+            return new ProgramNode(lines, dataList);
+        }
+
+        private Tag tag() {
+            return Tag.TAGS[in.get()];
+        }
+
+        private String string() {
+            int index = in.getInt();
+            if (index == strings.size()) {
+                int length = in.getInt();
+                strings.add(new String(in.array(), in.position(), length, StandardCharsets.UTF_8));
+                in.position(in.position() + length);
+            }
+            return strings.get(index);
+        }
+
+        private List<Object> data() {
+            int n = in.getInt();
+            List<Object> data = new ArrayList<>(n);
+            for (int i = 0; i < n; ++i) {
+                data.add(tag() == Tag.STRING ? string() : (Object) in.getDouble());
+            }
+            return data;
+        }
+
+        private List<Integer> targets() {
+            int n = in.getInt();
+            List<Integer> targets = new ArrayList<>(n);
+            for (int i = 0; i < n; ++i) {
+                targets.add(in.getInt());
+            }
+            return targets;
+        }
+
+        private List<StatementNode> statements() {
+            int n = in.getInt();
+            List<StatementNode> statements = new ArrayList<>(n);
+            for (int i = 0; i < n; ++i) {
+                statements.add(statement());
+            }
+            return statements;
+        }
+
+        private StatementNode statement() {
+            Tag tag = tag();
+            int start = in.getInt();
+            return switch (tag) {
+                case DATA -> new DataNode(start, data());
+                case DEF_FN -> new DefFnNode(start, string(), string(), expression());
+                case DIM -> {
+                    int n = in.getInt();
+                    List<DimCreateNode> dims = new ArrayList<>(n);
+                    for (int i = 0; i < n; ++i) {
+                        dims.add(new DimCreateNode(in.getInt(), string(), expression(), expression()));
+                    }
+                    yield new DimNode(start, dims);
+                }
+                case END -> new EndNode(start);
+                case FOR -> new ForNode(start, string(), expression(), expression(), expression());
+                case GOSUB -> new GosubNode(start, in.getInt());
+                case GOTO -> new GotoNode(start, in.getInt());
+                case IF_THEN -> new IfThenNode(start, expression(), statement());
+                case INPUT -> new InputNode(start, string(), lhs());
+                case LET -> new LetNode(start, lhs(), expression());
+                case NEXT -> new NextNode(start, string());
+                case ON_GOSUB -> new OnGosubNode(start, expression(), targets());
+                case ON_GOTO -> new OnGotoNode(start, expression(), targets());
+                case PRINT -> {
+                    int n = in.getInt();
+                    List<PrintNode.Element> elements = new ArrayList<>(n);
+                    for (int i = 0; i < n; ++i) {
+                        PrintNode.ElementType type = PrintNode.ElementType.values()[in.get()];
+                        Object payload = type == PrintNode.ElementType.SEPARATOR ? string() : expression();
+                        elements.add(new PrintNode.Element(type, payload));
+                    }
+                    yield new PrintNode(start, elements);
+                }
+                case READ -> {
+                    int n = in.getInt();
+                    List<LetNode.LHS> lhss = new ArrayList<>(n);
+                    for (int i = 0; i < n; ++i) {
+                        lhss.add(lhs());
+                    }
+                    yield new ReadNode(start, lhss);
+                }
+                case REM -> new RemNode(start, string());
+                case RESTORE -> new RestoreNode(start);
+                case RETURN -> new ReturnNode(start);
+                case RUN -> new RunNode(start);
+                default -> throw new IllegalStateException("not a statement tag: " + tag);
+            };
+        }
+
+        private LetNode.LHS lhs() {
+            Tag tag = tag();
+            return switch (tag) {
+                case LHS_VARIABLE -> new LetNode.Variable(string());
+                case LHS_ARRAY -> new LetNode.Array(string(), expression(), expression());
+                default -> throw new IllegalStateException("not a left-hand side tag: " + tag);
+            };
+        }
+
+        private ExpressionNode expression() {
+            Tag tag = tag();
+            return switch (tag) {
+                case NULL -> null;
+                case DOUBLE -> new DoubleNode(in.getDouble());
+                case STRING -> new StringNode(string());
+                case VAR -> new VarNode(string(), in.get() != 0);
+                case DIM_ACCESS -> new DimAccessNode(string(), expression(), expression());
+                case FN_CALL -> new FnCallNode(string(), expression());
+                case ABS -> new AbsNode(expression());
+                case ASC -> new AscNode(expression());
+                case ATN -> new AtnNode(expression());
+                case CHRS -> new ChrsNode(expression());
+                case COS -> new CosNode(expression());
+                case EXP -> new ExpNode(expression());
+                case INT -> new IntNode(expression());
+                case LEN -> new LenNode(expression());
+                case LOG -> new LogNode(expression());
+                case NEGATE -> new NegateNode(expression());
+                case NOT -> new NotNode(expression());
+                case SGN -> new SgnNode(expression());
+                case SIN -> new SinNode(expression());
+                case SQR -> new SqrNode(expression());
+                case TAN -> new TanNode(expression());
+                case VAL -> new ValNode(expression());
+                case ADD -> new AddNode(expression(), expression());
+                case SUBTRACT -> new SubtractNode(expression(), expression());
+                case MULTIPLY -> new MultiplyNode(expression(), expression());
+                case DIVIDE -> new DivideNode(expression(), expression());
+                case POWER -> new PowerNode(expression(), expression());
+                case AND -> new AndNode(expression(), expression());
+                case OR -> new OrNode(expression(), expression());
+                case EQ -> new EqNode(expression(), expression());
+                case NEQ -> new NeqNode(expression(), expression());
+                case LT -> new LtNode(expression(), expression());
+                case LEQ -> new LeqNode(expression(), expression());
+                case GT -> new GtNode(expression(), expression());
+                case GEQ -> new GeqNode(expression(), expression());
+                case LEFTS -> new LeftsNode(expression(), expression());
+                case MIDS -> new MidsNode(expression(), expression(), expression());
+                case RIGHTS -> new RightsNode(expression(), expression());
+                default -> throw new IllegalStateException("not an expression tag: " + tag);
+            };
+        }
+
+    }
+
+}
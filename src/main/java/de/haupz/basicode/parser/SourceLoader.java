@@ -0,0 +1,32 @@
+package de.haupz.basicode.parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * <p>Load BASIC source files for the {@link Parser}.</p>
+ *
+ * <p>A file is read and decoded in one go into a character buffer, which is the only copy of the source code that is
+ * kept. The {@link Lexer} works directly on that buffer, so that loading many programs creates little garbage. (Memory
+ * mapping the file would save one copy, but setting it up costs more startup time than the usual small BASIC program
+ * takes to read.)</p>
+ */
+public final class SourceLoader {
+
+    private SourceLoader() {}
+
+    /**
+     * Load a BASIC source file, which is expected to be encoded in UTF-8.
+     *
+     * @param path the path of the file.
+     * @return the contents of the file.
+     * @throws IOException in case the file cannot be read, or is not valid UTF-8.
+     */
+    public static CharSequence load(Path path) throws IOException {
+        return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(Files.readAllBytes(path)));
+    }
+
+}
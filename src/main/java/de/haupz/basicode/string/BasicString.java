@@ -0,0 +1,210 @@
+package de.haupz.basicode.string;
+
+/**
+ * <p>A BASIC string value built by concatenation. String values in the interpreter are {@link CharSequence}s: plain
+ * {@link String}s; instances of this class, which {@link #concat(CharSequence, CharSequence)} produces for longer
+ * results; or {@linkplain StringView views} of strings, which {@link #substring(CharSequence, int, int)} produces.
+ * The static methods of this class implement the operations on all of them.</p>
+ *
+ * <p>The characters are held in a growable buffer that may be shared by several values. A value is a section of its
+ * buffer; usually a prefix, or any section in the case of a {@linkplain #substring(CharSequence, int, int) substring}.
+ * Appending to a value that extends to the end of the used part of its buffer writes the new characters into the
+ * buffer in place, and yields a new, longer value that shares the buffer. The original value is unaffected, as it
+ * still sees only its own section. Appending to any other value (that is, one that is shared by a longer value already)
+ * copies it to a new buffer first. This way, the typical BASIC idiom {@code A$=A$+X$} in a loop takes amortised linear
+ * time in the length of the result, rather than quadratic.</p>
+ *
+ * <p>Values are immutable as seen from the BASIC program. The {@linkplain #toString() flattened} {@link String} is
+ * computed at most once per value.</p>
+ */
+public final class BasicString implements CharSequence {
+
+    /**
+     * Concatenation results shorter than this remain plain {@link String}s.
+     */
+    static final int MIN_LENGTH = 32;
+
+    /**
+     * The single-character strings for the character codes 0 to 255.
+     */
+    private static final String[] SINGLE_CHARS = new String[256];
+
+    static {
+        for (int c = 0; c < SINGLE_CHARS.length; ++c) {
+            SINGLE_CHARS[c] = String.valueOf((char) c);
+        }
+    }
+
+    /**
+     * A growable character buffer shared by values.
+     */
+    private static final class Buffer {
+        private char[] chars;
+        private int used;
+
+        Buffer(int capacity) {
+            chars = new char[capacity];
+        }
+
+        void append(CharSequence cs) {
+            int n = cs.length();
+            if (used + n > chars.length) {
+                char[] grown = new char[Math.max(2 * chars.length, used + n)];
+                System.arraycopy(chars, 0, grown, 0, used);
+                chars = grown;
+            }
+            if (cs instanceof String s) {
+                s.getChars(0, n, chars, used);
+            } else if (cs instanceof BasicString b) {
+                System.arraycopy(b.buffer.chars, b.offset, chars, used, n);
+            } else if (cs instanceof StringView v) {
+                v.getChars(chars, used);
+            } else {
+                for (int i = 0; i < n; ++i) {
+                    chars[used + i] = cs.charAt(i);
+                }
+            }
+            used += n;
+        }
+    }
+
+    private final Buffer buffer;
+
+    private final int offset;
+
+    private final int length;
+
+    /**
+     * The flattened representation, once it has been requested.
+     */
+    private String flat;
+
+    private BasicString(Buffer buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @param c a character.
+     * @return a string consisting of just that character. For character codes up to 255, this is a preallocated
+     * instance.
+     */
+    public static String valueOf(char c) {
+        return c < SINGLE_CHARS.length ? SINGLE_CHARS[c] : String.valueOf(c);
+    }
+
+    /**
+     * Concatenate two BASIC string values.
+     *
+     * @param s the first string.
+     * @param t the second string.
+     * @return the concatenation of both strings.
+     */
+    public static CharSequence concat(CharSequence s, CharSequence t) {
+        int n = s.length() + t.length();
+        if (t.isEmpty()) {
+            return s;
+        }
+        if (s instanceof BasicString b && b.offset + b.length == b.buffer.used) {
+            b.buffer.append(t);
+            return new BasicString(b.buffer, b.offset, n);
+        }
+        if (n < MIN_LENGTH) {
+            return s.toString().concat(t.toString());
+        }
+        Buffer buffer = new Buffer(2 * n);
+        buffer.append(s);
+        buffer.append(t);
+        return new BasicString(buffer, 0, n);
+    }
+
+    /**
+     * Extract a substring from a BASIC string value without copying. The result shares the characters of the string.
+     * Single-character results are {@linkplain #valueOf(char) preallocated} strings.
+     *
+     * @param s the string.
+     * @param start the index of the first character of the substring, inclusive.
+     * @param end the index of the last character of the substring, exclusive.
+     * @return the substring.
+     * @throws StringIndexOutOfBoundsException if the indices are out of range.
+     */
+    public static CharSequence substring(CharSequence s, int start, int end) {
+        if (start < 0 || end > s.length() || start > end) {
+            throw new StringIndexOutOfBoundsException("begin " + start + ", end " + end + ", length " + s.length());
+        }
+        if (end - start == 1) {
+            return valueOf(s.charAt(start));
+        }
+        if (start == 0 && end == s.length()) {
+            return s;
+        }
+        if (start == end) {
+            return "";
+        }
+        if (s instanceof BasicString b) {
+            return new BasicString(b.buffer, b.offset + start, end - start);
+        }
+        if (s instanceof StringView v) {
+            return v.slice(start, end);
+        }
+        if (s instanceof String t) {
+            return new StringView(t, start, end - start);
+        }
+        return s.subSequence(start, end);
+    }
+
+    /**
+     * Compare two BASIC string values lexicographically, like {@link String#compareTo(String)} does.
+     *
+     * @param s the first string.
+     * @param t the second string.
+     * @return a negative number, zero, or a positive number if the first string is less than, equal to, or greater
+     * than the second.
+     */
+    public static int compare(CharSequence s, CharSequence t) {
+        if (s instanceof String ss && t instanceof String ts) {
+            return ss.compareTo(ts);
+        }
+        return CharSequence.compare(s, t);
+    }
+
+    /**
+     * @param s the first string.
+     * @param t the second string.
+     * @return {@code true} if both BASIC string values consist of the same characters.
+     */
+    public static boolean equal(CharSequence s, CharSequence t) {
+        if (s instanceof String ss && t instanceof String ts) {
+            return ss.equals(ts);
+        }
+        return s.length() == t.length() && CharSequence.compare(s, t) == 0;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return buffer.chars[offset + index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return substring(this, start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null) {
+            flat = new String(buffer.chars, offset, length);
+        }
+        return flat;
+    }
+
+}
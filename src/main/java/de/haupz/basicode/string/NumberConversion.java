@@ -0,0 +1,306 @@
+package de.haupz.basicode.string;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * <p>Conversions between numbers and strings: the number format of {@code PRINT} and of the {@code GOSUB 300} and
+ * {@code GOSUB 310} subroutines, and the parsing of numbers in {@code VAL}.</p>
+ *
+ * <p>The number formats are defined by the {@link DecimalFormat} patterns {@code " #.######### ;-#.######### "} (for
+ * {@code PRINT}) and {@code "#.###"} with a varying number of decimal places (for the subroutines), in the English
+ * locale. The output is exactly that of {@code DecimalFormat}, but the common cases, i.e., numbers of moderate
+ * magnitude, are converted directly, using a per-thread character buffer, rather than through {@code java.text}.</p>
+ *
+ * <p>{@code DecimalFormat} rounds the shortest decimal representation of a {@code double} to the requested number of
+ * decimal places, half-even. Any decimal representation that identifies the {@code double} lies within half a unit in
+ * the last place of its exact binary value, so that, unless a rounding boundary lies that close to the exact value,
+ * rounding the exact value gives the same result. This is what the direct conversion does; for values close to a
+ * rounding boundary, and for values too large for a {@code long} to hold their scaled fraction with full precision,
+ * {@code DecimalFormat} is used.</p>
+ */
+public final class NumberConversion {
+
+    private NumberConversion() {}
+
+    /**
+     * The maximum number of decimal places that is converted directly.
+     */
+    private static final int MAX_DIRECT_DECIMAL_PLACES = 9;
+
+    /**
+     * Numbers of this magnitude or more are left to {@code DecimalFormat}.
+     */
+    private static final double MAX_DIRECT_MAGNITUDE = 1e15;
+
+    /**
+     * The powers of 10 from 10<sup>0</sup> to 10<sup>{@value #MAX_DIRECT_DECIMAL_PLACES}</sup>.
+     */
+    private static final double[] POWERS_OF_10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+
+    /**
+     * The powers of 10 that are exactly representable as {@code double}s, for parsing.
+     */
+    private static final double[] EXACT_POWERS_OF_10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18,
+            1e19, 1e20, 1e21, 1e22
+    };
+
+    /**
+     * The largest integer up to which all integers are exactly representable as {@code double}s.
+     */
+    private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+    /**
+     * The strings consisting of 0 to 63 spaces.
+     */
+    private static final String[] SPACES = new String[64];
+
+    static {
+        char[] spaces = new char[SPACES.length - 1];
+        Arrays.fill(spaces, ' ');
+        for (int n = 0; n < SPACES.length; ++n) {
+            SPACES[n] = new String(spaces, 0, n);
+        }
+    }
+
+    /**
+     * The buffer the direct conversion writes its output to. It is large enough for any directly converted number.
+     */
+    private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[40]);
+
+    /**
+     * The format for {@code PRINT}, for the numbers that are not converted directly. As {@link DecimalFormat} is not
+     * thread-safe, each thread has its own instance.
+     */
+    private static final ThreadLocal<DecimalFormat> PRINT_FORMAT =
+            ThreadLocal.withInitial(() -> decimalFormat(" #.######### ;-#.######### "));
+
+    /**
+     * The format with 9 decimal places, for the numbers that are not converted directly.
+     */
+    private static final ThreadLocal<DecimalFormat> STANDARD_FORMAT =
+            ThreadLocal.withInitial(() -> decimalFormat(decimalPattern(MAX_DIRECT_DECIMAL_PLACES)));
+
+    private static DecimalFormat decimalFormat(String pattern) {
+        return new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+    }
+
+    /**
+     * @param decimalPlaces the number of decimal places.
+     * @return a {@link DecimalFormat} pattern with the given number of (optional) decimal places.
+     */
+    private static String decimalPattern(int decimalPlaces) {
+        return decimalPlaces > 0 ? "#." + "#".repeat(decimalPlaces) : "#";
+    }
+
+    /**
+     * Format a number as {@code PRINT} does: with a leading space for non-negative numbers and a {@code -} for
+     * negative ones, up to 9 decimal places, and a trailing space.
+     *
+     * @param d the number.
+     * @return the formatted number.
+     */
+    public static String print(double d) {
+        String s = formatDirectly(d, MAX_DIRECT_DECIMAL_PLACES, true);
+        return s != null ? s : PRINT_FORMAT.get().format(d);
+    }
+
+    /**
+     * Format a number with up to a given number of decimal places, and no padding.
+     *
+     * @param d the number.
+     * @param decimalPlaces the maximum number of decimal places. Trailing zeros are omitted. Values less than 0 are
+     *                      treated as 0.
+     * @return the formatted number.
+     */
+    public static String format(double d, int decimalPlaces) {
+        int places = Math.max(decimalPlaces, 0);
+        String s = places <= MAX_DIRECT_DECIMAL_PLACES ? formatDirectly(d, places, false) : null;
+        if (s != null) {
+            return s;
+        }
+        DecimalFormat format = places == MAX_DIRECT_DECIMAL_PLACES ? STANDARD_FORMAT.get()
+                : decimalFormat(decimalPattern(places));
+        return format.format(d);
+    }
+
+    /**
+     * Format a number without {@code DecimalFormat}, if that is possible without deviating from its output.
+     *
+     * @param d the number.
+     * @param decimalPlaces the maximum number of decimal places, 0 to 9.
+     * @param padded whether to pad the number as {@code PRINT} does.
+     * @return the formatted number, or {@code null} if it needs to be formatted by {@code DecimalFormat}.
+     */
+    private static String formatDirectly(double d, int decimalPlaces, boolean padded) {
+        double a = Math.abs(d);
+        if (!(a < MAX_DIRECT_MAGNITUDE)) {
+            return null; // including NaN
+        }
+        long integral = (long) a;
+        double fraction = a - integral; // exact
+        long decimals = 0;
+        if (fraction != 0.0) {
+            double scale = POWERS_OF_10[decimalPlaces];
+            double scaled = fraction * scale;
+            // the exact product is scaled + error, with a remainder after the decimal places of remainder + error
+            double error = Math.fma(fraction, scale, -scaled);
+            decimals = (long) scaled;
+            double remainder = (scaled - decimals) + error;
+            double tolerance = Math.ulp(a) * scale + 0x1p-50;
+            if (Math.abs(remainder - 0.5) <= tolerance || tolerance >= 0.25) {
+                return null;
+            }
+            if (remainder > 0.5) {
+                ++decimals;
+                if (decimals == (long) scale) {
+                    ++integral;
+                    decimals = 0;
+                }
+            }
+        }
+        char[] buffer = BUFFER.get();
+        int pos = 0;
+        if (d < 0.0 || (d == 0.0 && 1.0 / d < 0.0)) {
+            buffer[pos++] = '-';
+        } else if (padded) {
+            buffer[pos++] = ' ';
+        }
+        pos = writeDigits(buffer, pos, integral, 0);
+        if (decimals != 0) {
+            int places = decimalPlaces;
+            while (decimals % 10 == 0) {
+                decimals /= 10;
+                --places;
+            }
+            buffer[pos++] = '.';
+            pos = writeDigits(buffer, pos, decimals, places);
+        }
+        if (padded) {
+            buffer[pos++] = ' ';
+        }
+        return new String(buffer, 0, pos);
+    }
+
+    /**
+     * Write the decimal digits of a non-negative number to a buffer.
+     *
+     * @param buffer the buffer.
+     * @param pos the position in the buffer to write the first digit to.
+     * @param n the number.
+     * @param width the minimum number of digits to write; if the number has fewer, leading zeros are written.
+     * @return the position after the last digit.
+     */
+    private static int writeDigits(char[] buffer, int pos, long n, int width) {
+        int length = 1;
+        for (long m = n / 10; m != 0; m /= 10) {
+            ++length;
+        }
+        length = Math.max(length, width);
+        int end = pos + length;
+        for (int i = end - 1; i >= pos; --i) {
+            buffer[i] = (char) ('0' + n % 10);
+            n /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * @param n a number of spaces.
+     * @return a string of that many spaces; the empty string if {@code n} is not positive.
+     */
+    public static String spaces(int n) {
+        if (n <= 0) {
+            return "";
+        }
+        return n < SPACES.length ? SPACES[n] : " ".repeat(n);
+    }
+
+    /**
+     * Parse a number from the beginning of a string, as {@code VAL} does. The number consists of an optional sign,
+     * digits with an optional decimal point (at least one digit must follow the point), and an optional exponent. Any
+     * text following the number is ignored.
+     *
+     * @param s the string.
+     * @return the number at the beginning of the string, or 0 if the string does not begin with a number.
+     */
+    public static double parse(CharSequence s) {
+        int length = s.length();
+        int pos = 0;
+        boolean negative = false;
+        if (pos < length && (s.charAt(pos) == '-' || s.charAt(pos) == '+')) {
+            negative = s.charAt(pos) == '-';
+            ++pos;
+        }
+        int digitsStart = pos;
+        long mantissa = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        int integralEnd = pos;
+        while (integralEnd < length && isDigit(s.charAt(integralEnd))) {
+            ++integralEnd;
+        }
+        int end = integralEnd;
+        if (end < length && s.charAt(end) == '.' && end + 1 < length && isDigit(s.charAt(end + 1))) {
+            end += 2;
+            while (end < length && isDigit(s.charAt(end))) {
+                ++end;
+            }
+            fractionDigits = end - integralEnd - 1;
+        }
+        if (end == digitsStart) {
+            return 0.0;
+        }
+        for (int i = digitsStart; i < end; ++i) {
+            char c = s.charAt(i);
+            if (c == '.') {
+                continue;
+            }
+            if (significantDigits > 0 || c != '0') {
+                ++significantDigits;
+            }
+            if (significantDigits <= 18) {
+                mantissa = 10 * mantissa + (c - '0');
+            }
+        }
+        int exponent = 0;
+        if (end < length && (s.charAt(end) == 'e' || s.charAt(end) == 'E')) {
+            int e = end + 1;
+            boolean negativeExponent = false;
+            if (e < length && (s.charAt(e) == '-' || s.charAt(e) == '+')) {
+                negativeExponent = s.charAt(e) == '-';
+                ++e;
+            }
+            int exponentStart = e;
+            while (e < length && isDigit(s.charAt(e))) {
+                ++e;
+            }
+            if (e > exponentStart) {
+                if (e - exponentStart > 9) {
+                    return Double.parseDouble(s.subSequence(0, e).toString());
+                }
+                for (int i = exponentStart; i < e; ++i) {
+                    exponent = 10 * exponent + (s.charAt(i) - '0');
+                }
+                exponent = negativeExponent ? -exponent : exponent;
+                end = e;
+            }
+        }
+        // exact operands and a single rounding step yield the correctly rounded result
+        int power = exponent - fractionDigits;
+        if (significantDigits <= 18 && mantissa <= MAX_EXACT_INTEGER && Math.abs(power) < EXACT_POWERS_OF_10.length) {
+            double m = mantissa;
+            double value = power < 0 ? m / EXACT_POWERS_OF_10[-power] : m * EXACT_POWERS_OF_10[power];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(s.subSequence(0, end).toString());
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
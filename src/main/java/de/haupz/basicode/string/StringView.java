@@ -0,0 +1,71 @@
+package de.haupz.basicode.string;
+
+/**
+ * A section of a {@link String}, produced by {@linkplain BasicString#substring(CharSequence, int, int) taking a
+ * substring} without copying. Views of views refer to the original string.
+ */
+final class StringView implements CharSequence {
+
+    private final String base;
+
+    private final int offset;
+
+    private final int length;
+
+    /**
+     * The flattened representation, once it has been requested.
+     */
+    private String flat;
+
+    StringView(String base, int offset, int length) {
+        this.base = base;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @param start the index of the first character of the section, relative to this view, inclusive.
+     * @param end the index of the last character of the section, relative to this view, exclusive.
+     * @return a view of the section, sharing the original string.
+     */
+    StringView slice(int start, int end) {
+        return new StringView(base, offset + start, end - start);
+    }
+
+    /**
+     * Copy the characters of this view into an array.
+     *
+     * @param dst the destination array.
+     * @param dstBegin the index in the destination array at which to start.
+     */
+    void getChars(char[] dst, int dstBegin) {
+        base.getChars(offset, offset + length, dst, dstBegin);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        return base.charAt(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return BasicString.substring(this, start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flat == null) {
+            flat = base.substring(offset, offset + length);
+        }
+        return flat;
+    }
+
+}
@@ -11,21 +11,14 @@ import de.haupz.basicode.io.GraphicsCursor;
 import de.haupz.basicode.io.TextCursor;
 import de.haupz.basicode.parser.Parser;
 import de.haupz.basicode.parser.ParserException;
-import de.haupz.basicode.ui.Sound;
+import de.haupz.basicode.string.NumberConversion;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.*;
 import java.util.List;
 
@@ -33,88 +26,88 @@ import java.util.List;
  * <p>The {@code Subroutines} class holds all implementations of the BASICODE standard subroutines. Most of these are
  * called with {@code GOSUB} statements; some, using {@code GOTO}.</p>
  *
- * <p>Any subroutine implementation must follow a few conventions:<ul>
- *     <li>it must be declared as {@code public static};</li>
- *     <li>its return type must be {@code void};</li>
- *     <li>it must accept a single argument of type {@link InterpreterState};</li>
- *     <li>its name must begin with either {@code gosub} or {@code goto}, depending on whether it is meant to be called
- *     by {@code GOSUB} or {@code GOTO}, respectively; and this prefix must be immediately followed by a number
- *     representing the line number the aforementioned call or jump should be directed to.</li>
- * </ul></p>
+ * <p>{@code GOSUB} and {@code GOTO} statements find their subroutine only through {@link #lookup(int)}, a
+ * hand-maintained switch that maps line numbers to method references; no reflection is involved. A new subroutine
+ * must be added to that switch, or it cannot be called.</p>
  *
- * <p>During startup, as soon as the {@code Subroutines} class is initialised, all of its methods adhering to the above
- * convention will be automatically registered.</p>
+ * <p>A subroutine implementation is a {@code static} method that matches {@link Routine}: it returns {@code void},
+ * and accepts a single argument of type {@link InterpreterState}. By convention, its name is {@code gosub} or
+ * {@code goto}, depending on how it is meant to be called, followed by its line number. The name does not matter for
+ * dispatch, but {@code SubroutineTest} relies on it to check that {@link #lookup(int)} covers every subroutine.</p>
  */
 public class Subroutines {
 
     /**
-     * The {@link Map} holding all subroutines. The keys are the line numbers the respective subroutines are called at.
-     * The values are method handles representing the subroutine methods.
+     * A subroutine. Instances are method references to the subroutine methods.
      */
-    private static final Map<Integer, MethodHandle> ROUTINES = new HashMap<>();
-
-    /**
-     * The method signature for any subroutine, according to the convention described in the class comment.
-     */
-    private static final MethodType ROUTINE_TYPE = MethodType.methodType(void.class, InterpreterState.class);
-
-    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
-
-    /**
-     * Look up a subroutine method identified by its name, and return a method handle representing it if successful.
-     *
-     * @param methodName the name of the subroutine method, following the convention described in the class comment.
-     * @return a method handle representing the subroutine method.
-     */
-    private static MethodHandle lookupTarget(String methodName) {
-        try {
-            return LOOKUP.findStatic(Subroutines.class, methodName, ROUTINE_TYPE);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    @FunctionalInterface
+    public interface Routine {
+        void run(InterpreterState state);
     }
 
     /**
-     * Register a subroutine in the {@link Subroutines#ROUTINES ROUTINES} map. The line number, used as a key in the
-     * map, will be extracted from the method name.
+     * Look up the subroutine for a line number. This is meant to be called once per {@code GOSUB} or {@code GOTO}
+     * statement, when the statement is created, so that running the statement needs no further lookup.
      *
-     * @param method a subroutine method.
+     * @param target the line number of the subroutine.
+     * @return the subroutine, or {@code null} if there is no subroutine at that line number.
      */
-    private static void registerRoutine(Method method) {
-        String name = method.getName();
-        int target = Integer.parseInt(name.substring(name.startsWith("goto")?4:5));
-        ROUTINES.put(target, lookupTarget(name));
-    }
-
-    /**
-     * Register all subroutine methods in the {@code Subroutines} class. The method will find all methods adhering to
-     * the convention described in the class comment, and register them in the {@link Subroutines#ROUTINES ROUTINES}
-     * map.
-     */
-    static void registerRoutines() {
-        Arrays.stream(Subroutines.class.getDeclaredMethods())
-                .filter(m -> Modifier.isStatic(m.getModifiers()))
-                .filter(m -> m.getName().matches("(goto|gosub)\\d+"))
-                .forEach(Subroutines::registerRoutine);
-    }
-
-    static {
-        registerRoutines();
+    public static Routine lookup(int target) {
+        return switch (target) {
+            case 20 -> Subroutines::goto20;
+            case 100 -> Subroutines::gosub100;
+            case 110 -> Subroutines::gosub110;
+            case 120 -> Subroutines::gosub120;
+            case 150 -> Subroutines::gosub150;
+            case 200 -> Subroutines::gosub200;
+            case 210 -> Subroutines::gosub210;
+            case 220 -> Subroutines::gosub220;
+            case 250 -> Subroutines::gosub250;
+            case 260 -> Subroutines::gosub260;
+            case 270 -> Subroutines::gosub270;
+            case 280 -> Subroutines::gosub280;
+            case 300 -> Subroutines::gosub300;
+            case 310 -> Subroutines::gosub310;
+            case 330 -> Subroutines::gosub330;
+            case 350 -> Subroutines::gosub350;
+            case 360 -> Subroutines::gosub360;
+            case 400 -> Subroutines::gosub400;
+            case 450 -> Subroutines::gosub450;
+            case 500 -> Subroutines::gosub500;
+            case 540 -> Subroutines::gosub540;
+            case 560 -> Subroutines::gosub560;
+            case 580 -> Subroutines::gosub580;
+            case 600 -> Subroutines::gosub600;
+            case 620 -> Subroutines::gosub620;
+            case 630 -> Subroutines::gosub630;
+            case 650 -> Subroutines::gosub650;
+            case 950 -> Subroutines::goto950;
+            case 960 -> Subroutines::gosub960;
+            case 961 -> Subroutines::gosub961;
+            case 962 -> Subroutines::gosub962;
+            case 963 -> Subroutines::gosub963;
+            case 964 -> Subroutines::gosub964;
+            case 965 -> Subroutines::gosub965;
+            case 966 -> Subroutines::gosub966;
+            case 967 -> Subroutines::gosub967;
+            case 968 -> Subroutines::gosub968;
+            default -> null;
+        };
     }
 
     /**
      * Run a {@code GOTO} subroutine.
      *
+     * @param routine the subroutine, as {@linkplain #lookup(int) looked up} for the target line number.
      * @param target the line number for the subroutine.
      * @param state the {@link InterpreterState} to be used in the subroutine's execution.
      */
-    public static void runGoto(int target, InterpreterState state) {
-        MethodHandle routine = ROUTINES.get(target);
+    public static void runGoto(Routine routine, int target, InterpreterState state) {
         if (routine == null) {
             throw new IllegalStateException("subroutine not implemented: goto " + target);
         }
         try {
-            routine.invoke(state);
+            routine.run(state);
         } catch (Throwable t) {
             throw new IllegalStateException("error in goto " + target, t);
         }
@@ -123,27 +116,22 @@ public class Subroutines {
     /**
      * Run a {@code GOSUB} subroutine.
      *
+     * @param routine the subroutine, as {@linkplain #lookup(int) looked up} for the target line number.
      * @param target the line number for the subroutine.
      * @param state the {@link InterpreterState} to be used in the subroutine's execution.
      */
-    public static void runGosub(int target, InterpreterState state) {
-        MethodHandle routine = ROUTINES.get(target);
+    public static void runGosub(Routine routine, int target, InterpreterState state) {
         if (routine == null) {
             throw new IllegalStateException("subroutine not implemented: gosub " + target);
         }
         try {
-            routine.invoke(state);
+            routine.run(state);
             state.requestReturn();
         } catch (Throwable t) {
             throw new IllegalStateException("error in gosub " + target, t);
         }
     }
 
-    /**
-     * Random number generator used by {@link Subroutines#gosub260}.
-     */
-    private static final Random RND = new Random();
-
     /**
      * The subroutines for graphics output use this to paint lines and dots. Its width is chosen to arrive at a somewhat
      * pleasant looking line width.
@@ -182,8 +170,8 @@ public class Subroutines {
      */
     private static Color establishColours(InterpreterState state) {
         BasicArray1D cc = (BasicArray1D) state.getArray("CC").get();
-        int fg = ((Double) cc.at(0, -1)).intValue();
-        int bg = ((Double) cc.at(1, -1)).intValue();
+        int fg = (int) cc.atDouble(0, -1);
+        int bg = (int) cc.atDouble(1, -1);
         state.getOutput().setColours(fg, bg);
         int cn = getStdVar(state, "CN").intValue();
         Color c = cn == 0 ? state.getOutput().getForegroundColour() : state.getOutput().getBackgroundColour();
@@ -258,8 +246,8 @@ public class Subroutines {
         }
         state.getOutput().setTextCursor(ho, ve);
         BasicArray1D cc = (BasicArray1D) state.getArray("CC").get();
-        int fg = ((Double) cc.at(0, -1)).intValue();
-        int bg = ((Double) cc.at(1, -1)).intValue();
+        int fg = (int) cc.atDouble(0, -1);
+        int bg = (int) cc.atDouble(1, -1);
         state.getOutput().setPrintColours(fg, bg);
     }
 
@@ -282,7 +270,7 @@ public class Subroutines {
      * @param state the interpreter state.
      */
     public static void gosub150(InterpreterState state) {
-        String sr = "   " + (String) state.getVar("SR$").get() + "   ";
+        String sr = "   " + state.getVar("SR$").get() + "   ";
         state.getOutput().printReverse(sr);
     }
 
@@ -345,7 +333,7 @@ public class Subroutines {
             return;
         }
         // 69 corresponds to A in MIDI.
-        Sound.play(69, 250, 127);
+        state.getSound().play(69, 250, 127);
     }
 
     /**
@@ -354,7 +342,7 @@ public class Subroutines {
      * @param state the interpreter state.
      */
     public static void gosub260(InterpreterState state) {
-        state.setVar("RV", RND.nextDouble());
+        state.setVar("RV", state.getRandom().nextDouble());
     }
 
     /**
@@ -395,22 +383,6 @@ public class Subroutines {
         return new String(a);
     }
 
-    /**
-     * Helper method: create a decimal formatter string with the given amount of decimal places.
-     *
-     * @param decimalPlaces the desired number of decimal places.
-     * @return a decimal formatter string with the number of decimal places as given in {@code decimalPlaces}.
-     */
-    private static String decimalFormat(int decimalPlaces) {
-        return "#" + (decimalPlaces > 0 ? "." + fill(decimalPlaces, '#') : "");
-    }
-
-    /**
-     * The standard format for printing decimal numbers.
-     */
-    private static final DecimalFormat STANDARD_DECIMAL_FORMAT =
-            new DecimalFormat(decimalFormat(9), DecimalFormatSymbols.getInstance(Locale.ENGLISH));
-
     /**
      * {@code GOSUB 300}: convert a number passed in the {@code SR} variable to a string returned in {@code SR$}.
      *
@@ -418,7 +390,7 @@ public class Subroutines {
      */
     public static void gosub300(InterpreterState state) {
         double sr = getStdVar(state, "SR").doubleValue();
-        String str = STANDARD_DECIMAL_FORMAT.format(sr);
+        String str = NumberConversion.format(sr, 9);
         state.setVar("SR$", str);
     }
 
@@ -464,10 +436,10 @@ public class Subroutines {
         if (cannotDisplay(sr, cn, ct)) {
             s = fill(ct, '*');
         } else {
-            s = new DecimalFormat(decimalFormat(cn), DecimalFormatSymbols.getInstance(Locale.ENGLISH)).format(sr);
+            s = NumberConversion.format(sr, cn);
         }
         if (s.length() < ct) {
-            s = fill(ct - s.length(), ' ') + s;
+            s = NumberConversion.spaces(ct - s.length()) + s;
         }
         state.setVar("SR$", s);
     }
@@ -478,7 +450,7 @@ public class Subroutines {
      * @param state the interpreter state.
      */
     public static void gosub330(InterpreterState state) {
-        String srs = (String) state.getVar("SR$").get();
+        String srs = state.getVar("SR$").get().toString();
         // {} are lower-case in the BASICODE world, and [] are upper-case
         state.setVar("SR$", srs.toUpperCase().replace('{', '[').replace('}', ']'));
     }
@@ -508,7 +480,7 @@ public class Subroutines {
      * @param state the interpreter state.
      */
     public static void gosub350(InterpreterState state) {
-        String sr = (String) state.getVar("SR$").get();
+        String sr = state.getVar("SR$").get().toString();
         PrintStream printer = ensurePrinter(state);
         printer.print(sr);
     }
@@ -550,7 +522,7 @@ public class Subroutines {
         int sv = getStdVar(state, "SV").intValue();
         int duration = (int) (100 * sd); // sd is in 0.1 s (100 ms)
         int volume = (int) (127/15.0 * sv); // volume is 0..127, mapping from 0..15
-        Sound.play(sp, duration, volume);
+        state.getSound().play(sp, duration, volume);
     }
 
     /**
@@ -609,7 +581,7 @@ public class Subroutines {
      * @param state the interpreter state.
      */
     public static void gosub500(InterpreterState state) {
-        String fileName = (String) state.getVar("NF$").get();
+        String fileName = state.getVar("NF$").get().toString();
         int mode = getStdVar(state, "NF").intValue();
         Path p = Paths.get(fileName);
         int errorCode = 0;
@@ -690,7 +662,7 @@ public class Subroutines {
      * @param state the interpreter state.
      */
     public static void gosub560(InterpreterState state) {
-        String sr = (String) state.getVar("SR$").get();
+        String sr = state.getVar("SR$").get().toString();
         int errorCode = 0;
         PrintStream out = state.getCurrentOutFile();
         if (null == out) {
@@ -840,7 +812,7 @@ public class Subroutines {
             checkBoundaries("HO", ho);
             checkBoundaries("VE", ve);
         }
-        String sr = (String) state.getVar("SR$").get();
+        String sr = state.getVar("SR$").get().toString();
         Graphics2D g2 = (Graphics2D) im.getGraphics();
         Color c = establishColours(state);
         g2.setPaint(c);
@@ -985,8 +957,8 @@ public class Subroutines {
         String error = "no condition given";
         Optional<Object> oods = state.getVar("OC$");
         if (oods.isPresent()) {
-            String ods = (String) oods.get();
-            Parser parser = new Parser(new StringReader(ods));
+            String ods = oods.get().toString();
+            Parser parser = new Parser(ods);
             ExpressionNode condition;
             try {
                 condition = parser.expression();
@@ -1038,14 +1010,14 @@ public class Subroutines {
         }
         Optional<BasicArray> od = state.getArray("OD$");
         List<String> displayInfo = od
-                .map(a -> Arrays.stream(a.getRawData()).map(o -> (String) o).toList())
+                .map(a -> Arrays.stream(a.getRawData()).map(Object::toString).toList())
                 .orElse(List.of());
         Optional<Object> oc = state.getVar("OC$");
         boolean conditionOK = true;
         Optional<ExpressionNode> condition = Optional.empty();
         if (oc.isPresent()) {
-            String expr = (String) oc.get();
-            Parser parser = new Parser(new StringReader(expr));
+            String expr = oc.get().toString();
+            Parser parser = new Parser(expr);
             try {
                 condition = Optional.of(parser.expression());
             } catch (ParserException pe) {
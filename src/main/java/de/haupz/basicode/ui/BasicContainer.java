@@ -46,6 +46,12 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
      */
     private final BufferedImage image;
 
+    /**
+     * The representation of the display in text mode. The cells of the text buffer are drawn here before the image is
+     * drawn on screen.
+     */
+    private final BufferedImage textImage;
+
     /**
      * A thread to take care of key events.
      */
@@ -133,6 +139,22 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
      */
     private GraphicsCursor graphicsCursor = new GraphicsCursor(0.0, 0.0);
 
+    /**
+     * Pre-rendered character cells for text mode. This is created when text is first painted, so that the font is not
+     * needed earlier.
+     */
+    private GlyphAtlas glyphAtlas;
+
+    /**
+     * Collects repaint requests, and paints the display at the configured frame rate.
+     */
+    private final RenderScheduler renderScheduler;
+
+    /**
+     * Requests a repaint of the pixels covered by a region of text buffer cells.
+     */
+    private final TextBuffer.DirtyRegionConsumer repaintCells;
+
     /**
      * Construct a {@code BasicContainer}, and enable key event processing.
      */
@@ -142,19 +164,26 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
         textBuffer = new TextBuffer(LINES, COLUMNS, backgroundColour, foregroundColour);
         textBuffer.clear();
         image = new BufferedImage(ConsoleConfiguration.WIDTH, ConsoleConfiguration.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        textImage =
+                new BufferedImage(ConsoleConfiguration.WIDTH, ConsoleConfiguration.HEIGHT, BufferedImage.TYPE_INT_RGB);
         keyThread = new KeyThread();
         collectingKeyEvents = true;
         keyThread.start();
         addKeyListener(makeKeyListener());
         showMapKeys = config.showMapKeys();
+        renderScheduler = new RenderScheduler(this, config.frameRate());
+        repaintCells = (column, line, width, height) ->
+                renderScheduler.request(column * C_WIDTH, line * C_HEIGHT, width * C_WIDTH, height * C_HEIGHT);
+        renderScheduler.start();
     }
 
     /**
-     * Shut down the GUI by ending the processing of key events.
+     * Shut down the GUI by ending the processing of key events and the presentation of frames.
      */
     public void shutdown() {
         collectingKeyEvents = false;
         keyThread.interrupt();
+        renderScheduler.stop();
     }
 
     /**
@@ -173,8 +202,8 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
     }
 
     /**
-     * Depending on whether BASICODE is in graphics mode or text mode, draw the current GUI contents. In text mode, the
-     * entire text output will be repainted.
+     * Depending on whether BASICODE is in graphics mode or text mode, draw the current GUI contents. In text mode, only
+     * the cells intersecting the clip area will be repainted.
      *
      * @param g the {@code Graphics} context in which to paint
      */
@@ -185,20 +214,30 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
         if (isGraphicsMode) {
             g2.drawImage(image, 0, 0, ConsoleConfiguration.WIDTH, ConsoleConfiguration.HEIGHT, null);
         } else {
-            g2.setFont(FONT);
+            if (glyphAtlas == null) {
+                glyphAtlas = new GlyphAtlas(font());
+            }
             TextCursor cursorPos = getTextCursor();
-            for (int l = 0; l < textBuffer.getLines(); ++l) {
-                for (int c = 0; c < textBuffer.getColumns(); ++c) {
-                    g2.setColor(textBuffer.getBackgroundColourAt(l, c));
-                    g2.fillRect(c * C_WIDTH, l * C_HEIGHT, C_WIDTH, C_HEIGHT);
-                    g2.setColor(textBuffer.getForegroundColourAt(l, c));
-                    g2.drawChars(textBuffer.getLine(l), c, 1, c * C_WIDTH, (l + 1) * C_HEIGHT);
-                    if (isCursorVisible && c == cursorPos.col() && l == cursorPos.row()) {
-                        g2.setXORMode(textBuffer.getBackgroundColourAt(l, c));
-                        g2.setColor(textBuffer.getForegroundColourAt(l, c));
-                        g2.fillRect(c * C_WIDTH, l * C_HEIGHT, C_WIDTH, C_HEIGHT);
-                    }
-                }
+            Rectangle clip = g2.getClipBounds();
+            int firstLine = 0;
+            int lastLine = textBuffer.getLines();
+            int firstColumn = 0;
+            int lastColumn = textBuffer.getColumns();
+            if (clip != null) {
+                firstLine = Math.max(firstLine, clip.y / C_HEIGHT);
+                lastLine = Math.min(lastLine, (clip.y + clip.height + C_HEIGHT - 1) / C_HEIGHT);
+                firstColumn = Math.max(firstColumn, clip.x / C_WIDTH);
+                lastColumn = Math.min(lastColumn, (clip.x + clip.width + C_WIDTH - 1) / C_WIDTH);
+            }
+            glyphAtlas.drawText(textImage, textBuffer, firstLine, lastLine, firstColumn, lastColumn);
+            g2.drawImage(textImage, 0, 0, null);
+            int l = cursorPos.row();
+            int c = cursorPos.col();
+            if (isCursorVisible && l >= firstLine && l < lastLine && c >= firstColumn && c < lastColumn) {
+                g2.setXORMode(textBuffer.getBackgroundColourAt(l, c));
+                g2.setColor(textBuffer.getForegroundColourAt(l, c));
+                g2.fillRect(c * C_WIDTH, l * C_HEIGHT, C_WIDTH, C_HEIGHT);
+                g2.setPaintMode();
             }
         }
     }
@@ -208,7 +247,7 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
      */
     private void showCursor() {
         isCursorVisible = true;
-        repaint();
+        repaintCursor();
     }
 
     /**
@@ -216,7 +255,26 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
      */
     private void hideCursor() {
         isCursorVisible = false;
-        repaint();
+        repaintCursor();
+    }
+
+    /**
+     * Request a repaint of the cell the text mode cursor is in.
+     */
+    private void repaintCursor() {
+        repaintCells.accept(textBuffer.getColumn(), textBuffer.getLine(), 1, 1);
+    }
+
+    /**
+     * Request a repaint of whatever has changed. In text mode, these are only the regions of the text buffer that have
+     * changed since the last repaint request; in graphics mode, it's the entire display.
+     */
+    private void repaintChanges() {
+        if (isGraphicsMode) {
+            renderScheduler.requestAll();
+        } else {
+            textBuffer.drainDirtyRegions(repaintCells);
+        }
     }
 
     /**
@@ -227,7 +285,7 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
     @Override
     public void print(String s) {
         textBuffer.writeString(s, false);
-        repaint();
+        repaintChanges();
     }
 
     /**
@@ -238,7 +296,7 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
     @Override
     public void printReverse(String s) {
         textBuffer.writeString(s, true);
-        repaint();
+        repaintChanges();
     }
 
     /**
@@ -259,15 +317,15 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
     @Override
     public void println() {
         textBuffer.lineFeed();
-        repaint();
+        repaintChanges();
     }
 
     /**
-     * Repaint the GUI.
+     * Repaint the GUI, as far as it has changed.
      */
     @Override
     public void flush() {
-        repaint();
+        repaintChanges();
     }
 
     /**
@@ -277,7 +335,7 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
     public void textMode() {
         isGraphicsMode = false;
         textBuffer.clear();
-        repaint();
+        repaintChanges();
     }
 
     /**
@@ -308,7 +366,7 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
         Graphics2D g2 = (Graphics2D) image.getGraphics();
         g2.setBackground(backgroundColour);
         g2.clearRect(0, 0, ConsoleConfiguration.WIDTH, ConsoleConfiguration.HEIGHT);
-        repaint();
+        renderScheduler.requestAll();
     }
 
     /**
@@ -324,7 +382,7 @@ public class BasicContainer extends JComponent implements BasicInput, BasicOutpu
      */
     @Override
     public Font getFont() {
-        return FONT;
+        return font();
     }
 
     /**
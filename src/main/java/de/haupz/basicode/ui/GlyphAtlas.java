@@ -0,0 +1,172 @@
+package de.haupz.basicode.ui;
+
+import de.haupz.basicode.io.TextBuffer;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import static de.haupz.basicode.io.ConsoleConfiguration.*;
+
+/**
+ * <p>A cache of pre-rendered character cells for text mode. Rendering text through {@link Graphics2D#drawChars} means
+ * rasterising the font for every cell on every repaint; instead, the pixels of each cell are copied from an atlas
+ * image to an off-screen image of the text display, which can then be drawn with a single
+ * {@link Graphics#drawImage} call.</p>
+ *
+ * <p>There is one atlas for each combination of foreground and background colour from the
+ * {@linkplain de.haupz.basicode.io.ConsoleConfiguration#COLOR_MAP colour map}. An atlas holds all characters from 0 to
+ * 255, each rendered on its background, side by side. As most programs only ever use a few colour combinations, an
+ * atlas is only rendered when its combination is first needed. Characters beyond 255, and colours that are not in the
+ * colour map, are rendered directly.</p>
+ */
+public class GlyphAtlas {
+
+    /**
+     * The number of characters held in each atlas.
+     */
+    private static final int N_GLYPHS = 256;
+
+    /**
+     * The width of an atlas in pixels.
+     */
+    private static final int ATLAS_WIDTH = N_GLYPHS * C_WIDTH;
+
+    /**
+     * The pixels of the atlases, indexed by {@code foreground * N_COLORS + background}, where {@code foreground} and
+     * {@code background} are colour codes. An entry is {@code null} until it is first needed.
+     */
+    private final int[][] atlases = new int[N_COLORS * N_COLORS][];
+
+    /**
+     * The font the characters are rendered in.
+     */
+    private final Font font;
+
+    /**
+     * Construct a glyph atlas for the given font.
+     *
+     * @param font the font to render characters in.
+     */
+    public GlyphAtlas(Font font) {
+        this.font = font;
+    }
+
+    /**
+     * @param colour a colour.
+     * @return the BASICODE colour code of the colour, or -1 if it is not in the colour map.
+     */
+    private static int colourCode(Color colour) {
+        for (int i = 0; i < N_COLORS; ++i) {
+            if (COLOR_MAP[i] == colour) {
+                return i;
+            }
+        }
+        for (int i = 0; i < N_COLORS; ++i) {
+            if (COLOR_MAP[i].equals(colour)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Render a single character cell directly, with its top left corner at the given coordinates.
+     */
+    private void renderCell(Graphics2D g2, char c, Color foreground, Color background, int x, int y) {
+        g2.setColor(background);
+        g2.fillRect(x, y, C_WIDTH, C_HEIGHT);
+        g2.setColor(foreground);
+        g2.setFont(font);
+        g2.drawChars(new char[] {c}, 0, 1, x, y + C_HEIGHT);
+    }
+
+    /**
+     * Render the atlas for a colour combination.
+     *
+     * @param foreground the foreground colour code.
+     * @param background the background colour code.
+     * @return the pixels of the atlas.
+     */
+    private int[] renderAtlas(int foreground, int background) {
+        BufferedImage atlas = new BufferedImage(ATLAS_WIDTH, C_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = atlas.createGraphics();
+        try {
+            for (int c = 0; c < N_GLYPHS; ++c) {
+                // clip each glyph to its cell, so that glyphs extending beyond it don't bleed into their neighbours
+                g2.setClip(c * C_WIDTH, 0, C_WIDTH, C_HEIGHT);
+                renderCell(g2, (char) c, COLOR_MAP[foreground], COLOR_MAP[background], c * C_WIDTH, 0);
+            }
+        } finally {
+            g2.dispose();
+        }
+        return pixels(atlas);
+    }
+
+    /**
+     * @param image an image of type {@link BufferedImage#TYPE_INT_RGB}.
+     * @return the pixels of the image, one row after another.
+     */
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Draw a rectangular region of a text buffer to an image. Each cell is drawn at the pixel position corresponding to
+     * its line and column.
+     *
+     * @param image the image to draw in. It must be of type {@link BufferedImage#TYPE_INT_RGB}, and large enough to
+     *              hold the region.
+     * @param textBuffer the text buffer.
+     * @param firstLine the first line to draw.
+     * @param lastLine the line after the last one to draw.
+     * @param firstColumn the first column to draw.
+     * @param lastColumn the column after the last one to draw.
+     */
+    public void drawText(BufferedImage image, TextBuffer textBuffer, int firstLine, int lastLine, int firstColumn,
+                         int lastColumn) {
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalStateException("unsupported image type: " + image.getType());
+        }
+        int[] target = pixels(image);
+        int width = image.getWidth();
+        Graphics2D g2 = null;
+        try {
+            for (int l = firstLine; l < lastLine; ++l) {
+                char[] line = textBuffer.getLine(l);
+                for (int c = firstColumn; c < lastColumn; ++c) {
+                    char ch = line[c];
+                    Color foreground = textBuffer.getForegroundColourAt(l, c);
+                    Color background = textBuffer.getBackgroundColourAt(l, c);
+                    int fg = colourCode(foreground);
+                    int bg = colourCode(background);
+                    int x = c * C_WIDTH;
+                    int y = l * C_HEIGHT;
+                    if (ch >= N_GLYPHS || fg < 0 || bg < 0) {
+                        if (g2 == null) {
+                            g2 = image.createGraphics();
+                        }
+                        g2.setClip(x, y, C_WIDTH, C_HEIGHT);
+                        renderCell(g2, ch, foreground, background, x, y);
+                        continue;
+                    }
+                    int index = fg * N_COLORS + bg;
+                    int[] atlas = atlases[index];
+                    if (atlas == null) {
+                        atlas = renderAtlas(fg, bg);
+                        atlases[index] = atlas;
+                    }
+                    for (int row = 0, src = ch * C_WIDTH, dst = y * width + x; row < C_HEIGHT;
+                         ++row, src += ATLAS_WIDTH, dst += width) {
+                        System.arraycopy(atlas, src, target, dst, C_WIDTH);
+                    }
+                }
+            }
+        } finally {
+            if (g2 != null) {
+                g2.dispose();
+            }
+        }
+    }
+
+}
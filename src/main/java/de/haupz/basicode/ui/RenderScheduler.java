@@ -0,0 +1,137 @@
+package de.haupz.basicode.ui;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * <p>The {@code RenderScheduler} decouples output from painting. Output operations
+ * {@linkplain #request(int, int, int, int) request} regions of a component to be repainted; the requests are collected,
+ * and the component is painted at a fixed frame rate, like the display of the original hardware would be refreshed.
+ * This way, a program that prints or draws a lot does not flood the event dispatch thread with repaint requests, and
+ * the speed of the interpreter does not depend on how quickly Swing can handle them.</p>
+ *
+ * <p>If the frame rate is 0, the scheduler is in immediate mode: each request is passed on to
+ * {@link JComponent#repaint(int, int, int, int)} directly. This is meant for debugging.</p>
+ */
+public class RenderScheduler {
+
+    /**
+     * The component to paint.
+     */
+    private final JComponent component;
+
+    /**
+     * The timer presenting frames on the event dispatch thread, or {@code null} in immediate mode.
+     */
+    private final Timer timer;
+
+    /**
+     * The region requested to be painted since the last frame was presented. It is empty if there is none.
+     */
+    private final Rectangle pending = new Rectangle();
+
+    /**
+     * Construct a render scheduler.
+     *
+     * @param component the component to paint.
+     * @param frameRate the number of frames to present per second, or 0 for immediate mode.
+     */
+    public RenderScheduler(JComponent component, int frameRate) {
+        if (frameRate < 0) {
+            throw new IllegalStateException("frame rate must not be negative: " + frameRate);
+        }
+        this.component = component;
+        if (frameRate == 0) {
+            timer = null;
+        } else {
+            timer = new Timer(Math.max(1, 1000 / frameRate), e -> present());
+            timer.setCoalesce(true);
+        }
+    }
+
+    /**
+     * @return {@code true} if requests are passed on directly, rather than being collected for the next frame.
+     */
+    public boolean isImmediate() {
+        return timer == null;
+    }
+
+    /**
+     * Start presenting frames.
+     */
+    public void start() {
+        if (timer != null) {
+            timer.start();
+        }
+    }
+
+    /**
+     * Stop presenting frames. Any requests still pending are passed on to the component.
+     */
+    public void stop() {
+        if (timer != null) {
+            timer.stop();
+            Rectangle region = takePending();
+            if (region != null) {
+                component.repaint(region);
+            }
+        }
+    }
+
+    /**
+     * Request a region of the component to be painted. This method can be called from any thread.
+     *
+     * @param x the horizontal coordinate of the region.
+     * @param y the vertical coordinate of the region.
+     * @param width the width of the region.
+     * @param height the height of the region.
+     */
+    public void request(int x, int y, int width, int height) {
+        if (timer == null) {
+            component.repaint(x, y, width, height);
+            return;
+        }
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                pending.setBounds(x, y, width, height);
+            } else {
+                // include the top left and bottom right corners, which is the same as the union with the region
+                pending.add(x, y);
+                pending.add(x + width, y + height);
+            }
+        }
+    }
+
+    /**
+     * Request the entire component to be painted. This method can be called from any thread.
+     */
+    public void requestAll() {
+        request(0, 0, component.getWidth(), component.getHeight());
+    }
+
+    /**
+     * @return the region requested to be painted, or {@code null} if there is none. The pending region is reset.
+     */
+    private Rectangle takePending() {
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return null;
+            }
+            Rectangle region = new Rectangle(pending);
+            pending.setBounds(0, 0, 0, 0);
+            return region;
+        }
+    }
+
+    /**
+     * Present a frame by painting the region requested since the last one, if any. This is called on the event
+     * dispatch thread.
+     */
+    private void present() {
+        Rectangle region = takePending();
+        if (region != null) {
+            component.paintImmediately(region);
+        }
+    }
+
+}
@@ -5,24 +5,26 @@ import javax.sound.midi.MidiSystem;
 import javax.sound.midi.Synthesizer;
 
 /**
- * The {@code Sound} class provides basic routines for playing audio.
+ * The {@code Sound} class provides basic routines for playing audio. Each interpreter has its own instance, so that
+ * programs running concurrently don't interfere. The synthesizer is only opened when the first sound is played.
  */
 public class Sound {
 
-    private static final Synthesizer SYNTH;
+    private Synthesizer synth;
 
-    private static final MidiChannel CHANNEL;
+    private MidiChannel channel;
 
     private static final int SOUND_SQUARE = 81; // MIDI for square wave synth
 
-    static {
-        try {
-            SYNTH = MidiSystem.getSynthesizer();
-            SYNTH.open();
-            CHANNEL = SYNTH.getChannels()[0];
-            CHANNEL.programChange(SOUND_SQUARE);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+    /**
+     * Open the synthesizer, unless that has already happened.
+     */
+    private void open() throws Exception {
+        if (channel == null) {
+            synth = MidiSystem.getSynthesizer();
+            synth.open();
+            channel = synth.getChannels()[0];
+            channel.programChange(SOUND_SQUARE);
         }
     }
 
@@ -33,14 +35,26 @@ public class Sound {
      * @param duration in milliseconds.
      * @param volume from 0 to 127.
      */
-    public static void play(int note, int duration, int volume) {
+    public void play(int note, int duration, int volume) {
         try {
-            CHANNEL.noteOn(note, volume);
+            open();
+            channel.noteOn(note, volume);
             Thread.sleep(duration);
-            CHANNEL.noteOff(note);
+            channel.noteOff(note);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Close the synthesizer, if it has been opened.
+     */
+    public void close() {
+        if (synth != null) {
+            synth.close();
+            synth = null;
+            channel = null;
+        }
+    }
+
 }
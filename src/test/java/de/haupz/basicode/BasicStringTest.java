@@ -0,0 +1,111 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.string.BasicString;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BasicStringTest extends InterpreterTest {
+
+    private static final String LONG = "0123456789".repeat(4);
+
+    @Test
+    public void testShortConcatenationIsString() {
+        assertInstanceOf(String.class, BasicString.concat("AB", "CD"));
+    }
+
+    @Test
+    public void testLongConcatenation() {
+        CharSequence s = BasicString.concat(LONG, "X");
+        assertInstanceOf(BasicString.class, s);
+        assertEquals(LONG + "X", s.toString());
+        assertEquals(LONG.length() + 1, s.length());
+        assertEquals('X', s.charAt(LONG.length()));
+    }
+
+    @Test
+    public void testSharedPrefixesAreUnaffected() {
+        CharSequence a = BasicString.concat(LONG, "");
+        CharSequence b = BasicString.concat(LONG, "A");
+        CharSequence ba = BasicString.concat(b, "B");
+        CharSequence bc = BasicString.concat(b, "C");
+        CharSequence bab = BasicString.concat(ba, b);
+        assertSame(LONG, a);
+        assertEquals(LONG + "A", b.toString());
+        assertEquals(LONG + "AB", ba.toString());
+        assertEquals(LONG + "AC", bc.toString());
+        assertEquals(LONG + "AB" + LONG + "A", bab.toString());
+    }
+
+    @Test
+    public void testSelfConcatenation() {
+        CharSequence s = BasicString.concat(LONG, "A");
+        for (int i = 0; i < 5; ++i) {
+            s = BasicString.concat(s, s);
+        }
+        assertEquals((LONG + "A").repeat(32), s.toString());
+    }
+
+    @Test
+    public void testFlattenedOnce() {
+        CharSequence s = BasicString.concat(LONG, "A");
+        assertSame(s.toString(), s.toString());
+    }
+
+    @Test
+    public void testCompare() {
+        CharSequence s = BasicString.concat(LONG, "A");
+        CharSequence t = BasicString.concat(LONG, "B");
+        assertTrue(BasicString.compare(s, t) < 0);
+        assertTrue(BasicString.compare(t, LONG) > 0);
+        assertTrue(BasicString.equal(s, LONG + "A"));
+        assertFalse(BasicString.equal(s, t));
+    }
+
+    @Test
+    public void testSingleCharacterSubstringsArePreallocated() {
+        assertSame(BasicString.valueOf('A'), BasicString.substring(LONG + "A", LONG.length(), LONG.length() + 1));
+        assertSame(BasicString.valueOf('3'), BasicString.substring(BasicString.concat(LONG, "A"), 3, 4));
+        assertEquals("\u1234", BasicString.valueOf('\u1234'));
+    }
+
+    @Test
+    public void testSubstringViews() {
+        CharSequence s = BasicString.substring(LONG, 5, 25);
+        assertNotSame(String.class, s.getClass());
+        assertEquals(LONG.substring(5, 25), s.toString());
+        CharSequence t = BasicString.substring(s, 3, 8);
+        assertEquals(LONG.substring(8, 13), t.toString());
+        assertEquals(LONG.charAt(12), t.charAt(4));
+        assertSame(LONG, BasicString.substring(LONG, 0, LONG.length()));
+        assertEquals("", BasicString.substring(LONG, 7, 7));
+        assertThrows(StringIndexOutOfBoundsException.class, () -> BasicString.substring(LONG, 5, 41));
+    }
+
+    @Test
+    public void testSubstringOfConcatenation() {
+        CharSequence s = BasicString.concat(LONG, "ABC");
+        CharSequence tail = BasicString.substring(s, LONG.length(), LONG.length() + 3);
+        CharSequence appended = BasicString.concat(tail, "D");
+        CharSequence s2 = BasicString.concat(s, "E");
+        assertEquals("ABC", tail.toString());
+        assertEquals("ABCD", appended.toString());
+        assertEquals(LONG + "ABCE", s2.toString());
+        assertEquals(LONG + "ABC", s.toString());
+        assertEquals(LONG + "ABCD" + LONG, BasicString.concat(BasicString.concat(LONG, appended), s2.subSequence(0, 40))
+                .toString());
+    }
+
+    @Test
+    public void testAccumulationInProgram() {
+        testInterpreter("""
+                10 A$="":DIM B$(1)
+                20 FOR I=1 TO 100:A$=A$+CHR$(48+I-10*INT(I/10)):B$(1)=B$(1)+"X":NEXT I
+                30 C$=A$:A$=A$+"!":C$=C$+"?"
+                40 PRINT LEN(A$);LEN(C$);LEN(B$(1))
+                50 PRINT RIGHT$(A$,3);RIGHT$(C$,3);MID$(A$,9,3)
+                60 PRINT A$>C$;A$=C$;LEFT$(A$,100)=LEFT$(C$,100)
+                """, " 101  101  100 \n90!90?901\n 0  0 -1 \n");
+    }
+
+}
@@ -0,0 +1,131 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.BatchRunner.Result;
+import de.haupz.basicode.BatchRunner.Status;
+import de.haupz.basicode.interpreter.Configuration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchRunnerTest {
+
+    private static final Configuration CONFIGURATION =
+            new Configuration(true, true, false, false, false, 0, false, false, 50);
+
+    @TempDir
+    Path dir;
+
+    private void write(String name, String source) throws IOException {
+        Files.writeString(dir.resolve(name), source);
+    }
+
+    @Test
+    public void testStatuses() throws IOException {
+        write("a-ok.bas", """
+                1000 PRINT "fine"
+                """);
+        write("b-failing.bas", """
+                1000 PRINT "before":A=1/0
+                """);
+        write("c-looping.bas", """
+                1000 GOTO 1000
+                """);
+        write("d-parse-error.bas", """
+                1000 PRINT (
+                """);
+        write("not-basic.txt", "");
+        List<Result> results = new BatchRunner(CONFIGURATION, Duration.ofMillis(500), 2).runDirectory(dir);
+        assertEquals(List.of("a-ok.bas", "b-failing.bas", "c-looping.bas", "d-parse-error.bas"),
+                results.stream().map(r -> r.file().getFileName().toString()).toList());
+        assertEquals(List.of(Status.OK, Status.FAILED, Status.TIMEOUT, Status.FAILED),
+                results.stream().map(Result::status).toList());
+        assertEquals("fine\n", results.get(0).output());
+        assertEquals("before\n", results.get(1).output());
+        assertFalse(results.get(1).error().isEmpty());
+        String summary = BatchRunner.summary(results);
+        assertTrue(summary.endsWith("OK: 1, FAILED: 2, TIMEOUT: 1\n"), summary);
+    }
+
+    @Test
+    public void testLineTerminatorsAndEncoding() throws IOException {
+        write("crlf.bas", "1000 PRINT \"Grüße\";\r\n1010 PRINT 1\r1020 PRINT 2\r\n");
+        List<Result> results = new BatchRunner(CONFIGURATION, Duration.ofSeconds(5), 1).runDirectory(dir);
+        assertEquals(Status.OK, results.get(0).status());
+        assertEquals("Grüße 1 \n 2 \n", results.get(0).output());
+    }
+
+    @Test
+    public void testConcurrentRunsDoNotInterfere() throws IOException {
+        for (int i = 0; i < 16; ++i) {
+            write(String.format("p%02d.bas", i), """
+                    1000 FOR I=1 TO 200:S=S+I/%d:NEXT I
+                    1010 PRINT S;
+                    1020 SR=S:GOSUB 300:PRINT SR$
+                    """.formatted(i + 1));
+        }
+        List<Result> results = new BatchRunner(CONFIGURATION, Duration.ofSeconds(30), 4).runDirectory(dir);
+        for (int i = 0; i < 16; ++i) {
+            Result r = results.get(i);
+            assertEquals("", r.printerOutput());
+            assertEquals(Status.OK, r.status(), r.error());
+            double s = 0;
+            for (int j = 1; j <= 200; ++j) {
+                s += j / (double) (i + 1);
+            }
+            String[] parts = r.output().trim().split("\\s+");
+            assertEquals(s, Double.parseDouble(parts[0]), 1e-6);
+            assertEquals(s, Double.parseDouble(parts[1]), 1e-6);
+        }
+    }
+
+    @Test
+    public void testConcurrentPrinterOutput() throws IOException {
+        for (String name : List.of("first", "second")) {
+            write(name + ".bas", """
+                    1000 FOR I=1 TO 300
+                    1010 SR=I:GOSUB 300:SR$="%s "+SR$:GOSUB 350:GOSUB 360
+                    1020 NEXT I
+                    1030 PRINT "done"
+                    """.formatted(name));
+        }
+        List<Result> results = new BatchRunner(CONFIGURATION, Duration.ofSeconds(30), 2).runDirectory(dir);
+        for (Result r : results) {
+            String name = r.file().getFileName().toString().replace(".bas", "");
+            assertEquals(Status.OK, r.status(), r.error());
+            assertEquals("done\n", r.output());
+            StringBuilder expected = new StringBuilder();
+            for (int i = 1; i <= 300; ++i) {
+                expected.append(name).append(' ').append(i).append('\n');
+            }
+            assertEquals(expected.toString(), r.printerOutput());
+        }
+    }
+
+    @Test
+    public void testBreakpointOutputPerProgram() throws IOException {
+        for (String name : List.of("first", "second")) {
+            write(name + ".bas", """
+                    1000 NA$="%s"
+                    1010 FOR I=1 TO 50:GOSUB 963:NEXT I
+                    1020 PRINT "done"
+                    """.formatted(name));
+        }
+        List<Result> results = new BatchRunner(CONFIGURATION, Duration.ofSeconds(30), 2).runDirectory(dir);
+        for (Result r : results) {
+            String name = r.file().getFileName().toString().replace(".bas", "");
+            String other = name.equals("first") ? "second" : "first";
+            assertEquals(Status.OK, r.status(), r.error());
+            assertTrue(r.output().contains(name), r.output());
+            assertFalse(r.output().contains(other), r.output());
+            assertTrue(r.output().endsWith("done\n"), r.output());
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+package de.haupz.basicode;
+
+import org.junit.jupiter.api.Test;
+
+public class CompilerTest extends InterpreterTest {
+
+    @Test
+    public void testNextBeforeFor() {
+        testInterpreter("""
+                1000 GOTO 1030
+                1010 S=S+I
+                1020 NEXT I:PRINT S:END
+                1030 FOR I=1 TO 4
+                1040 GOTO 1010
+                """, """
+                 10\s
+                """);
+    }
+
+    @Test
+    public void testLeaveLoopAndContinue() {
+        testInterpreter("""
+                1000 FOR I=1 TO 3
+                1010 IF I=2 THEN GOTO 1040
+                1020 S=S+I
+                1030 NEXT I:PRINT S:END
+                1040 S=S+10*I:NEXT I
+                """, """
+                 24\s
+                """);
+    }
+
+    @Test
+    public void testSubroutineSeesVariables() {
+        testInterpreter("""
+                1000 A=21:SR=A*2:GOSUB 300:PRINT SR$
+                """, """
+                42
+                """);
+    }
+
+    @Test
+    public void testInputSetsVariable() {
+        testInterpreter("""
+                1000 INPUT A:B=A*2:PRINT B
+                """, "7\n", """
+                ? \s14\s
+                """);
+    }
+
+    @Test
+    public void testFunctionArgumentShadowsVariable() {
+        testInterpreter("""
+                1000 DEF FN F(X)=X*2:X=5:Y=FN F(3)+X:PRINT X;Y
+                """, """
+                 5  11\s
+                """);
+    }
+
+    @Test
+    public void testLargeProgram() {
+        // The program is split into several methods. The loop, the subroutine call, and the IF statements cross their
+        // boundaries.
+        StringBuilder source = new StringBuilder("1000 FOR I=1 TO 3\n1010 GOSUB 5000\n");
+        for (int line = 1020; line < 4000; line += 10) {
+            source.append(line).append(" A=A+1:B=B+A:IF B>1E9 THEN B=0\n");
+        }
+        source.append("4000 NEXT I:PRINT A;B;S:END\n");
+        source.append("5000 S=S+I:RETURN\n");
+        testInterpreter(source.toString(), """
+                 894  400065  6\s
+                """);
+    }
+
+}
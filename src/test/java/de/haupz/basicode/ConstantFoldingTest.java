@@ -0,0 +1,74 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.ast.*;
+import de.haupz.basicode.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConstantFoldingTest extends InterpreterTest {
+
+    /**
+     * Parse a single assignment, fold the program's constants, and return the assignment's right-hand side.
+     */
+    private static ExpressionNode foldedExpression(String assignment) {
+        ProgramNode prog = new Parser(new StringReader("10 " + assignment)).program();
+        prog.foldConstants();
+        return ((LetNode) prog.getLines().get(0).getStatements().get(0)).getExpression();
+    }
+
+    @Test
+    public void testArithmeticIsFolded() {
+        ExpressionNode e = foldedExpression("A=2*3.5+-1");
+        assertInstanceOf(DoubleNode.class, e);
+        assertEquals(6.0, e.eval(null));
+    }
+
+    @Test
+    public void testBuiltinsAreFolded() {
+        assertInstanceOf(DoubleNode.class, foldedExpression("A=SQR(16)+SIN(0)+ASC(\"A\")+LEN(\"HELLO\")"));
+        assertEquals("ABC", foldedExpression("A$=CHR$(65)+MID$(\"XBCX\",2,2)").eval(null));
+        assertEquals(-1.0, foldedExpression("A=\"A\"<\"B\" AND 3>=2").eval(null));
+    }
+
+    @Test
+    public void testVariablesAreNotFolded() {
+        ExpressionNode e = foldedExpression("A=2*3+B");
+        assertInstanceOf(AddNode.class, e);
+    }
+
+    @Test
+    public void testErrorsAreNotFolded() {
+        assertInstanceOf(DivideNode.class, foldedExpression("A=1/0"));
+        assertInstanceOf(AddNode.class, foldedExpression("A=1+1/0"));
+        assertInstanceOf(AddNode.class, foldedExpression("A=1+\"X\""));
+    }
+
+    @Test
+    public void testFoldedProgram() {
+        testInterpreter("""
+                1000 FOR I=1 TO 2*2 STEP -(-2):PRINT I;:NEXT I
+                1010 IF 1<2 THEN PRINT CHR$(72)+"I";
+                1020 DIM A(2+1):A(1*3)=7:PRINT A(3);
+                1030 ON 1+1 GOTO 1040,1050
+                1040 PRINT "no"
+                1050 PRINT LEFT$("HELLO",1+1)
+                """, " 1  3 HI 7 HE\n");
+    }
+
+    @Test
+    public void testDivisionByZeroAtRuntime() {
+        testInterpreter("""
+                1000 PRINT "A"
+                1010 GOTO 1030
+                1020 X=1/0
+                1030 PRINT "B"
+                """, "A\nB\n");
+        testInterpreterThrows("""
+                1000 PRINT 1/0
+                """, IllegalStateException.class);
+    }
+
+}
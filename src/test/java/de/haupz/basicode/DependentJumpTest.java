@@ -84,7 +84,7 @@ public class DependentJumpTest extends InterpreterTest {
                 """, IllegalStateException.class);
         testInterpreterThrows("""
                 1000 A=4
-                2000 ON A GOTO 3000,4000,5000
+                2000 ON A GOTO 3000,3000,3000
                 3000 END
                 """, IllegalStateException.class);
     }
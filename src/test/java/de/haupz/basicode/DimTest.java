@@ -171,6 +171,14 @@ public class DimTest extends StatementTest {
         assertEquals("Hello.", aa.get());
     }
 
+    @Test
+    public void testWriteComputed2D() {
+        run(List.of("DIM A(3,3)", "I=2", "A(I,I+1)=I*1.5", "AA=A(2,3)+A(0,0)"));
+        Optional<Object> aa = state.getVar("AA");
+        assertTrue(aa.isPresent());
+        assertEquals(3.0, aa.get());
+    }
+
     @Test
     public void testWriteOutOfBounds1D() {
         assertThrows(IllegalStateException.class, () -> run(List.of("DIM A(7)", "A(8)=23")));
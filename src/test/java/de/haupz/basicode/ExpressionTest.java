@@ -34,6 +34,12 @@ public abstract class ExpressionTest extends PseudoProgramTest {
 
     void testExpression(String expression, Object expectedResult, Class<?> expectedClass) {
         Object actualResult = parseExpression(expression).eval(state);
+        if (expectedClass == String.class) {
+            // String results may be represented by any CharSequence, e.g., a substring view.
+            assertInstanceOf(CharSequence.class, actualResult);
+            assertEquals(expectedResult, actualResult.toString());
+            return;
+        }
         assertEquals(expectedClass, actualResult.getClass());
         if (expectedClass == Double.class) {
             assertEquals((double) expectedResult, (double) actualResult, 0.000001);
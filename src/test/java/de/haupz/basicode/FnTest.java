@@ -60,4 +60,14 @@ public class FnTest extends InterpreterTest {
                 """);
     }
 
+    @Test
+    public void testArgumentRestored() {
+        testInterpreter("""
+                10 X=5:DEF FNMU(X)=X*3
+                20 PRINT FNMU(2);X
+                """, """
+                 6  5\s
+                """);
+    }
+
 }
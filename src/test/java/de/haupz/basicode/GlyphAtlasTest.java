@@ -0,0 +1,88 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.io.TextBuffer;
+import de.haupz.basicode.ui.GlyphAtlas;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static de.haupz.basicode.io.ConsoleConfiguration.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GlyphAtlasTest {
+
+    private static BufferedImage newImage() {
+        return new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Render a text buffer cell by cell with {@link Graphics2D#drawChars}, each cell clipped to its bounds.
+     */
+    private static BufferedImage renderDirectly(TextBuffer textBuffer) {
+        BufferedImage image = newImage();
+        Graphics2D g2 = image.createGraphics();
+        g2.setFont(font());
+        for (int l = 0; l < LINES; ++l) {
+            for (int c = 0; c < COLUMNS; ++c) {
+                g2.setClip(c * C_WIDTH, l * C_HEIGHT, C_WIDTH, C_HEIGHT);
+                g2.setColor(textBuffer.getBackgroundColourAt(l, c));
+                g2.fillRect(c * C_WIDTH, l * C_HEIGHT, C_WIDTH, C_HEIGHT);
+                g2.setColor(textBuffer.getForegroundColourAt(l, c));
+                g2.drawChars(textBuffer.getLine(l), c, 1, c * C_WIDTH, (l + 1) * C_HEIGHT);
+            }
+        }
+        g2.dispose();
+        return image;
+    }
+
+    private static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                int pixelX = x;
+                int pixelY = y;
+                assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), () -> "pixel " + pixelX + "," + pixelY);
+            }
+        }
+    }
+
+    @Test
+    public void testSameAsDirectRendering() {
+        TextBuffer textBuffer = new TextBuffer(LINES, COLUMNS, COLOR_MAP[1], COLOR_MAP[6]);
+        for (int i = 0; i < LINES * COLUMNS - 1; ++i) {
+            if (i % 50 == 0) {
+                textBuffer.setColours(COLOR_MAP[i / 50 % N_COLORS], COLOR_MAP[(i / 50 + 3) % N_COLORS]);
+            }
+            // include characters beyond the atlas, which are rendered directly
+            char c = i % 97 == 0 ? 'é' : i % 89 == 0 ? '€' : (char) (' ' + i % 95);
+            textBuffer.writeString(Character.toString(c), i % 3 == 0);
+        }
+        BufferedImage image = newImage();
+        new GlyphAtlas(font()).drawText(image, textBuffer, 0, LINES, 0, COLUMNS);
+        assertSameImage(renderDirectly(textBuffer), image);
+    }
+
+    @Test
+    public void testUnsupportedImageType() {
+        TextBuffer textBuffer = new TextBuffer(LINES, COLUMNS, COLOR_MAP[0], COLOR_MAP[7]);
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        assertThrows(IllegalStateException.class,
+                () -> new GlyphAtlas(font()).drawText(image, textBuffer, 0, LINES, 0, COLUMNS));
+    }
+
+    @Test
+    public void testPartialRegion() {
+        TextBuffer textBuffer = new TextBuffer(LINES, COLUMNS, COLOR_MAP[0], COLOR_MAP[7]);
+        textBuffer.writeString("X".repeat(LINES * COLUMNS - 1), false);
+        BufferedImage image = newImage();
+        new GlyphAtlas(font()).drawText(image, textBuffer, 2, 3, 5, 7);
+        BufferedImage expected = renderDirectly(textBuffer);
+        for (int y = 0; y < HEIGHT; ++y) {
+            for (int x = 0; x < WIDTH; ++x) {
+                boolean inRegion = y / C_HEIGHT == 2 && x / C_WIDTH >= 5 && x / C_WIDTH < 7;
+                assertEquals(inRegion ? expected.getRGB(x, y) : 0xff000000, image.getRGB(x, y));
+            }
+        }
+    }
+
+}
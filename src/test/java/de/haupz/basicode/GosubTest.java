@@ -87,4 +87,24 @@ public class GosubTest extends InterpreterTest {
                 """);
     }
 
+    @Test
+    public void testDeepRecursion() {
+        testInterpreter("""
+                1000 N=0:GOSUB 1020:PRINT N
+                1010 END
+                1020 N=N+1:IF N<100 THEN GOSUB 1020
+                1030 RETURN
+                """, """
+                 100\s
+                """);
+    }
+
+    @Test
+    public void testReturnWithoutGosub() {
+        testInterpreterThrows("""
+                1000 PRINT "One."
+                1010 RETURN
+                """, IllegalStateException.class);
+    }
+
 }
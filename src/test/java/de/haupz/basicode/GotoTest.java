@@ -1,7 +1,12 @@
 package de.haupz.basicode;
 
+import de.haupz.basicode.parser.Parser;
 import org.junit.jupiter.api.Test;
 
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
 public class GotoTest extends InterpreterTest {
 
     @Test
@@ -33,4 +38,12 @@ public class GotoTest extends InterpreterTest {
                 """);
     }
 
+    @Test
+    public void testGotoMissingLine() {
+        assertThrows(IllegalStateException.class, () -> new Parser(new StringReader("""
+                1010 PRINT "Hello."
+                1020 GOTO 1040
+                """)).program());
+    }
+
 }
@@ -0,0 +1,60 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.interpreter.Configuration;
+import de.haupz.basicode.interpreter.InterpreterState;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HeadlessTest {
+
+    private static final Configuration CONFIGURATION =
+            new Configuration(true, true, false, false, false, 0, false, false, 50);
+
+    private final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+
+    private InterpreterState run(String source, String input) {
+        return HeadlessRunner.run(source, CONFIGURATION, new BufferedReader(new StringReader(input)),
+                new PrintStream(bytesOut, true));
+    }
+
+    @Test
+    public void testTextAndInput() {
+        run("""
+                1000 INPUT A$
+                1010 PRINT "Hello, ";A$
+                """, "world\n");
+        assertEquals("? Hello, world\n", bytesOut.toString());
+    }
+
+    @Test
+    public void testGraphics() {
+        InterpreterState state = run("""
+                1000 GOSUB 600
+                1010 HO=0:VE=0:GOSUB 620
+                1020 HO=1:VE=0:GOSUB 630
+                1030 HO=0.5:VE=0.5:SR$="X":GOSUB 650
+                1040 PRINT HO;VE
+                """, "");
+        BufferedImage image = state.getOutput().getImage();
+        assertEquals(Color.YELLOW.getRGB(), image.getRGB(0, 0));
+        assertEquals(Color.YELLOW.getRGB(), image.getRGB(image.getWidth() - 1, 0));
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(0, image.getHeight() - 1));
+        assertEquals(" 0.5  0.5 \n", bytesOut.toString());
+    }
+
+    @Test
+    public void testColourOutOfRange() {
+        assertThrows(IllegalStateException.class, () -> run("""
+                1000 CC(0)=8:GOSUB 600
+                """, ""));
+    }
+
+}
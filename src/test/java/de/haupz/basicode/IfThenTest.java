@@ -169,4 +169,14 @@ public class IfThenTest extends InterpreterTest {
                 """);
     }
 
+    @Test
+    public void testIfFalseOnLastLine() {
+        testInterpreter("""
+                1010 PRINT "Hello."
+                1020 IF 0 THEN PRINT "not":PRINT "to be seen"
+                """, """
+                Hello.
+                """);
+    }
+
 }
@@ -1,6 +1,7 @@
 package de.haupz.basicode;
 
 import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.compiler.ProgramCompiler;
 import de.haupz.basicode.interpreter.Configuration;
 import de.haupz.basicode.interpreter.InterpreterState;
 import de.haupz.basicode.io.BasicInput;
@@ -9,34 +10,58 @@ import de.haupz.basicode.io.BufferedReaderInput;
 import de.haupz.basicode.io.PrintStreamOutput;
 import de.haupz.basicode.parser.Parser;
 import de.haupz.basicode.parser.ParserException;
+import de.haupz.basicode.parser.ProgramCache;
 import de.haupz.basicode.util.TestBreakpointHandler;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public abstract class InterpreterTest {
 
+    /**
+     * The ways of running a program that tests check against each other.
+     */
+    private enum Mode { THREADED, CLASSIC, COMPILED, FOLDED, CACHED }
+
+    /**
+     * The directory of the {@link ProgramCache} used in {@link Mode#CACHED} mode.
+     */
+    @TempDir
+    static Path cacheDirectory;
+
     ByteArrayOutputStream bytesOut;
 
     private InterpreterState state;
 
     void setUpState(ProgramNode prog, String input) {
+        setUpState(prog, input, false);
+    }
+
+    void setUpState(ProgramNode prog, String input, boolean compile) {
         bytesOut = new ByteArrayOutputStream();
         PrintStream ps = new PrintStream(bytesOut, true);
         BasicOutput out = new PrintStreamOutput(ps);
         BufferedReader br = new BufferedReader(new StringReader(input));
         BasicInput in = new BufferedReaderInput(br);
-        state = new InterpreterState(prog, null, in, out, new TestBreakpointHandler(), new Configuration());
+        state = new InterpreterState(prog, null, in, out, new TestBreakpointHandler(),
+                new Configuration(false, false, false, false, false, 0, compile, false, 50));
     }
 
-    private ProgramNode buildProgram(String source) {
-        Parser parser = new Parser(new StringReader(source));
+    private ProgramNode buildProgram(String source, Mode mode) {
         try {
-            return parser.program();
+            if (mode == Mode.CACHED) {
+                // Store the program in the cache, and run the one loaded from there.
+                ProgramCache cache = new ProgramCache(cacheDirectory);
+                cache.parse(source);
+                return cache.load(source).orElseThrow();
+            }
+            return new Parser(new StringReader(source)).program();
         } catch (ParserException pe) {
             throw new RuntimeException(pe);
         }
@@ -46,11 +71,17 @@ public abstract class InterpreterTest {
         testInterpreter(source, "", expectedOutput);
     }
 
+    /**
+     * Run the program using the threaded and classic interpreter loops, compiled, with constant expressions folded, and
+     * loaded from the program cache, and expect the same output from all of them.
+     */
     void testInterpreter(String source, String providedInput, String expectedOutput) {
-        ProgramNode prog = buildProgram(source);
-        setUpState(prog, providedInput);
-        prog.run(state);
-        assertEquals(expectedOutput, bytesOut.toString());
+        for (Mode mode : Mode.values()) {
+            ProgramNode prog = buildProgram(source, mode);
+            setUpState(prog, providedInput, mode == Mode.COMPILED);
+            run(prog, mode);
+            assertEquals(expectedOutput, bytesOut.toString(), mode.name());
+        }
     }
 
     void testInterpreterThrows(String source, Class<? extends Throwable> exceptionClass) {
@@ -58,9 +89,23 @@ public abstract class InterpreterTest {
     }
 
     void testInterpreterThrows(String source, String providedInput, Class<? extends Throwable> exceptionClass) {
-        ProgramNode prog = buildProgram(source);
-        setUpState(prog, providedInput);
-        assertThrows(exceptionClass, () -> prog.run(state));
+        for (Mode mode : Mode.values()) {
+            ProgramNode prog = buildProgram(source, mode);
+            setUpState(prog, providedInput, mode == Mode.COMPILED);
+            assertThrows(exceptionClass, () -> run(prog, mode), mode.name());
+        }
+    }
+
+    private void run(ProgramNode prog, Mode mode) {
+        switch (mode) {
+            case THREADED, CACHED -> prog.run(state);
+            case CLASSIC -> prog.runClassic(state);
+            case COMPILED -> ProgramCompiler.compile(prog).run(state);
+            case FOLDED -> {
+                prog.foldConstants();
+                prog.run(state);
+            }
+        }
     }
 
 }
@@ -0,0 +1,100 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.string.NumberConversion;
+import org.junit.jupiter.api.Test;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Check {@link NumberConversion} against the {@link DecimalFormat}s and the regular expression it replaces.
+ */
+public class NumberConversionTest {
+
+    private static final DecimalFormat PRINT_FORMAT =
+            new DecimalFormat(" #.######### ;-#.######### ", DecimalFormatSymbols.getInstance(Locale.ENGLISH));
+
+    private static final Pattern DOUBLE = Pattern.compile("^[-+]?[0-9]*\\.?[0-9]+([eE][-+]?[0-9]+)?");
+
+    private static final double[] EDGE_CASES = {
+            0.0, -0.0, 0.5, -0.5, 1.0, -1.0, 0.1, 0.2, 0.3, 1.0 / 3, 2.0 / 3, 3.141, 1000, -1.2345678, -200000000,
+            1000.23, -999.42, 100.423, -4444.765, 1e-9, 5e-10, 1.5e-9, 2.5e-9, 1e-10, -1e-10, 0.9999999995,
+            0.99999999949, 999999.9999999999, 123456.789, 1e6 + 0.5, 4e6 + 0.1, 1e15 - 1, 1e15, 1e15 + 0.3, 1e20,
+            8.41e21, 1.5e300, Double.MIN_VALUE, Double.MAX_VALUE, Double.NaN, Double.POSITIVE_INFINITY,
+            Double.NEGATIVE_INFINITY
+    };
+
+    private static String decimalFormat(double d, int decimalPlaces) {
+        String pattern = decimalPlaces > 0 ? "#." + "#".repeat(decimalPlaces) : "#";
+        return new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(Locale.ENGLISH)).format(d);
+    }
+
+    private static void checkFormats(double d) {
+        assertEquals(PRINT_FORMAT.format(d), NumberConversion.print(d), () -> "PRINT " + d);
+        for (int places : new int[] {0, 2, 9}) {
+            assertEquals(decimalFormat(d, places), NumberConversion.format(d, places), () -> places + " places " + d);
+        }
+    }
+
+    @Test
+    public void testFormatEdgeCases() {
+        for (double d : EDGE_CASES) {
+            checkFormats(d);
+            checkFormats(-d);
+        }
+        assertEquals(decimalFormat(3.14159, 12), NumberConversion.format(3.14159, 12));
+        assertEquals(decimalFormat(3.6, 0), NumberConversion.format(3.6, -1));
+    }
+
+    @Test
+    public void testFormatRandom() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; ++i) {
+            // numbers of all magnitudes, numbers with few decimals, and integers
+            checkFormats((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20));
+            checkFormats(random.nextInt(2000000) / Math.pow(10, random.nextInt(10)));
+            checkFormats(random.nextLong() >> random.nextInt(64));
+        }
+    }
+
+    private static double regexParse(String s) {
+        Matcher matcher = DOUBLE.matcher(s);
+        return matcher.find() ? Double.parseDouble(matcher.group()) : 0.0;
+    }
+
+    @Test
+    public void testParse() {
+        String[] inputs = {
+                "", "abc", "1", "-1", "+1", "12.", "12.5", ".5", "-.5", "+.5", ".", "-", "1e5", "1E5", "1e", "1e-",
+                "1e+3", "1.5e-3x", "2.5E+10abc", "  5", "5  ", "007", "0.000123", "-0", "1e400", "1e-400", "3.14159",
+                "123456789012345678901234567890", "0.1234567890123456789", "1e0000000000005", "9007199254740993",
+                "4.9e-324", "1.7976931348623157e308", "12.34.56", "1-2", "5e5e5", "0x10"
+        };
+        for (String s : inputs) {
+            assertEquals(regexParse(s), NumberConversion.parse(s), s);
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; ++i) {
+            String s = Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(60) - 30));
+            assertEquals(regexParse(s), NumberConversion.parse(s), s);
+            String t = PRINT_FORMAT.format(random.nextInt(2000000) / Math.pow(10, random.nextInt(10))).trim();
+            assertEquals(regexParse(t), NumberConversion.parse(t), t);
+        }
+    }
+
+    @Test
+    public void testSpaces() {
+        assertEquals("", NumberConversion.spaces(-1));
+        assertEquals("", NumberConversion.spaces(0));
+        assertEquals("   ", NumberConversion.spaces(3));
+        assertEquals(100, NumberConversion.spaces(100).length());
+        assertTrue(NumberConversion.spaces(100).isBlank());
+    }
+
+}
@@ -0,0 +1,76 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.ast.ProgramNode;
+import de.haupz.basicode.parser.ParserException;
+import de.haupz.basicode.parser.ProgramCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProgramCacheTest {
+
+    private static final String PROGRAM = """
+            1000 READ A$,B:PRINT A$;B
+            1010 DATA "X",-1.5
+            """;
+
+    @TempDir
+    Path dir;
+
+    private List<Path> entries() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.toList();
+        }
+    }
+
+    @Test
+    public void testStoreAndLoad() throws IOException {
+        ProgramCache cache = new ProgramCache(dir);
+        assertTrue(cache.load(PROGRAM).isEmpty());
+        ProgramNode parsed = cache.parse(PROGRAM);
+        assertEquals(1, entries().size());
+        ProgramNode loaded = cache.load(PROGRAM).orElseThrow();
+        assertNotSame(parsed, loaded);
+        assertEquals(parsed.getDataList(), loaded.getDataList());
+        assertEquals(parsed.getLines().get(0).getLineText(), loaded.getLines().get(0).getLineText());
+        assertEquals(parsed.getLines().get(1).getLineNumber(), loaded.getLines().get(1).getLineNumber());
+    }
+
+    @Test
+    public void testChangedSourceIsParsedAgain() throws IOException {
+        ProgramCache cache = new ProgramCache(dir);
+        cache.parse(PROGRAM);
+        String changed = PROGRAM.replace("-1.5", "2");
+        assertTrue(cache.load(changed).isEmpty());
+        assertEquals(List.of("X", 2.0), cache.parse(changed).getDataList());
+        assertEquals(2, entries().size());
+    }
+
+    @Test
+    public void testCorruptEntryIsReplaced() throws IOException {
+        ProgramCache cache = new ProgramCache(dir);
+        cache.parse(PROGRAM);
+        Path entry = entries().get(0);
+        byte[] bytes = Files.readAllBytes(entry);
+        Files.write(entry, Arrays.copyOf(bytes, bytes.length / 2));
+        assertTrue(cache.load(PROGRAM).isEmpty());
+        assertEquals(List.of("X", -1.5), cache.parse(PROGRAM).getDataList());
+        assertTrue(cache.load(PROGRAM).isPresent());
+    }
+
+    @Test
+    public void testParseErrorIsNotCached() throws IOException {
+        ProgramCache cache = new ProgramCache(dir);
+        assertThrows(ParserException.class, () -> cache.parse("1000 PRINT ("));
+        assertTrue(entries().isEmpty());
+    }
+
+}
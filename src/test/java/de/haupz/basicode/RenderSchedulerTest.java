@@ -0,0 +1,104 @@
+package de.haupz.basicode;
+
+import de.haupz.basicode.ui.RenderScheduler;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderSchedulerTest {
+
+    /**
+     * A component that records the regions it is asked to paint or repaint.
+     */
+    static class RecordingComponent extends JComponent {
+        final List<Rectangle> painted = new CopyOnWriteArrayList<>();
+        final List<Rectangle> repainted = new CopyOnWriteArrayList<>();
+
+        RecordingComponent() {
+            setSize(100, 50);
+        }
+
+        @Override
+        public void paintImmediately(Rectangle r) {
+            painted.add(new Rectangle(r));
+        }
+
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {
+            repainted.add(new Rectangle(x, y, width, height));
+        }
+    }
+
+    private static void awaitFrame(RecordingComponent component) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (component.painted.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    public void testRequestsAreCoalesced() throws Exception {
+        RecordingComponent component = new RecordingComponent();
+        RenderScheduler scheduler = new RenderScheduler(component, 50);
+        assertFalse(scheduler.isImmediate());
+        scheduler.request(10, 10, 5, 5);
+        scheduler.request(30, 20, 10, 10);
+        scheduler.request(12, 12, 1, 1);
+        assertTrue(component.painted.isEmpty());
+        scheduler.start();
+        try {
+            awaitFrame(component);
+        } finally {
+            scheduler.stop();
+        }
+        assertEquals(List.of(new Rectangle(10, 10, 30, 20)), component.painted);
+        assertTrue(component.repainted.isEmpty());
+    }
+
+    @Test
+    public void testRequestAll() throws Exception {
+        RecordingComponent component = new RecordingComponent();
+        RenderScheduler scheduler = new RenderScheduler(component, 60);
+        scheduler.start();
+        try {
+            scheduler.requestAll();
+            awaitFrame(component);
+        } finally {
+            scheduler.stop();
+        }
+        assertEquals(List.of(new Rectangle(0, 0, 100, 50)), component.painted);
+    }
+
+    @Test
+    public void testStopPassesOnPendingRequests() {
+        RecordingComponent component = new RecordingComponent();
+        RenderScheduler scheduler = new RenderScheduler(component, 50);
+        scheduler.request(1, 2, 3, 4);
+        scheduler.stop();
+        assertEquals(List.of(new Rectangle(1, 2, 3, 4)), component.repainted);
+        assertTrue(component.painted.isEmpty());
+    }
+
+    @Test
+    public void testImmediateMode() {
+        RecordingComponent component = new RecordingComponent();
+        RenderScheduler scheduler = new RenderScheduler(component, 0);
+        assertTrue(scheduler.isImmediate());
+        scheduler.request(1, 2, 3, 4);
+        scheduler.request(5, 6, 7, 8);
+        assertEquals(List.of(new Rectangle(1, 2, 3, 4), new Rectangle(5, 6, 7, 8)), component.repainted);
+        assertTrue(component.painted.isEmpty());
+    }
+
+    @Test
+    public void testNegativeFrameRate() {
+        assertThrows(IllegalStateException.class, () -> new RenderScheduler(new RecordingComponent(), -1));
+    }
+
+}
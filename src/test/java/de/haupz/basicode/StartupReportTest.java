@@ -0,0 +1,38 @@
+package de.haupz.basicode;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StartupReportTest {
+
+    @Test
+    public void testPhasesInOrder() {
+        StartupReport report = new StartupReport();
+        report.mark("source loaded");
+        report.mark("program parsed");
+        report.mark("first statement");
+        List<StartupReport.Phase> phases = report.getPhases();
+        assertEquals(List.of("source loaded", "program parsed", "first statement"),
+                phases.stream().map(StartupReport.Phase::name).toList());
+        for (int i = 1; i < phases.size(); ++i) {
+            assertTrue(phases.get(i - 1).nanos() <= phases.get(i).nanos());
+        }
+    }
+
+    @Test
+    public void testFormat() {
+        StartupReport report = new StartupReport();
+        report.mark("source loaded");
+        report.mark("first statement");
+        String[] lines = report.format().split("\n");
+        assertEquals(4, lines.length);
+        assertEquals("startup times:", lines[0]);
+        assertTrue(lines[1].matches(" *\\d+ ms  main started"), lines[1]);
+        assertTrue(lines[2].matches(" *\\d+ ms  source loaded"), lines[2]);
+        assertTrue(lines[3].matches(" *\\d+ ms  first statement"), lines[3]);
+    }
+
+}
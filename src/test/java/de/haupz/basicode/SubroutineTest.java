@@ -1,9 +1,19 @@
 package de.haupz.basicode;
 
+import de.haupz.basicode.subroutines.Subroutines;
 import org.junit.jupiter.api.Test;
 
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class SubroutineTest extends InterpreterTest {
 
+    private static final Pattern SUBROUTINE_NAME = Pattern.compile("(?:goto|gosub)(\\d+)");
+
     @Test
     public void testGoto20() {
         testInterpreter("""
@@ -63,4 +73,23 @@ public class SubroutineTest extends InterpreterTest {
                 """);
     }
 
+    @Test
+    public void testLookupCoversAllSubroutines() {
+        for (Method m : Subroutines.class.getDeclaredMethods()) {
+            Matcher matcher = SUBROUTINE_NAME.matcher(m.getName());
+            if (Modifier.isStatic(m.getModifiers()) && matcher.matches()) {
+                assertNotNull(Subroutines.lookup(Integer.parseInt(matcher.group(1))), m.getName());
+            }
+        }
+        assertNull(Subroutines.lookup(1000));
+    }
+
+    @Test
+    public void testUnimplementedSubroutine() {
+        testInterpreterThrows("""
+                1000 PRINT "before"
+                1010 GOSUB 990
+                """, IllegalStateException.class);
+    }
+
 }
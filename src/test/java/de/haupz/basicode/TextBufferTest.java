@@ -2,10 +2,12 @@ package de.haupz.basicode;
 
 import de.haupz.basicode.io.ConsoleConfiguration;
 import de.haupz.basicode.io.TextBuffer;
+import de.haupz.basicode.ui.BasicContainer;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -331,4 +333,53 @@ public class TextBufferTest {
         assertColoursEqual(true, rev);
     }
 
+    /**
+     * Helper method to collect the dirty regions of the {@link #textBuffer}, each as a list of column, line, width,
+     * and height.
+     *
+     * @return the dirty regions.
+     */
+    private List<List<Integer>> drainDirtyRegions() {
+        List<List<Integer>> regions = new ArrayList<>();
+        textBuffer.drainDirtyRegions((c, l, w, h) -> regions.add(List.of(c, l, w, h)));
+        return regions;
+    }
+
+    @Test
+    public void testInitiallyDirty() {
+        assertTrue(textBuffer.isDirty());
+        assertEquals(List.of(List.of(0, 0, textBuffer.getColumns(), textBuffer.getLines())), drainDirtyRegions());
+        assertFalse(textBuffer.isDirty());
+        assertEquals(List.of(), drainDirtyRegions());
+    }
+
+    @Test
+    public void testDirtyWrite() {
+        drainDirtyRegions();
+        textBuffer.setCursor(5, 3);
+        textBuffer.writeString("Hello", false);
+        textBuffer.writeString("!", true);
+        assertEquals(List.of(List.of(5, 3, 6, 1)), drainDirtyRegions());
+        textBuffer.lineFeed();
+        assertFalse(textBuffer.isDirty());
+    }
+
+    @Test
+    public void testDirtyWrapAndSeparateLines() {
+        drainDirtyRegions();
+        textBuffer.setCursor(35, 0);
+        textBuffer.writeString("0123456789", false);
+        textBuffer.setCursor(2, 10);
+        textBuffer.writeString("X" + BasicContainer.BASICODE_DELETE, false);
+        assertEquals(List.of(List.of(0, 0, textBuffer.getColumns(), 2), List.of(2, 10, 1, 1)), drainDirtyRegions());
+    }
+
+    @Test
+    public void testDirtyScroll() {
+        drainDirtyRegions();
+        textBuffer.setCursor(0, textBuffer.getLines() - 1);
+        textBuffer.lineFeed();
+        assertEquals(List.of(List.of(0, 0, textBuffer.getColumns(), textBuffer.getLines())), drainDirtyRegions());
+    }
+
 }
@@ -1,7 +1,12 @@
 package de.haupz.basicode;
 
+import de.haupz.basicode.interpreter.Configuration;
+import de.haupz.basicode.interpreter.InterpreterState;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 public class VarTest extends ExpressionTest {
 
     @Test
@@ -22,4 +27,15 @@ public class VarTest extends ExpressionTest {
         testExpression("A", 0.0, Double.class);
     }
 
+    @Test
+    public void testRuntimeVariableIsLocalToState() {
+        int slots = PSEUDO_PROGRAM.getVariableSlots().size();
+        state.setVar("ZZ", 1.0);
+        testExpression("ZZ", 1.0, Double.class);
+        // The program's slot table, which all states share, is left alone.
+        assertEquals(slots, PSEUDO_PROGRAM.getVariableSlots().size());
+        InterpreterState other = new InterpreterState(PSEUDO_PROGRAM, null, null, null, null, new Configuration());
+        assertTrue(other.getVar("ZZ").isEmpty());
+    }
+
 }
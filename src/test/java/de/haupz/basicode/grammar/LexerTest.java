@@ -65,6 +65,27 @@ public class LexerTest {
         assertEquals("4223", lexer.getText());
     }
 
+    @Test
+    public void testLineTerminators() {
+        Lexer lexer = lex("10 REM A\r\n20 REM B\r30\n40\r\n");
+        assertEquals(NumberLiteral, lexer.getSymbol());
+        assertEquals(Rem, lexer.getSymbol());
+        assertEquals("REM A", lexer.getText());
+        assertEquals(Eol, lexer.getSymbol());
+        assertEquals("10 REM A", lexer.getLastLineText());
+        assertEquals(NumberLiteral, lexer.getSymbol());
+        assertEquals(Rem, lexer.getSymbol());
+        assertEquals(Eol, lexer.getSymbol());
+        assertEquals("20 REM B", lexer.getLastLineText());
+        assertEquals(NumberLiteral, lexer.getSymbol());
+        assertEquals(Eol, lexer.getSymbol());
+        assertEquals(NumberLiteral, lexer.getSymbol());
+        assertEquals("40", lexer.getText());
+        assertFalse(lexer.hasMoreInput());
+        assertEquals(None, lexer.getSymbol());
+        assertEquals("40", lexer.getLastLineText());
+    }
+
     @Test
     public void testNoneAfterSymbol() {
         Lexer lexer = lex("2342");
@@ -149,6 +170,20 @@ public class LexerTest {
         assertEquals(None, lexer.getSymbol());
     }
 
+    @Test
+    public void testKeywordPrefixAndTruncatedKeyword() {
+        Lexer lexer = lex("FoRM GOT");
+        assertEquals(For, lexer.getSymbol());
+        assertEquals("FoR", lexer.getText());
+        assertEquals(Identifier, lexer.getSymbol());
+        assertEquals("M", lexer.getText());
+        assertEquals(Identifier, lexer.getSymbol());
+        assertEquals("GO", lexer.getText());
+        assertEquals(Identifier, lexer.getSymbol());
+        assertEquals("T", lexer.getText());
+        assertEquals(None, lexer.getSymbol());
+    }
+
     @Test
     public void testFnIdentifier() {
         Lexer lexer = lex("FNUP");